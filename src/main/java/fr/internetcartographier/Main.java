@@ -25,6 +25,9 @@ import fr.internetcartographier.model.internetgraph.Node;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javafx.animation.FadeTransition;
@@ -66,6 +69,27 @@ public class Main extends Application {
 
 		internetCartographier = new InternetCartographier(geolocationService, weightMetric);
 
+		int numberLandmarks = Integer.parseInt(configuration.getProperty("landmarks"));
+		long landmarksRebuildThreshold = Long.parseLong(configuration.getProperty("landmarksrebuildthreshold"));
+
+		if (numberLandmarks > 0) {
+			internetCartographier.enableLandmarks(numberLandmarks, landmarksRebuildThreshold);
+		}
+
+		int deltaSteppingNodes = Integer.parseInt(configuration.getProperty("deltasteppingnodes"));
+
+		if (deltaSteppingNodes > 0) {
+			Map<WeightMetric, Double> deltas = new EnumMap<>(WeightMetric.class);
+			for (WeightMetric metric : List.of(WeightMetric.RESPONSE_TIME, WeightMetric.DISTANCE)) {
+				double delta = Double
+						.parseDouble(configuration.getProperty("deltastepping" + metric.name().toLowerCase()));
+				if (delta > 0) {
+					deltas.put(metric, delta);
+				}
+			}
+			internetCartographier.enableDeltaStepping(deltaSteppingNodes, deltas);
+		}
+
 		boolean hostNameResolution = Boolean.parseBoolean(configuration.getProperty("hostnameresolution"));
 		int maxHops = Integer.parseInt(configuration.getProperty("maxhops"));
 		double timeout = Double.parseDouble(configuration.getProperty("timeout"));
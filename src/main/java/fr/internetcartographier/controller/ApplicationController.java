@@ -22,7 +22,7 @@ public class ApplicationController extends Controller {
         controllerManager.registerController("ApplicationController", this);
     }
 
-    public synchronized void update(TracerouteResult tracerouteResult) {
+    public void update(TracerouteResult tracerouteResult) {
         internetCartographier.update(tracerouteResult);
 
         ControllerManager controllerManager = ControllerManager.getInstance();
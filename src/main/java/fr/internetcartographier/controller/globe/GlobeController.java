@@ -109,7 +109,7 @@ public class GlobeController extends Controller {
         return internetGraphLayerManager;
     }
 
-    public void update(TracerouteResult tracerouteResult) {
+    public synchronized void update(TracerouteResult tracerouteResult) {
         IPAddress previousNode = origin;
         boolean direct = true;
 
@@ -3,6 +3,7 @@ package fr.internetcartographier.controller.globe;
 import fr.internetcartographier.model.InternetCartographier;
 import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
 import gov.nasa.worldwind.WorldWind;
@@ -128,8 +129,9 @@ public class InternetGraphLayerManager {
     public void updateImport(InternetCartographier internetCartographier, InternetGraph internetGraph) {
         pathLayer.removeAllRenderables();
 
-        Set<Node> nodes = internetGraph.getNodes();
-        Set<Edge> edges = internetGraph.getEdges();
+        GraphSnapshot graph = internetGraph.snapshot();
+        List<Node> nodes = graph.getNodes();
+        List<Edge> edges = graph.getEdges();
 
         for (Node node : nodes) {
             Optional<GeolocationData> geolocationData = node.getGeolocationData(internetCartographier.getGeolocationService().getClass());
@@ -138,7 +140,7 @@ public class InternetGraphLayerManager {
         }
 
         for (Edge edge : edges) {
-            addEdge(edge.getNodeA().getStringIpAddress(), edge.getNodeB().getStringIpAddress(), GlobeController.getRandomBasicColor(), true);
+            addEdge(edge.getStringIpAddressNodeA(), edge.getStringIpAddressNodeB(), GlobeController.getRandomBasicColor(), true);
         }
 
         wwd.redraw();
@@ -146,9 +148,10 @@ public class InternetGraphLayerManager {
 
     public void refresh(InternetCartographier internetCartographier, InternetGraph internetGraph) {
         pathLayer.removeAllRenderables();
+        GraphSnapshot graph = internetGraph.snapshot();
 
         for (Map.Entry<String, PointPlacemark> entry : pointPlacemarks.entrySet()) {
-            Optional<Node> node = internetGraph.getNode(entry.getKey());
+            Optional<Node> node = graph.getNode(entry.getKey());
             PointPlacemark pointPlacemark = entry.getValue();
 
             if (node.isPresent()) {
@@ -21,11 +21,14 @@ import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 import javafx.util.StringConverter;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class ShortestPathController extends Controller {
 
+    private final static int NUMBER_PATHS = 4;
+
     @FXML
     private ComboBox<IPAddress> shortestPathFrom;
 
@@ -76,6 +79,17 @@ public class ShortestPathController extends Controller {
                 shortestPathResult.getChildren().add(new Label(node));
             }
 
+            List<Path<String>> paths = internetGraph.minimumDistances(shortestPathFrom.getValue(), shortestPathTo.getValue(), NUMBER_PATHS, weightMetric, geolocationService.getClass());
+
+            // The first path is the minimum distance path, already displayed
+            for (int rank = 1; rank < paths.size(); rank++) {
+                shortestPathResult.getChildren().add(new Label("Alternative path " + rank + " (" + paths.get(rank).getCostToString() + ")"));
+
+                for (String node : paths.get(rank)) {
+                    shortestPathResult.getChildren().add(new Label(node));
+                }
+            }
+
             displayMessage("Shortest path successfully calculated!", false);
         }
     }
@@ -100,7 +114,7 @@ public class ShortestPathController extends Controller {
 
     private void populateComboBoxes() {
         InternetGraph internetGraph = internetCartographier.getInternetGraph();
-        Set<IPAddress> ipAddresses = internetGraph.getNodes().stream()
+        Set<IPAddress> ipAddresses = internetGraph.snapshot().getNodes().stream()
                 .map(Node::getIpAddress)
                 .collect(Collectors.toSet());
         ObservableList<IPAddress> ipAddressesList = FXCollections.observableArrayList(ipAddresses);
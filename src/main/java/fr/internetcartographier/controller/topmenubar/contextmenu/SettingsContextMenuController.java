@@ -1,5 +1,6 @@
 package fr.internetcartographier.controller.topmenubar.contextmenu;
 
+import fr.internetcartographier.Configuration;
 import fr.internetcartographier.Main;
 import fr.internetcartographier.controller.ApplicationController;
 import fr.internetcartographier.controller.Controller;
@@ -12,6 +13,7 @@ import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
 import fr.internetcartographier.util.csv.CSVReader;
 import fr.internetcartographier.util.csv.CSVWrite;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
@@ -101,11 +103,30 @@ public class SettingsContextMenuController extends Controller {
             GlobeController globeController = (GlobeController) controllerManager.getController("GlobeController");
             globeController.updateImport();
             statusUpdatePopupController.displayTemporaryMessage("Internet graph correctly imported!", StatusUpdatePopupController.PopupType.SUCCESS, 5);
+            if (Boolean.parseBoolean(Configuration.getInstance().getProperty("contractionhierarchies"))) {
+                prepareContractionHierarchies(selectedFiles.get(0).getAbsoluteFile().getParentFile());
+            }
         } else {
             statusUpdatePopupController.displayTemporaryMessage("Invalid files import!", StatusUpdatePopupController.PopupType.ERROR, 5);
         }
     }
 
+    // Prepares the contraction hierarchies of the imported graph in the background, as it can take a while.
+    private void prepareContractionHierarchies(File directory) {
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                internetCartographier.prepareContractionHierarchies(directory);
+                return null;
+            }
+        };
+        task.setOnFailed(event -> System.err.println("Error: The contraction hierarchies cannot be prepared!"));
+
+        Thread thread = new Thread(task, "contraction-hierarchies");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @FXML
     private void exportOption() throws IOException {
         File selectedDirectory = directoryChooserExport.showDialog(null);
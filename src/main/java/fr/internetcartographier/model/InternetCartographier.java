@@ -4,20 +4,29 @@ import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
 import fr.internetcartographier.model.tracerouteresults.TracerouteResult;
 import fr.internetcartographier.model.tracerouteresults.TracerouteResults;
 import fr.internetcartographier.model.tracerouteresults.TracerouteRow;
-import fr.internetcartographier.util.path.Path;
+import fr.internetcartographier.util.shortestpath.ContractionHierarchy;
+import fr.internetcartographier.util.shortestpath.DeltaStepping;
+import fr.internetcartographier.util.shortestpath.LandmarkIndex;
 import fr.internetcartographier.Configuration;
 import fr.internetcartographier.util.statistics.*;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -50,7 +59,7 @@ public class InternetCartographier implements Statisticable {
 	/**
 	 * Geolocation service for obtaining geolocation data.
 	 */
-	private GeolocationService geolocationService;
+	private volatile GeolocationService geolocationService;
 
 	/**
 	 * The origin node from which the mapping starts.
@@ -81,6 +90,7 @@ public class InternetCartographier implements Statisticable {
 		tracerouteResults = new TracerouteResults();
 
 		internetGraph.addNode(origin);
+		trackDistancesToOrigin();
 	}
 
 	/**
@@ -102,6 +112,15 @@ public class InternetCartographier implements Statisticable {
 		this.weightMetric = weightMetric;
 		origin = initializeOrigin();
 		this.internetGraph.addNode(origin);
+		trackDistancesToOrigin();
+	}
+
+	// Helper method to maintain the distances from the origin for each weight
+	// metric (with the current geolocation service for DISTANCE).
+	private void trackDistancesToOrigin() {
+		for (WeightMetric metric : WeightMetric.values()) {
+			internetGraph.trackDistancesFrom(origin.getIpAddress(), metric, geolocationService.getClass());
+		}
 	}
 
 	/**
@@ -210,33 +229,53 @@ public class InternetCartographier implements Statisticable {
 	public void updateGeolocationService(GeolocationService service) {
 		setGeolocationService(service);
 		internetGraph.updateNodesGeolocationDatas(service);
+		internetGraph.trackDistancesFrom(origin.getIpAddress(), WeightMetric.DISTANCE, service.getClass());
+	}
+
+	/**
+	 * Gets the minimum distance between the origin and a node, for the current
+	 * weight metric and geolocation service. The distances from the origin are
+	 * maintained as the graph grows, so this runs in constant time.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           The distance, or {@code Double.MAX_VALUE} if the node is
+	 *                   unreachable from the origin.
+	 */
+	public double getDistanceToOrigin(IPAddress ipAddress) {
+		Class<? extends GeolocationService> service = geolocationService.getClass();
+
+		return internetGraph.getTrackedDistance(origin.getIpAddress(), ipAddress, weightMetric, service)
+				.orElseGet(() -> internetGraph.minimumDistance(origin.getIpAddress(), ipAddress, weightMetric, service)
+						.getCost());
 	}
 
 	/**
 	 * Updates (add nodes, add edges) the graph using the traceroute results
 	 * received from
 	 * traceroute
+	 * Can be called concurrently by several traceroute workers: the geolocation
+	 * data of the new hops are retrieved without locking the graph, and each
+	 * result is added in a single batch. When several results share a hop or a
+	 * link, the first one added is kept (with its geolocation data or response
+	 * time), so the resulting graph depends on the order of the calls.
 	 *
-	 * @param service The new geolocation service.
+	 * @param tracerouteResult The traceroute result to add.
 	 */
 	public void update(TracerouteResult tracerouteResult) {
 		tracerouteResults.addTracerouteResult(tracerouteResult);
 
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
 		Node previousNode = origin;
 		boolean direct = true;
 
 		for (TracerouteRow row : tracerouteResult) {
 			if (row.isReachable()) {
-				Optional<GeolocationData> geolocationData = geolocationService.getGeolocationData(row.getIpAddress());
-				GeolocationData.TypedGeolocationData typedGeolocationData = new GeolocationData.TypedGeolocationData(
-						geolocationService.getClass(), geolocationData);
-
-				Node node = new Node(row.getIpAddress(), typedGeolocationData);
-				internetGraph.addNode(node);
+				Node node = internetGraph.getNode(row.getIpAddress()).orElseGet(() -> createNode(row.getIpAddress()));
+				nodes.add(node);
 
 				if (previousNode != null && !previousNode.equals(node)) {
-					Edge edge = new Edge(node, previousNode, direct, row.getResponseTime());
-					internetGraph.addEdge(edge);
+					edges.add(new Edge(node, previousNode, direct, row.getResponseTime()));
 				}
 
 				previousNode = node;
@@ -245,33 +284,47 @@ public class InternetCartographier implements Statisticable {
 				direct = false;
 			}
 		}
+
+		internetGraph.batch(batch -> {
+			nodes.forEach(batch::addNode);
+			edges.forEach(batch::addEdge);
+		});
+	}
+
+	// Helper method to create a node, with its geolocation data from the current
+	// geolocation service.
+	private Node createNode(IPAddress ipAddress) {
+		GeolocationService service = geolocationService;
+		Optional<GeolocationData> geolocationData = service.getGeolocationData(ipAddress);
+
+		return new Node(ipAddress, new GeolocationData.TypedGeolocationData(service.getClass(), geolocationData));
 	}
 
 	// Use just for testing, simultating update(TracerouteResults tracerouteResults)
 	public void update(Set<String> targets) throws Exception {
+		List<Node> targetNodes = new ArrayList<>();
 		for (String ipAddressString : targets) {
-			IPAddress ipAddress = new IPAddress(ipAddressString);
-			Optional<GeolocationData> geoData = geolocationService.getGeolocationData(ipAddress);
-			Node node = new Node(ipAddress,
-					new GeolocationData.TypedGeolocationData(geolocationService.getClass(), geoData));
-			internetGraph.addNode(node);
+			targetNodes.add(createNode(new IPAddress(ipAddressString)));
 		}
+		internetGraph.batch(batch -> targetNodes.forEach(batch::addNode));
 
 		// Simulate results of TracerouteResults
 		Random random = new Random();
-		List<Node> nodes = new ArrayList<>(internetGraph.getNodes());
-		for (Node node : nodes) {
-			int numEdges = random.nextInt(5);
-			for (int i = 0; i < numEdges; i++) {
-				Node targetNode = nodes.get(random.nextInt(nodes.size()));
-				while (node.equals(targetNode)) {
-					targetNode = nodes.get(random.nextInt(nodes.size()));
+		List<Node> nodes = internetGraph.snapshot().getNodes();
+		internetGraph.batch(batch -> {
+			for (Node node : nodes) {
+				int numEdges = random.nextInt(5);
+				for (int i = 0; i < numEdges; i++) {
+					Node targetNode = nodes.get(random.nextInt(nodes.size()));
+					while (node.equals(targetNode)) {
+						targetNode = nodes.get(random.nextInt(nodes.size()));
+					}
+					boolean directed = random.nextBoolean();
+					int weight = random.nextInt(10) + 1;
+					batch.addEdge(new Edge(node, targetNode, directed, weight));
 				}
-				boolean directed = random.nextBoolean();
-				int weight = random.nextInt(10) + 1;
-				internetGraph.addEdge(new Edge(node, targetNode, directed, weight));
 			}
-		}
+		});
 	}
 
 	/**
@@ -281,19 +334,101 @@ public class InternetCartographier implements Statisticable {
 	 * @param importedInternetGraph The complete graph to import.
 	 */
 	public void importCompleteGraph(InternetGraph importedInternetGraph) {
-		for (Node node : importedInternetGraph.getNodes()) {
-			internetGraph.addNode(node);
-		}
+		GraphSnapshot importedGraph = importedInternetGraph.snapshot();
 
-		for (Edge edge : importedInternetGraph.getEdges()) {
-			internetGraph.addEdge(edge);
-		}
+		internetGraph.batch(batch -> {
+			importedGraph.getNodes().forEach(batch::addNode);
+			importedGraph.getEdges().forEach(batch::addEdge);
+		});
 
 		internetGraph.updateNodesGeolocationDatas(geolocationService);
 	}
 
+	/**
+	 * Prepares a contraction hierarchy of the Internet graph for each weight
+	 * metric (with the current geolocation service for
+	 * {@link WeightMetric#DISTANCE}), to answer minimum path queries quickly while
+	 * the graph is not modified. The hierarchies are saved in a directory, and
+	 * loaded from it instead of being built again when they were built from the
+	 * same graph (e.g. when the same files are imported again). A hierarchy which
+	 * cannot be saved (e.g. in a read-only directory) is still used.
+	 * Building the hierarchies of a large graph takes a while, so this should not
+	 * be called from the JavaFX application thread.
+	 *
+	 * @param directory The directory of the hierarchy files.
+	 */
+	public void prepareContractionHierarchies(File directory) {
+		GraphSnapshot graph = internetGraph.snapshot();
+		Class<? extends GeolocationService> service = geolocationService.getClass();
+
+		for (WeightMetric metric : WeightMetric.values()) {
+			String name = metric == WeightMetric.DISTANCE
+					? metric.name() + "-" + service.getSimpleName()
+					: metric.name();
+			File file = new File(directory, name.toLowerCase() + ".ch");
+			ContractionHierarchy contractionHierarchy = null;
+
+			if (file.isFile()) {
+				try (InputStream inputStream = new FileInputStream(file)) {
+					contractionHierarchy = ContractionHierarchy.read(inputStream, graph, metric, service);
+				} catch (IOException | IllegalArgumentException e) {
+					// Built from another graph, or unreadable: it is built again
+				}
+			}
+
+			if (contractionHierarchy == null) {
+				contractionHierarchy = ContractionHierarchy.build(graph, metric, service);
+				try (OutputStream outputStream = new FileOutputStream(file)) {
+					contractionHierarchy.write(outputStream, graph);
+				} catch (IOException e) {
+					// Only the next import loses the hierarchy
+					System.err.println("Error: The contraction hierarchy cannot be saved in " + file + "!");
+				}
+			}
+
+			internetGraph.setContractionHierarchy(contractionHierarchy);
+		}
+	}
+
+	/**
+	 * Removes the nodes matching a predicate from the Internet graph (e.g. stale
+	 * hops). The origin node is never removed.
+	 *
+	 * @param  filter The predicate selecting the nodes to remove.
+	 * @return        The number of removed nodes.
+	 */
+	public int removeNodes(Predicate<Node> filter) {
+		return internetGraph.removeNodes(node -> !node.equals(origin) && filter.test(node));
+	}
+
+	/**
+	 * Enables the landmarks of the Internet graph, selected from the origin node,
+	 * to speed up repeated minimum path searches (see {@link LandmarkIndex}).
+	 *
+	 * @param numberLandmarks  The number of landmarks.
+	 * @param rebuildThreshold The number of versions of the graph after which the
+	 *                         landmarks are rebuilt while they are still valid.
+	 */
+	public void enableLandmarks(int numberLandmarks, long rebuildThreshold) {
+		internetGraph.setLandmarkIndex(
+				new LandmarkIndex(origin.getStringIpAddress(), numberLandmarks, rebuildThreshold));
+	}
+
+	/**
+	 * Enables the parallel delta-stepping search on large Internet graphs (see
+	 * {@link DeltaStepping}).
+	 *
+	 * @param minimumNodes The number of nodes from which the graph is searched
+	 *                     with delta-stepping.
+	 * @param deltas       The width of the buckets for each weight metric (the
+	 *                     mean weight of the edges for the missing ones).
+	 */
+	public void enableDeltaStepping(int minimumNodes, Map<WeightMetric, Double> deltas) {
+		internetGraph.setDeltaStepping(new DeltaStepping(minimumNodes, deltas));
+	}
+
 	public List<IPAddress> searchIPAddresses(String searchTerm) {
-		return internetGraph.getNodes().stream().map(Node::getIpAddress) // Extract IPAddress from Node
+		return internetGraph.snapshot().getNodes().stream().map(Node::getIpAddress) // Extract IPAddress from Node
 				.filter(ip -> ip.getMatchScore(searchTerm) > 0) // Exclude entries with match score 0
 				.sorted((ip1, ip2) -> Integer.compare(ip2.getMatchScore(searchTerm), ip1.getMatchScore(searchTerm)))
 				.collect(Collectors.toList());
@@ -303,37 +438,25 @@ public class InternetCartographier implements Statisticable {
 
 	public Statistics getStatistics() {
 		Statistics statistics = new Statistics();
+		GraphSnapshot graph = internetGraph.snapshot();
 
-		statistics.addStatistic(getRankingByMinimumDistanceToOriginStatistic());
-		statistics.addStatistic(getNumberNodesWithGeolocationData());
+		statistics.addStatistic(getRankingByMinimumDistanceToOriginStatistic(graph));
+		statistics.addStatistic(getNumberNodesWithGeolocationData(graph));
 
 		return statistics;
 	}
 
-	private MapStatistic<Double, String> getRankingByMinimumDistanceToOriginStatistic() {
-		List<Path<String>> paths = new ArrayList<>();
-
-		for (Node node : internetGraph.getNodes()) {
-			paths.add(internetGraph.minimumDistance(origin.getIpAddress(), node.getIpAddress(), weightMetric, geolocationService.getClass()));
-		}
-
-		TreeMap<Double, String> rankingByMinimumDistanceToOrigin = new TreeMap<>();
-
-		int max_rank = Math.min(paths.size(), RANK_HEAD);
-
-		for (int rank = 0; rank < max_rank; ++rank) {
-			Path<String> path = paths.get(rank);
-
-			rankingByMinimumDistanceToOrigin.put(path.getCost(), path.getDestination());
-		}
+	private MapStatistic<Double, String> getRankingByMinimumDistanceToOriginStatistic(GraphSnapshot graph) {
+		List<Map.Entry<Double, String>> rankingByMinimumDistanceToOrigin = internetGraph.getNearestNodes(graph,
+				origin.getIpAddress(), RANK_HEAD, weightMetric, geolocationService.getClass());
 
 		return new MapStatistic<>("Ranking by minimum distance to origin", rankingByMinimumDistanceToOrigin);
 	}
 
-	private Statistic<Integer> getNumberNodesWithGeolocationData() {
+	private Statistic<Integer> getNumberNodesWithGeolocationData(GraphSnapshot graph) {
 		int numberNodesWithGeolocationData = 0;
 
-		for (Node node : internetGraph.getNodes()) {
+		for (Node node : graph.getNodes()) {
 			if (node.getGeolocationData(geolocationService.getClass()).isPresent()) {
 				++numberNodesWithGeolocationData;
 			}
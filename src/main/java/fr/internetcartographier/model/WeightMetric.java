@@ -3,6 +3,7 @@ package fr.internetcartographier.model;
 import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.internetgraph.Edge;
+import java.util.Optional;
 
 /**
  * Enumeration representing different weight metrics for edges in a network
@@ -62,23 +63,15 @@ public enum WeightMetric {
 		 */
 		@Override
 		public double getWeight(Edge edge, Class<? extends GeolocationService> geolocationService) {
-			if (edge.getNodeA().getGeolocationData(geolocationService).isEmpty()
-					|| edge.getNodeB().getGeolocationData(geolocationService).isEmpty()) {
+			Optional<GeolocationData> geoDataNodeA = edge.getGeolocationDataNodeA(geolocationService);
+			Optional<GeolocationData> geoDataNodeB = edge.getGeolocationDataNodeB(geolocationService);
+
+			if (geoDataNodeA.isEmpty() || geoDataNodeB.isEmpty()) {
 				return Double.MAX_VALUE;
 			}
 			// return distance between the 2 nodes of an edge
-			GeolocationData geoDataNodeA = edge.getNodeA().getGeolocationData(geolocationService).get();
-			GeolocationData geoDataNodeB = edge.getNodeB().getGeolocationData(geolocationService).get();
-
-			double lat1Rad = Math.toRadians(geoDataNodeA.getLatitude());
-			double lat2Rad = Math.toRadians(geoDataNodeB.getLatitude());
-			double lon1Rad = Math.toRadians(geoDataNodeA.getLongitude());
-			double lon2Rad = Math.toRadians(geoDataNodeB.getLongitude());
-
-			double x = (lon2Rad - lon1Rad) * Math.cos((lat1Rad + lat2Rad) / 2);
-			double y = lat2Rad - lat1Rad;
-			double distance = Math.sqrt(x * x + y * y) * EARTH_RADIUS;
-			return Math.round(distance * 100.0) / 100.0;
+			return getDistance(geoDataNodeA.get().getLatitude(), geoDataNodeA.get().getLongitude(),
+					geoDataNodeB.get().getLatitude(), geoDataNodeB.get().getLongitude());
 		}
 
 		/**
@@ -122,7 +115,34 @@ public enum WeightMetric {
 		}
 	};
 
-	private final static int EARTH_RADIUS = 6371;
+	/**
+	 * The radius of the Earth in kilometers, used by {@link #DISTANCE}.
+	 */
+	public final static int EARTH_RADIUS = 6371;
+
+	/**
+	 * Calculates the distance in kilometers between two points on the Earth's
+	 * surface, rounded to 2 decimals. Uses the equirectangular approximation of
+	 * the great-circle distance. Works on primitive coordinates, so it can be
+	 * used on hot paths without allocating.
+	 *
+	 * @param  latitudeA  The latitude of the first point, in degrees.
+	 * @param  longitudeA The longitude of the first point, in degrees.
+	 * @param  latitudeB  The latitude of the second point, in degrees.
+	 * @param  longitudeB The longitude of the second point, in degrees.
+	 * @return            The distance between the two points.
+	 */
+	public static double getDistance(double latitudeA, double longitudeA, double latitudeB, double longitudeB) {
+		double lat1Rad = Math.toRadians(latitudeA);
+		double lat2Rad = Math.toRadians(latitudeB);
+		double lon1Rad = Math.toRadians(longitudeA);
+		double lon2Rad = Math.toRadians(longitudeB);
+
+		double x = (lon2Rad - lon1Rad) * Math.cos((lat1Rad + lat2Rad) / 2);
+		double y = lat2Rad - lat1Rad;
+		double distance = Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+		return Math.round(distance * 100.0) / 100.0;
+	}
 
 	/**
 	 * Abstract method to be implemented by each constant for calculating the weight
@@ -26,14 +26,16 @@ public class HostIP implements GeolocationService {
 	private static GeolocationService instance = null;
 
 	/**
-	 * SAX parser used for parsing XML data.
+	 * SAX parser of each thread: SAX parsers and their factories are not
+	 * thread-safe, and lookups are done concurrently by the traceroute workers.
 	 */
-	private static SAXParser saxParser;
-
-	/**
-	 * SAX handler for extracting geolocation information from XML data.
-	 */
-	private static GetGeolocationDataHandlerSax handler;
+	private static final ThreadLocal<SAXParser> saxParsers = ThreadLocal.withInitial(() -> {
+		try {
+			return SAXParserFactory.newInstance().newSAXParser();
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IllegalStateException("Error: The SAX parser cannot be created!", e);
+		}
+	});
 
 	/**
 	 * Gets the name of the HostIP geolocation service.
@@ -61,25 +63,17 @@ public class HostIP implements GeolocationService {
 		return instance;
 	}
 
-	private GeolocationServiceStatus status;
+	private volatile GeolocationServiceStatus status;
 
 	private final String apiEndpoint;
 
 	/**
-	 * Private constructor for the HostIP service. Initializes the SAX parser and
-	 * handler.
+	 * Private constructor for the HostIP service. The SAX parsers are created by
+	 * each thread on its first lookup.
 	 *
-	 * @throws ParserConfigurationException If there is an error configuring the SAX
-	 *                                      parser.
-	 * @throws SAXException                 If there is an error creating the SAX
-	 *                                      parser.
+	 * @throws MalformedURLException If the API endpoint is not a valid URL.
 	 */
-	private HostIP() throws ParserConfigurationException, SAXException, MalformedURLException {
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-
-		saxParser = factory.newSAXParser();
-		handler = new GetGeolocationDataHandlerSax();
-
+	private HostIP() throws MalformedURLException {
         try {
             apiEndpoint = Configuration.getInstance().getProperty("hostipendpoint");
         } catch (IOException e) {
@@ -98,6 +92,7 @@ public class HostIP implements GeolocationService {
 
 	/**
 	 * Retrieves geolocation data for the given host IP address using a SAX parser.
+	 * Can be called concurrently: each call uses its own SAX handler.
 	 *
 	 * @param  ipAddress The host IP address for which geolocation data is
 	 *                   requested.
@@ -106,10 +101,12 @@ public class HostIP implements GeolocationService {
 	 */
 	@Override
 	public Optional<GeolocationData> getGeolocationData(IPAddress ipAddress) {
+		GetGeolocationDataHandlerSax handler = new GetGeolocationDataHandlerSax();
+
 		try {
 			URL url = new URL(apiEndpoint + "?ip=" + ipAddress.getStringIpAddress());
 
-			saxParser.parse(new InputSource(url.openStream()), handler);
+			saxParsers.get().parse(new InputSource(url.openStream()), handler);
 			status = GeolocationServiceStatus.UP;
 		} catch (IOException | SAXException ioe ) {
 			status = GeolocationServiceStatus.DOWN;
@@ -261,6 +261,60 @@ public class IPAddress {
 		return result;
 	}
 
+	/**
+	 * Converts an IP address in string format to a long integer without throwing
+	 * on malformed input. Unlike {@link #ipToLong(String)}, the whole string is
+	 * checked so that it can be used to look up untrusted input (e.g. CSV
+	 * records).
+	 *
+	 * @param  ipAddress The IP address in string format.
+	 * @return           The long integer representation of the IP address, or
+	 *                   {@code -1} if it is not a dotted-quad IPv4 address in
+	 *                   canonical form (octets with leading zeros are
+	 *                   rejected).
+	 */
+	public static long parseIpToLong(String ipAddress) {
+		if (ipAddress == null) {
+			return -1;
+		}
+
+		long result = 0;
+		int part = 0;
+		int digits = 0;
+		int parts = 1;
+
+		for (int i = 0; i < ipAddress.length(); i++) {
+			char c = ipAddress.charAt(i);
+
+			if (c == '.') {
+				if (digits == 0 || parts == 4) {
+					return -1;
+				}
+				result = (result << 8) + part;
+				part = 0;
+				digits = 0;
+				parts++;
+			} else if (c >= '0' && c <= '9') {
+				// A leading zero would give a second spelling of the same address
+				if (digits == 1 && part == 0) {
+					return -1;
+				}
+				part = part * 10 + (c - '0');
+				if (++digits > 3 || part > 255) {
+					return -1;
+				}
+			} else {
+				return -1;
+			}
+		}
+
+		if (digits == 0 || parts != 4) {
+			return -1;
+		}
+
+		return (result << 8) + part;
+	}
+
 	/**
 	 * Converts a long integer to an IP address in string format.
 	 *
@@ -0,0 +1,345 @@
+package fr.internetcartographier.model.internetgraph;
+
+import fr.internetcartographier.util.collection.IntArrayList;
+import fr.internetcartographier.util.collection.LongIntHashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The {@code AdjacencyArrays} class stores the edges of an
+ * {@link InternetGraph} in growable primitive arrays indexed by node and edge
+ * identifiers. Each node has a row of neighbor identifiers and a parallel row
+ * of edge identifiers, and each edge has its two endpoints, its response time
+ * and its direction. Identifiers of removed edges are recycled by the next
+ * added edges. Edges are also indexed by the pair of their endpoints (see
+ * {@link #packPair(int, int)}), so that finding the edge between two nodes is a
+ * single hash probe, and nodes are counted by degree in a
+ * {@link DegreeHistogram}.
+ */
+class AdjacencyArrays {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_ROW_CAPACITY = 2;
+	private static final int[] EMPTY_ROW = new int[0];
+
+	// Rows, indexed by node identifier
+	private int[][] neighbors;
+	private int[][] incidentEdges;
+	private int[] degrees;
+
+	// Edge table, indexed by edge identifier
+	private int[] endpoints;
+	private double[] responseTimes;
+	private final BitSet directs;
+	private final IntArrayList freeEdges;
+	private int edgeBound;
+	private int numberEdges;
+
+	// Edge identifiers, indexed by packed pair of endpoints
+	private final LongIntHashMap edgeIndex;
+
+	// Nodes, counted by degree
+	private final DegreeHistogram degreeHistogram;
+
+	/**
+	 * Constructs an empty {@code AdjacencyArrays} object.
+	 */
+	AdjacencyArrays() {
+		neighbors = new int[DEFAULT_CAPACITY][];
+		incidentEdges = new int[DEFAULT_CAPACITY][];
+		degrees = new int[DEFAULT_CAPACITY];
+		endpoints = new int[DEFAULT_CAPACITY * 2];
+		responseTimes = new double[DEFAULT_CAPACITY];
+		directs = new BitSet();
+		freeEdges = new IntArrayList();
+		edgeIndex = new LongIntHashMap();
+		degreeHistogram = new DegreeHistogram();
+		Arrays.fill(neighbors, EMPTY_ROW);
+		Arrays.fill(incidentEdges, EMPTY_ROW);
+	}
+
+	/**
+	 * Constructs an {@code AdjacencyArrays} object by copying another one.
+	 *
+	 * @param adjacencyArrays The object to copy.
+	 */
+	AdjacencyArrays(AdjacencyArrays adjacencyArrays) {
+		neighbors = new int[adjacencyArrays.neighbors.length][];
+		incidentEdges = new int[adjacencyArrays.incidentEdges.length][];
+		for (int node = 0; node < neighbors.length; node++) {
+			neighbors[node] = adjacencyArrays.neighbors[node].clone();
+			incidentEdges[node] = adjacencyArrays.incidentEdges[node].clone();
+		}
+		degrees = adjacencyArrays.degrees.clone();
+		endpoints = adjacencyArrays.endpoints.clone();
+		responseTimes = adjacencyArrays.responseTimes.clone();
+		directs = (BitSet) adjacencyArrays.directs.clone();
+		freeEdges = new IntArrayList(adjacencyArrays.freeEdges);
+		edgeBound = adjacencyArrays.edgeBound;
+		numberEdges = adjacencyArrays.numberEdges;
+		edgeIndex = new LongIntHashMap(adjacencyArrays.edgeIndex);
+		degreeHistogram = new DegreeHistogram(adjacencyArrays.degreeHistogram);
+	}
+
+	/**
+	 * Packs the identifiers of two nodes into a key independent of their order:
+	 * the smaller identifier in the high 32 bits, the larger in the low 32 bits.
+	 *
+	 * @param  nodeA The identifier of the first node.
+	 * @param  nodeB The identifier of the second node.
+	 * @return       The packed pair.
+	 */
+	static long packPair(int nodeA, int nodeB) {
+		return ((long) Math.min(nodeA, nodeB) << 32) | Math.max(nodeA, nodeB);
+	}
+
+	/**
+	 * Adds an empty row for a new node.
+	 *
+	 * @param node The identifier of the new node.
+	 */
+	void addNode(int node) {
+		ensureNode(node);
+		degreeHistogram.add(0);
+	}
+
+	/**
+	 * Removes a node and all its incident edges. Only the rows of its neighbors
+	 * are touched.
+	 *
+	 * @param node The identifier of the node to remove.
+	 */
+	void removeNode(int node) {
+		removeIncidentEdges(node);
+		degreeHistogram.remove(0);
+	}
+
+	// Makes sure a row exists for the specified node identifier.
+	private void ensureNode(int node) {
+		if (node >= degrees.length) {
+			int capacity = Math.max(degrees.length * 2, node + 1);
+			int previousCapacity = degrees.length;
+
+			neighbors = Arrays.copyOf(neighbors, capacity);
+			incidentEdges = Arrays.copyOf(incidentEdges, capacity);
+			degrees = Arrays.copyOf(degrees, capacity);
+			Arrays.fill(neighbors, previousCapacity, capacity, EMPTY_ROW);
+			Arrays.fill(incidentEdges, previousCapacity, capacity, EMPTY_ROW);
+		}
+	}
+
+	/**
+	 * Adds an undirected edge between two nodes. The caller is responsible for
+	 * checking that the edge doesn't exist yet.
+	 *
+	 * @param  nodeA        The identifier of the first node.
+	 * @param  nodeB        The identifier of the second node.
+	 * @param  isDirect     Indicates whether the edge is directed.
+	 * @param  responseTime The response time associated with the edge.
+	 * @return              The identifier of the new edge.
+	 */
+	int addEdge(int nodeA, int nodeB, boolean isDirect, double responseTime) {
+		int edge = freeEdges.isEmpty() ? edgeBound++ : freeEdges.removeLast();
+
+		if (edge >= responseTimes.length) {
+			responseTimes = Arrays.copyOf(responseTimes, responseTimes.length * 2);
+			endpoints = Arrays.copyOf(endpoints, responseTimes.length * 2);
+		}
+
+		endpoints[2 * edge] = nodeA;
+		endpoints[2 * edge + 1] = nodeB;
+		responseTimes[edge] = responseTime;
+		directs.set(edge, isDirect);
+		edgeIndex.put(packPair(nodeA, nodeB), edge);
+
+		append(nodeA, nodeB, edge);
+		append(nodeB, nodeA, edge);
+		++numberEdges;
+
+		return edge;
+	}
+
+	/**
+	 * Removes an edge.
+	 *
+	 * @param edge The identifier of the edge to remove.
+	 */
+	void removeEdge(int edge) {
+		int nodeA = endpoints[2 * edge];
+		int nodeB = endpoints[2 * edge + 1];
+
+		detach(nodeA, edge);
+		detach(nodeB, edge);
+		release(edge);
+	}
+
+	/**
+	 * Removes all the edges incident to a node. Only the rows of its neighbors
+	 * are touched.
+	 *
+	 * @param node The identifier of the node.
+	 */
+	void removeIncidentEdges(int node) {
+		int[] nodeNeighbors = neighbors[node];
+		int[] nodeEdges = incidentEdges[node];
+
+		for (int i = 0; i < degrees[node]; i++) {
+			detach(nodeNeighbors[i], nodeEdges[i]);
+			release(nodeEdges[i]);
+		}
+
+		degreeHistogram.move(degrees[node], 0);
+		neighbors[node] = EMPTY_ROW;
+		incidentEdges[node] = EMPTY_ROW;
+		degrees[node] = 0;
+	}
+
+	/**
+	 * Finds the edge between two nodes.
+	 *
+	 * @param  nodeA The identifier of the first node.
+	 * @param  nodeB The identifier of the second node.
+	 * @return       The identifier of the edge, or {@code -1} if there is none.
+	 */
+	int findEdge(int nodeA, int nodeB) {
+		return edgeIndex.get(packPair(nodeA, nodeB));
+	}
+
+	int getDegree(int node) {
+		return node < degrees.length ? degrees[node] : 0;
+	}
+
+	int getNeighbor(int node, int index) {
+		return neighbors[node][index];
+	}
+
+	int getIncidentEdge(int node, int index) {
+		return incidentEdges[node][index];
+	}
+
+	int getNodeA(int edge) {
+		return endpoints[2 * edge];
+	}
+
+	int getNodeB(int edge) {
+		return endpoints[2 * edge + 1];
+	}
+
+	double getResponseTime(int edge) {
+		return responseTimes[edge];
+	}
+
+	boolean isDirect(int edge) {
+		return directs.get(edge);
+	}
+
+	/**
+	 * Checks if an edge identifier is in use.
+	 *
+	 * @param  edge The edge identifier.
+	 * @return      {@code true} if the edge exists, {@code false} otherwise.
+	 */
+	boolean containsEdge(int edge) {
+		return edge >= 0 && edge < edgeBound && endpoints[2 * edge] >= 0;
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the edge identifiers in use.
+	 *
+	 * @return The bound.
+	 */
+	int getEdgeBound() {
+		return edgeBound;
+	}
+
+	/**
+	 * Gets the number of edges.
+	 *
+	 * @return The number of edges.
+	 */
+	int getNumberEdges() {
+		return numberEdges;
+	}
+
+	/**
+	 * Gets the nodes counted by degree.
+	 *
+	 * @return The degree histogram, updated in place by later modifications.
+	 */
+	DegreeHistogram getDegreeHistogram() {
+		return degreeHistogram;
+	}
+
+	/**
+	 * Gets a copy of the endpoints of the edges: the endpoints of edge
+	 * {@code e} are at indexes {@code 2 * e} and {@code 2 * e + 1} ({@code -1}
+	 * for free identifiers).
+	 *
+	 * @return An array of length {@code 2 * getEdgeBound()}.
+	 */
+	int[] copyEndpoints() {
+		return Arrays.copyOf(endpoints, 2 * edgeBound);
+	}
+
+	/**
+	 * Gets a copy of the response times of the edges.
+	 *
+	 * @return An array of length {@link #getEdgeBound()}.
+	 */
+	double[] copyResponseTimes() {
+		return Arrays.copyOf(responseTimes, edgeBound);
+	}
+
+	/**
+	 * Gets a copy of the directions of the edges.
+	 *
+	 * @return A bit set where bit {@code e} is set if edge {@code e} is direct.
+	 */
+	BitSet copyDirects() {
+		return (BitSet) directs.clone();
+	}
+
+	// Appends (neighbor, edge) to the row of node, growing it if needed.
+	private void append(int node, int neighbor, int edge) {
+		int degree = degrees[node];
+
+		if (degree == neighbors[node].length) {
+			int capacity = Math.max(degree * 2, DEFAULT_ROW_CAPACITY);
+			neighbors[node] = Arrays.copyOf(neighbors[node], capacity);
+			incidentEdges[node] = Arrays.copyOf(incidentEdges[node], capacity);
+		}
+
+		neighbors[node][degree] = neighbor;
+		incidentEdges[node][degree] = edge;
+		degrees[node] = degree + 1;
+		degreeHistogram.move(degree, degree + 1);
+	}
+
+	// Removes edge from the row of node, moving the last entry into its place.
+	private void detach(int node, int edge) {
+		int[] row = incidentEdges[node];
+		int last = degrees[node] - 1;
+
+		// The row is only modified once the edge is found, so a failure leaves it intact
+		for (int i = 0; i <= last; i++) {
+			if (row[i] == edge) {
+				row[i] = row[last];
+				neighbors[node][i] = neighbors[node][last];
+				degrees[node] = last;
+				degreeHistogram.move(last + 1, last);
+				return;
+			}
+		}
+
+		throw new IllegalStateException("Error: Edge " + edge + " is not incident to node " + node + "!");
+	}
+
+	private void release(int edge) {
+		edgeIndex.remove(packPair(endpoints[2 * edge], endpoints[2 * edge + 1]));
+		endpoints[2 * edge] = -1;
+		endpoints[2 * edge + 1] = -1;
+		freeEdges.add(edge);
+		--numberEdges;
+	}
+
+}
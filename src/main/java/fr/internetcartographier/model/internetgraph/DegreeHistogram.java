@@ -0,0 +1,130 @@
+package fr.internetcartographier.model.internetgraph;
+
+import java.util.Arrays;
+
+/**
+ * The {@code DegreeHistogram} class counts the nodes of an
+ * {@link InternetGraph} by degree. It is updated incrementally by
+ * {@link AdjacencyArrays} each time a node is added or removed or a degree
+ * changes, so that the number of nodes and the minimum, maximum and mean
+ * degrees can be read in constant time.
+ */
+class DegreeHistogram {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	/**
+	 * The number of nodes, indexed by degree.
+	 */
+	private int[] counts;
+
+	private int numberNodes;
+	private long sumDegrees;
+	private int minDegree;
+	private int maxDegree;
+
+	/**
+	 * Constructs an empty {@code DegreeHistogram} object.
+	 */
+	DegreeHistogram() {
+		counts = new int[DEFAULT_CAPACITY];
+	}
+
+	/**
+	 * Constructs a {@code DegreeHistogram} object by copying another one.
+	 *
+	 * @param degreeHistogram The object to copy.
+	 */
+	DegreeHistogram(DegreeHistogram degreeHistogram) {
+		counts = degreeHistogram.counts.clone();
+		numberNodes = degreeHistogram.numberNodes;
+		sumDegrees = degreeHistogram.sumDegrees;
+		minDegree = degreeHistogram.minDegree;
+		maxDegree = degreeHistogram.maxDegree;
+	}
+
+	/**
+	 * Counts a new node of the specified degree.
+	 *
+	 * @param degree The degree of the node.
+	 */
+	void add(int degree) {
+		if (degree >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(counts.length * 2, degree + 1));
+		}
+
+		++counts[degree];
+		sumDegrees += degree;
+
+		if (numberNodes++ == 0) {
+			minDegree = degree;
+			maxDegree = degree;
+		} else {
+			minDegree = Math.min(minDegree, degree);
+			maxDegree = Math.max(maxDegree, degree);
+		}
+	}
+
+	/**
+	 * Uncounts a node of the specified degree.
+	 *
+	 * @param degree The degree of the node.
+	 */
+	void remove(int degree) {
+		if (degree >= counts.length || counts[degree] == 0) {
+			throw new IllegalStateException("Error: No node of degree " + degree + " is counted!");
+		}
+
+		--counts[degree];
+		sumDegrees -= degree;
+
+		if (--numberNodes == 0) {
+			minDegree = 0;
+			maxDegree = 0;
+			return;
+		}
+
+		// Degrees change one edge at a time, so these scans are short
+		while (counts[minDegree] == 0) {
+			++minDegree;
+		}
+		while (counts[maxDegree] == 0) {
+			--maxDegree;
+		}
+	}
+
+	/**
+	 * Moves a counted node from a degree to another.
+	 *
+	 * @param from The previous degree of the node.
+	 * @param to   The new degree of the node.
+	 */
+	void move(int from, int to) {
+		if (from != to) {
+			add(to);
+			remove(from);
+		}
+	}
+
+	int getNumberNodes() {
+		return numberNodes;
+	}
+
+	int getMinDegree() {
+		return minDegree;
+	}
+
+	int getMaxDegree() {
+		return maxDegree;
+	}
+
+	/**
+	 * Gets the mean degree of the nodes.
+	 *
+	 * @return The mean degree, or {@code 0} if there is no node.
+	 */
+	double getMeanDegree() {
+		return numberNodes == 0 ? 0 : (double) sumDegrees / numberNodes;
+	}
+
+}
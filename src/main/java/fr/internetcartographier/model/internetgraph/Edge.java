@@ -7,6 +7,7 @@ import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.HostIP;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The {@code Edge} class represents a connection between two nodes in a graph,
@@ -90,6 +91,52 @@ public class Edge {
 		return new Node(nodeB);
 	}
 
+	/**
+	 * Gets the IP address of the starting node of the edge, without copying the
+	 * node.
+	 *
+	 * @return The IP address of the starting node in string format.
+	 */
+	public String getStringIpAddressNodeA() {
+		return nodeA.getStringIpAddress();
+	}
+
+	/**
+	 * Gets the IP address of the ending node of the edge, without copying the
+	 * node.
+	 *
+	 * @return The IP address of the ending node in string format.
+	 */
+	public String getStringIpAddressNodeB() {
+		return nodeB.getStringIpAddress();
+	}
+
+	/**
+	 * Gets the geolocation data of the starting node of the edge for a specific
+	 * service, without copying the node. Used on hot paths such as weight
+	 * evaluation, it doesn't allocate.
+	 *
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    An optional containing the geolocation data if
+	 *                            present, or empty otherwise.
+	 */
+	public Optional<GeolocationData> getGeolocationDataNodeA(Class<? extends GeolocationService> geolocationService) {
+		return nodeA.getGeolocationData(geolocationService);
+	}
+
+	/**
+	 * Gets the geolocation data of the ending node of the edge for a specific
+	 * service, without copying the node. Used on hot paths such as weight
+	 * evaluation, it doesn't allocate.
+	 *
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    An optional containing the geolocation data if
+	 *                            present, or empty otherwise.
+	 */
+	public Optional<GeolocationData> getGeolocationDataNodeB(Class<? extends GeolocationService> geolocationService) {
+		return nodeB.getGeolocationData(geolocationService);
+	}
+
 	/**
 	 * Updates the geolocation data of the starting node of the edge.
 	 *
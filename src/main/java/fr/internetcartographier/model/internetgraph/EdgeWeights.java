@@ -0,0 +1,154 @@
+package fr.internetcartographier.model.internetgraph;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.GeolocationData;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.geolocationservice.HostIP;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The {@code EdgeWeights} class stores the {@link WeightMetric#DISTANCE}
+ * weights of the edges of an {@link InternetGraph}, in one primitive column
+ * per geolocation service indexed by edge identifier. The weights of an edge
+ * are computed when the edge is added, and recomputed only when the
+ * geolocation data of one of its endpoints change, so that path searches read
+ * them from an array instead of evaluating the distance formula.
+ * The other weight metrics need no column of their own: response times are
+ * already stored by {@link AdjacencyArrays}, and the constant weight is 1.
+ */
+class EdgeWeights {
+
+	/**
+	 * The geolocation services for which a distance column is maintained.
+	 */
+	static final List<Class<? extends GeolocationService>> GEOLOCATION_SERVICES = List.of(HostIP.class,
+			GeoIP2.class);
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The distance columns, keyed by the canonical name of their geolocation
+	 * service.
+	 */
+	private final Map<String, double[]> distances;
+
+	/**
+	 * Constructs an empty {@code EdgeWeights} object.
+	 */
+	EdgeWeights() {
+		distances = new HashMap<>();
+		for (Class<? extends GeolocationService> geolocationService : GEOLOCATION_SERVICES) {
+			distances.put(geolocationService.getCanonicalName(), new double[DEFAULT_CAPACITY]);
+		}
+	}
+
+	/**
+	 * Constructs an {@code EdgeWeights} object by copying another one.
+	 *
+	 * @param edgeWeights The object to copy.
+	 */
+	EdgeWeights(EdgeWeights edgeWeights) {
+		distances = new HashMap<>();
+		for (Map.Entry<String, double[]> entry : edgeWeights.distances.entrySet()) {
+			distances.put(entry.getKey(), entry.getValue().clone());
+		}
+	}
+
+	/**
+	 * Computes the weights of an edge from the geolocation data of its
+	 * endpoints.
+	 *
+	 * @param  edge  The identifier of the edge.
+	 * @param  nodeA The first endpoint of the edge.
+	 * @param  nodeB The second endpoint of the edge.
+	 * @return       {@code true} if a weight of the edge changed, {@code false}
+	 *               otherwise.
+	 */
+	boolean update(int edge, Node nodeA, Node nodeB) {
+		boolean changed = false;
+
+		for (Class<? extends GeolocationService> geolocationService : GEOLOCATION_SERVICES) {
+			String name = geolocationService.getCanonicalName();
+			double[] column = distances.get(name);
+
+			if (edge >= column.length) {
+				column = Arrays.copyOf(column, Math.max(column.length * 2, edge + 1));
+				distances.put(name, column);
+			}
+
+			double distance = getDistance(nodeA, nodeB, geolocationService);
+			if (column[edge] != distance) {
+				column[edge] = distance;
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Checks if a distance column is maintained for a geolocation service.
+	 *
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    {@code true} if the column is maintained,
+	 *                            {@code false} otherwise.
+	 */
+	boolean containsDistances(Class<? extends GeolocationService> geolocationService) {
+		return distances.containsKey(geolocationService.getCanonicalName());
+	}
+
+	/**
+	 * Gets the distance weight of an edge.
+	 *
+	 * @param  edge               The identifier of the edge.
+	 * @param  geolocationService The geolocation service class, which must be
+	 *                            maintained (see {@link #containsDistances}).
+	 * @return                    The distance weight of the edge.
+	 */
+	double getDistance(int edge, Class<? extends GeolocationService> geolocationService) {
+		return distances.get(geolocationService.getCanonicalName())[edge];
+	}
+
+	/**
+	 * Gets a copy of the distance columns.
+	 *
+	 * @param  edgeBound The upper bound (exclusive) of the edge identifiers in use.
+	 * @return           The columns of length {@code edgeBound}, keyed by the
+	 *                   canonical name of their geolocation service.
+	 */
+	Map<String, double[]> copyDistances(int edgeBound) {
+		Map<String, double[]> copy = new HashMap<>();
+		for (Map.Entry<String, double[]> entry : distances.entrySet()) {
+			copy.put(entry.getKey(), Arrays.copyOf(entry.getValue(), edgeBound));
+		}
+		return copy;
+	}
+
+	/**
+	 * Computes the distance between two nodes, as {@link WeightMetric#DISTANCE}
+	 * does.
+	 *
+	 * @param  nodeA              The first node.
+	 * @param  nodeB              The second node.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distance, or {@code Double.MAX_VALUE} if a
+	 *                            node has no geolocation data.
+	 */
+	static double getDistance(Node nodeA, Node nodeB, Class<? extends GeolocationService> geolocationService) {
+		Optional<GeolocationData> geoDataNodeA = nodeA.getGeolocationData(geolocationService);
+		Optional<GeolocationData> geoDataNodeB = nodeB.getGeolocationData(geolocationService);
+
+		if (geoDataNodeA.isEmpty() || geoDataNodeB.isEmpty()) {
+			return Double.MAX_VALUE;
+		}
+
+		return WeightMetric.getDistance(geoDataNodeA.get().getLatitude(), geoDataNodeA.get().getLongitude(),
+				geoDataNodeB.get().getLatitude(), geoDataNodeB.get().getLongitude());
+	}
+
+}
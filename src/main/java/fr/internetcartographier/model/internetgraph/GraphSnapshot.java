@@ -0,0 +1,636 @@
+package fr.internetcartographier.model.internetgraph;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationData;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.util.collection.LongIntHashMap;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code GraphSnapshot} class is an immutable copy of the topology of an
+ * {@link InternetGraph}, frozen at a given version of the graph and stored in
+ * compressed sparse row (CSR) form: the arcs leaving node {@code u} are the
+ * indexes {@code [getFirstArc(u), getLastArc(u))} of flat target and weight
+ * arrays. Node and edge identifiers are the ones of the graph at that version.
+ * Read-heavy algorithms (shortest paths, statistics, export) run against a
+ * snapshot, so they get sequential memory access and can be shared across
+ * threads while the live graph keeps being mutated.
+ * A snapshot is a point-in-time read view of the graph: readers holding it see
+ * the same nodes and edges whatever happens to the graph afterwards, and it is
+ * reclaimed by the garbage collector once no reader holds it anymore. Only the
+ * geolocation data of the nodes are not frozen, as nodes are shared with the
+ * graph.
+ * Weight columns (one per weight metric and geolocation service) are computed
+ * on first use and then shared. The distance weights maintained by the graph
+ * (see {@link EdgeWeights}) are copied with the snapshot, so building a distance
+ * column only gathers them by arc.
+ * A snapshot can be built from the previous one and the nodes whose rows were
+ * modified since: the other rows, and the weight columns already computed for
+ * them, are block-copied instead of being gathered again. The arrays are still
+ * copied, as the previous snapshot must not change, so building a snapshot
+ * stays linear in the size of the graph, but it only does the per-arc work for
+ * the modified rows.
+ */
+public class GraphSnapshot {
+
+	private final long version;
+	private final long shorteningVersion;
+
+	// Nodes, indexed by identifier
+	private final Node[] nodes;
+	private final LongIntHashMap identifiersByIpAddress;
+	private final int numberNodes;
+
+	// Arcs in CSR form: each edge appears once in the row of each endpoint
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] arcEdges;
+
+	// Edge table, indexed by edge identifier
+	private final int[] endpoints;
+	private final double[] responseTimes;
+	private final BitSet directs;
+	private final int numberEdges;
+	private final Map<String, double[]> edgeDistances;
+
+	private final Map<String, double[]> weightColumns;
+	private final Map<String, Coordinates> coordinates;
+
+	// Materialized on first use
+	private volatile List<Node> nodeList;
+	private volatile List<Edge> edgeList;
+
+	/**
+	 * Constructs a {@code GraphSnapshot} of the specified graph storage.
+	 *
+	 * @param version           The version of the graph.
+	 * @param shorteningVersion The last version of the graph in which distances
+	 *                          may have decreased.
+	 * @param nodeIdentifiers   The nodes of the graph.
+	 * @param adjacencyArrays   The edges of the graph.
+	 * @param edgeWeights       The distance weights of the edges.
+	 */
+	GraphSnapshot(long version, long shorteningVersion, NodeIdentifiers nodeIdentifiers,
+			AdjacencyArrays adjacencyArrays, EdgeWeights edgeWeights) {
+		this.version = version;
+		this.shorteningVersion = shorteningVersion;
+
+		nodes = nodeIdentifiers.copyNodes();
+		identifiersByIpAddress = nodeIdentifiers.copyIdentifiersByIpAddress();
+		numberNodes = nodeIdentifiers.size();
+
+		int bound = nodes.length;
+		offsets = new int[bound + 1];
+		for (int node = 0; node < bound; node++) {
+			offsets[node + 1] = offsets[node] + adjacencyArrays.getDegree(node);
+		}
+
+		targets = new int[offsets[bound]];
+		arcEdges = new int[offsets[bound]];
+		for (int node = 0; node < bound; node++) {
+			int arc = offsets[node];
+			for (int index = 0; index < adjacencyArrays.getDegree(node); index++, arc++) {
+				targets[arc] = adjacencyArrays.getNeighbor(node, index);
+				arcEdges[arc] = adjacencyArrays.getIncidentEdge(node, index);
+			}
+		}
+
+		endpoints = adjacencyArrays.copyEndpoints();
+		responseTimes = adjacencyArrays.copyResponseTimes();
+		directs = adjacencyArrays.copyDirects();
+		numberEdges = adjacencyArrays.getNumberEdges();
+		edgeDistances = edgeWeights.copyDistances(adjacencyArrays.getEdgeBound());
+
+		weightColumns = new ConcurrentHashMap<>();
+		coordinates = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Constructs a {@code GraphSnapshot} of the specified graph storage from the
+	 * previous snapshot of the graph. The rows of the nodes which are not marked
+	 * as modified are copied from the previous snapshot, along with their arcs in
+	 * the weight columns it has already computed (except the distance columns of
+	 * the geolocation services not maintained by the graph, whose nodes may have
+	 * been located since).
+	 *
+	 * @param version           The version of the graph.
+	 * @param shorteningVersion The last version of the graph in which distances
+	 *                          may have decreased.
+	 * @param previous          The previous snapshot of the graph.
+	 * @param modifiedNodes     The nodes whose rows, or the weights of whose
+	 *                          incident edges, changed since the previous
+	 *                          snapshot. The nodes added since must be marked.
+	 * @param nodeIdentifiers   The nodes of the graph.
+	 * @param adjacencyArrays   The edges of the graph.
+	 * @param edgeWeights       The distance weights of the edges.
+	 */
+	GraphSnapshot(long version, long shorteningVersion, GraphSnapshot previous, BitSet modifiedNodes,
+			NodeIdentifiers nodeIdentifiers, AdjacencyArrays adjacencyArrays, EdgeWeights edgeWeights) {
+		this.version = version;
+		this.shorteningVersion = shorteningVersion;
+
+		nodes = nodeIdentifiers.copyNodes();
+		identifiersByIpAddress = nodeIdentifiers.copyIdentifiersByIpAddress();
+		numberNodes = nodeIdentifiers.size();
+
+		endpoints = adjacencyArrays.copyEndpoints();
+		responseTimes = adjacencyArrays.copyResponseTimes();
+		directs = adjacencyArrays.copyDirects();
+		numberEdges = adjacencyArrays.getNumberEdges();
+		edgeDistances = edgeWeights.copyDistances(adjacencyArrays.getEdgeBound());
+
+		int bound = nodes.length;
+		offsets = new int[bound + 1];
+		for (int node = 0; node < bound; node++) {
+			offsets[node + 1] = offsets[node] + adjacencyArrays.getDegree(node);
+		}
+		targets = new int[offsets[bound]];
+		arcEdges = new int[offsets[bound]];
+
+		// The weight columns carried over, with the edge weights their arcs are gathered from
+		List<String> columnNames = new ArrayList<>();
+		List<double[]> previousColumns = new ArrayList<>();
+		List<double[]> edgeColumns = new ArrayList<>();
+		for (Map.Entry<String, double[]> column : previous.weightColumns.entrySet()) {
+			double[] edgeColumn = getEdgeColumn(column.getKey());
+			if (edgeColumn != null) {
+				columnNames.add(column.getKey());
+				previousColumns.add(column.getValue());
+				edgeColumns.add(edgeColumn);
+			}
+		}
+		double[][] columns = new double[columnNames.size()][targets.length];
+
+		int previousBound = previous.nodes.length;
+		int node = 0;
+		while (node < bound) {
+			// Block-copies the run of unmodified rows starting at node
+			int end = modifiedNodes.nextSetBit(node);
+			end = Math.min(end < 0 ? bound : end, previousBound);
+			if (end > node) {
+				int from = previous.offsets[node];
+				int length = previous.offsets[end] - from;
+				System.arraycopy(previous.targets, from, targets, offsets[node], length);
+				System.arraycopy(previous.arcEdges, from, arcEdges, offsets[node], length);
+				for (int column = 0; column < columns.length; column++) {
+					System.arraycopy(previousColumns.get(column), from, columns[column], offsets[node], length);
+				}
+				node = end;
+			}
+
+			// Gathers the modified row
+			if (node < bound && (node >= previousBound || modifiedNodes.get(node))) {
+				int arc = offsets[node];
+				for (int index = 0; index < adjacencyArrays.getDegree(node); index++, arc++) {
+					targets[arc] = adjacencyArrays.getNeighbor(node, index);
+					arcEdges[arc] = adjacencyArrays.getIncidentEdge(node, index);
+					for (int column = 0; column < columns.length; column++) {
+						columns[column][arc] = edgeColumns.get(column)[arcEdges[arc]];
+					}
+				}
+				node++;
+			}
+		}
+
+		weightColumns = new ConcurrentHashMap<>();
+		for (int column = 0; column < columns.length; column++) {
+			weightColumns.put(columnNames.get(column), columns[column]);
+		}
+		coordinates = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Gets the version of the graph this snapshot was taken from.
+	 *
+	 * @return The version of the graph.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the last version of the graph in which distances between nodes may
+	 * have decreased, that is in which nodes or edges were added or weights
+	 * changed. Removing nodes or edges only makes distances longer, so structures
+	 * giving lower bounds of the distances (see {@code Landmarks}) computed from
+	 * a version since then still hold for this snapshot.
+	 *
+	 * @return The last version in which distances may have decreased.
+	 */
+	public long getShorteningVersion() {
+		return shorteningVersion;
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int getNumberNodes() {
+		return numberNodes;
+	}
+
+	/**
+	 * Gets the number of edges.
+	 *
+	 * @return The number of edges.
+	 */
+	public int getNumberEdges() {
+		return numberEdges;
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the node identifiers.
+	 *
+	 * @return The bound of the node identifiers.
+	 */
+	public int getNodeIdBound() {
+		return nodes.length;
+	}
+
+	/**
+	 * Gets the identifier of a node based on its IP address.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           The identifier of the node, or {@code -1} if the node is
+	 *                   not in the snapshot.
+	 */
+	public int getNodeId(IPAddress ipAddress) {
+		return getNodeId(ipAddress.getStringIpAddress());
+	}
+
+	/**
+	 * Gets the identifier of a node based on its IP address.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           The identifier of the node, or {@code -1} if the node is
+	 *                   not in the snapshot.
+	 */
+	public int getNodeId(String ipAddress) {
+		long key = IPAddress.parseIpToLong(ipAddress);
+		return key < 0 ? -1 : identifiersByIpAddress.get(key);
+	}
+
+	/**
+	 * Gets a node based on its identifier.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The node, or {@code null} if no node has this identifier.
+	 */
+	public Node getNode(int id) {
+		return id < 0 || id >= nodes.length ? null : nodes[id];
+	}
+
+	/**
+	 * Gets a node based on its IP address.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           An optional containing the node if found, or empty
+	 *                   otherwise.
+	 */
+	public Optional<Node> getNode(String ipAddress) {
+		return Optional.ofNullable(getNode(getNodeId(ipAddress)));
+	}
+
+	/**
+	 * Gets the nodes of the snapshot, ordered by identifier.
+	 *
+	 * @return An unmodifiable list of the nodes.
+	 */
+	public List<Node> getNodes() {
+		List<Node> nodes = nodeList;
+
+		if (nodes == null) {
+			nodes = new ArrayList<>(numberNodes);
+			for (Node node : this.nodes) {
+				if (node != null) {
+					nodes.add(node);
+				}
+			}
+			nodes = Collections.unmodifiableList(nodes);
+			nodeList = nodes;
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Gets the edges of the snapshot, ordered by identifier.
+	 *
+	 * @return An unmodifiable list of the edges.
+	 */
+	public List<Edge> getEdges() {
+		List<Edge> edges = edgeList;
+
+		if (edges == null) {
+			edges = new ArrayList<>(numberEdges);
+			for (int edgeId = 0; edgeId < responseTimes.length; edgeId++) {
+				if (containsEdge(edgeId)) {
+					edges.add(getEdge(edgeId));
+				}
+			}
+			edges = Collections.unmodifiableList(edges);
+			edgeList = edges;
+		}
+
+		return edges;
+	}
+
+	/**
+	 * Gets the degree (number of edges) of a node.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The degree of the node.
+	 */
+	public int getDegree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/**
+	 * Gets the first arc leaving a node.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The index of the first arc.
+	 */
+	public int getFirstArc(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * Gets the end (exclusive) of the arcs leaving a node.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The index following the last arc.
+	 */
+	public int getLastArc(int id) {
+		return offsets[id + 1];
+	}
+
+	/**
+	 * Gets the total number of arcs (twice the number of edges).
+	 *
+	 * @return The number of arcs.
+	 */
+	public int getNumberArcs() {
+		return targets.length;
+	}
+
+	/**
+	 * Gets the node an arc leads to.
+	 *
+	 * @param  arc The index of the arc.
+	 * @return     The identifier of the target node.
+	 */
+	public int getArcTarget(int arc) {
+		return targets[arc];
+	}
+
+	/**
+	 * Gets the edge an arc belongs to.
+	 *
+	 * @param  arc The index of the arc.
+	 * @return     The identifier of the edge.
+	 */
+	public int getArcEdge(int arc) {
+		return arcEdges[arc];
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the edge identifiers.
+	 *
+	 * @return The bound of the edge identifiers.
+	 */
+	public int getEdgeIdBound() {
+		return responseTimes.length;
+	}
+
+	/**
+	 * Checks if an edge identifier is in use.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        {@code true} if the edge exists, {@code false} otherwise.
+	 */
+	public boolean containsEdge(int edgeId) {
+		return edgeId >= 0 && edgeId < responseTimes.length && endpoints[2 * edgeId] >= 0;
+	}
+
+	/**
+	 * Gets the identifier of the first node of an edge.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        The identifier of the first node.
+	 */
+	public int getEdgeNodeA(int edgeId) {
+		return endpoints[2 * edgeId];
+	}
+
+	/**
+	 * Gets the identifier of the second node of an edge.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        The identifier of the second node.
+	 */
+	public int getEdgeNodeB(int edgeId) {
+		return endpoints[2 * edgeId + 1];
+	}
+
+	/**
+	 * Gets the response time of an edge.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        The response time.
+	 */
+	public double getResponseTime(int edgeId) {
+		return responseTimes[edgeId];
+	}
+
+	/**
+	 * Gets an edge based on its identifier.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        The edge.
+	 */
+	public Edge getEdge(int edgeId) {
+		if (!containsEdge(edgeId)) {
+			throw new IllegalArgumentException("Error: Edge " + edgeId + " is not in the snapshot!");
+		}
+
+		return new Edge(nodes[getEdgeNodeA(edgeId)], nodes[getEdgeNodeB(edgeId)], directs.get(edgeId),
+				responseTimes[edgeId]);
+	}
+
+	/**
+	 * Gets the weights of the arcs for a weight metric and a geolocation service:
+	 * the weight of arc {@code a} is at index {@code a}. The column is computed on
+	 * first use and then shared, so it must not be modified.
+	 *
+	 * @param  weightMetric       The weight metric.
+	 * @param  geolocationService The geolocation service class (only used by
+	 *                            {@link WeightMetric#DISTANCE}).
+	 * @return                    The weight column.
+	 */
+	public double[] getWeights(WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return weightColumns.computeIfAbsent(getColumnName(weightMetric, geolocationService),
+				name -> computeWeights(weightMetric, geolocationService));
+	}
+
+	// Helper method to construct the name of a weight column.
+	private static String getColumnName(WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		return weightMetric == WeightMetric.DISTANCE ? weightMetric.name() + geolocationService.getCanonicalName()
+				: weightMetric.name();
+	}
+
+	// Helper method to get the edge weights a weight column gathers by arc, or null if the column can't be carried over.
+	private double[] getEdgeColumn(String columnName) {
+		if (columnName.equals(WeightMetric.RESPONSE_TIME.name())) {
+			return responseTimes;
+		}
+		if (columnName.startsWith(WeightMetric.DISTANCE.name())) {
+			return edgeDistances.get(columnName.substring(WeightMetric.DISTANCE.name().length()));
+		}
+		return null;
+	}
+
+	private double[] computeWeights(WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		double[] weights = new double[targets.length];
+
+		switch (weightMetric) {
+			case CONSTANT:
+				Arrays.fill(weights, 1);
+				break;
+			case RESPONSE_TIME:
+				for (int arc = 0; arc < targets.length; arc++) {
+					weights[arc] = responseTimes[arcEdges[arc]];
+				}
+				break;
+			default:
+				double[] edgeWeights = edgeDistances.get(geolocationService.getCanonicalName());
+				if (edgeWeights == null) {
+					edgeWeights = computeEdgeDistances(geolocationService);
+				}
+				for (int arc = 0; arc < targets.length; arc++) {
+					weights[arc] = edgeWeights[arcEdges[arc]];
+				}
+				break;
+		}
+
+		return weights;
+	}
+
+	/**
+	 * Gets the coordinates of the nodes given by a geolocation service. They are
+	 * read on first use and then shared.
+	 *
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The coordinates of the nodes.
+	 */
+	public Coordinates getCoordinates(Class<? extends GeolocationService> geolocationService) {
+		return coordinates.computeIfAbsent(geolocationService.getCanonicalName(),
+				name -> new Coordinates(nodes, geolocationService));
+	}
+
+	// Computes the distance weights of the edges for a geolocation service not maintained by the graph.
+	private double[] computeEdgeDistances(Class<? extends GeolocationService> geolocationService) {
+		Coordinates nodeCoordinates = getCoordinates(geolocationService);
+
+		double[] edgeWeights = new double[responseTimes.length];
+		for (int edgeId = 0; edgeId < responseTimes.length; edgeId++) {
+			if (containsEdge(edgeId)) {
+				int nodeA = endpoints[2 * edgeId];
+				int nodeB = endpoints[2 * edgeId + 1];
+				edgeWeights[edgeId] = !nodeCoordinates.isLocated(nodeA) || !nodeCoordinates.isLocated(nodeB)
+						? Double.MAX_VALUE
+						: WeightMetric.getDistance(nodeCoordinates.getLatitude(nodeA),
+								nodeCoordinates.getLongitude(nodeA), nodeCoordinates.getLatitude(nodeB),
+								nodeCoordinates.getLongitude(nodeB));
+			}
+		}
+		return edgeWeights;
+	}
+
+	/**
+	 * The coordinates of the nodes of a snapshot given by a geolocation service,
+	 * in primitive arrays indexed by node identifier.
+	 */
+	public static class Coordinates {
+
+		private final double[] latitudes;
+		private final double[] longitudes;
+		private final double minCosLatitude;
+
+		private Coordinates(Node[] nodes, Class<? extends GeolocationService> geolocationService) {
+			latitudes = new double[nodes.length];
+			longitudes = new double[nodes.length];
+			Arrays.fill(latitudes, Double.NaN);
+			Arrays.fill(longitudes, Double.NaN);
+
+			double minCos = 1;
+			for (int node = 0; node < nodes.length; node++) {
+				if (nodes[node] != null) {
+					Optional<GeolocationData> geolocationData = nodes[node].getGeolocationData(geolocationService);
+					if (geolocationData.isPresent()) {
+						latitudes[node] = geolocationData.get().getLatitude();
+						longitudes[node] = geolocationData.get().getLongitude();
+						minCos = Math.min(minCos, Math.cos(Math.toRadians(latitudes[node])));
+					}
+				}
+			}
+			minCosLatitude = minCos;
+		}
+
+		/**
+		 * Checks if a node has coordinates.
+		 *
+		 * @param  node The identifier of the node.
+		 * @return      {@code true} if the node is located, {@code false}
+		 *              otherwise.
+		 */
+		public boolean isLocated(int node) {
+			return !Double.isNaN(latitudes[node]);
+		}
+
+		/**
+		 * Gets the latitude of a node.
+		 *
+		 * @param  node The identifier of the node.
+		 * @return      The latitude in degrees, or {@code NaN} if the node is not
+		 *              located.
+		 */
+		public double getLatitude(int node) {
+			return latitudes[node];
+		}
+
+		/**
+		 * Gets the longitude of a node.
+		 *
+		 * @param  node The identifier of the node.
+		 * @return      The longitude in degrees, or {@code NaN} if the node is not
+		 *              located.
+		 */
+		public double getLongitude(int node) {
+			return longitudes[node];
+		}
+
+		/**
+		 * Gets the minimum cosine of the latitudes of the located nodes, i.e. the
+		 * smallest scale of a degree of longitude relative to a degree of latitude.
+		 *
+		 * @return The minimum cosine, or 1 if no node is located.
+		 */
+		public double getMinCosLatitude() {
+			return minCosLatitude;
+		}
+
+	}
+
+}
@@ -4,14 +4,31 @@ import fr.internetcartographier.model.WeightMetric;
 import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.util.shortestpath.ALT;
+import fr.internetcartographier.util.shortestpath.AStar;
 import fr.internetcartographier.util.shortestpath.BreadthFirstSearch;
+import fr.internetcartographier.util.shortestpath.ContractionHierarchy;
+import fr.internetcartographier.util.shortestpath.DeltaStepping;
 import fr.internetcartographier.util.shortestpath.Dijkstra;
+import fr.internetcartographier.util.shortestpath.DistanceSearch;
+import fr.internetcartographier.util.shortestpath.IdentifierPath;
+import fr.internetcartographier.util.shortestpath.KShortestPaths;
+import fr.internetcartographier.util.shortestpath.LandmarkIndex;
+import fr.internetcartographier.util.shortestpath.Landmarks;
+import fr.internetcartographier.util.shortestpath.NearestNodes;
+import fr.internetcartographier.util.shortestpath.ParetoSearch;
+import fr.internetcartographier.util.shortestpath.ParetoSearch.ParetoPath;
 import fr.internetcartographier.util.cache.CacheMinimumDistances;
 import fr.internetcartographier.util.path.Path;
 import fr.internetcartographier.util.statistics.*;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The {@code InternetGraph} class represents a graph of nodes and edges,
@@ -21,48 +38,143 @@ import java.util.function.Predicate;
  * nodes and edges, as well as finding minimum distances between nodes using
  * various
  * weight metrics.
+ * The graph can be modified and read by several threads: modifications are
+ * serialized by a read-write lock, lookups by IP address or identifier and the
+ * collection getters take the read lock. Each lookup is consistent on its own,
+ * but the graph may change between two of them: algorithms iterating the graph
+ * should work on a {@link #snapshot()}.
  */
 public class InternetGraph implements Statisticable {
 
 	/**
-	 * The set of nodes in the graph.
+	 * The minimum number of edges a batch adds one by one to the tracked
+	 * distances. Beyond it, and beyond a sixteenth of the edges of the graph, the
+	 * tracked distances are rebuilt once when the batch is closed, as
+	 * propagating each edge of a bulk import may walk large parts of the trees.
 	 */
-	private Set<Node> nodes;
+	private static final int MIN_PROPAGATED_EDGES = 64;
 
 	/**
-	 * The adjacency list representing edges between nodes.
+	 * The interning layer giving a dense {@code int} identifier to each node of
+	 * the graph. It also indexes the nodes by the numeric value of their IPv4
+	 * address (see {@link IPAddress#ipToLong(String)}), so that lookups by IP
+	 * address are done in constant time.
 	 */
-	private Map<String, Set<Edge>> adjacencyList;
+	private final NodeIdentifiers nodeIdentifiers;
+
+	/**
+	 * The edges between nodes, stored as primitive arrays indexed by node and
+	 * edge identifiers.
+	 */
+	private final AdjacencyArrays adjacencyArrays;
+
+	/**
+	 * A read-only view of the nodes of the graph.
+	 */
+	private final Set<Node> nodes;
 
 	/**
 	 * The cache for storing minimum distances between nodes.
 	 */
 	private final CacheMinimumDistances cache;
 
+	/**
+	 * The version of the graph, incremented on each modification.
+	 */
+	private volatile long version;
+
+	/**
+	 * The last version in which distances between nodes may have decreased
+	 * (see {@link GraphSnapshot#getShorteningVersion()}).
+	 */
+	private volatile long shorteningVersion;
+
+	/**
+	 * The last snapshot taken, reused while the version does not change.
+	 */
+	private volatile GraphSnapshot snapshot;
+
+	/**
+	 * The nodes whose rows (or the weights of whose incident edges) were
+	 * modified since the last snapshot, so that the next one only gathers these
+	 * rows again. Set under the write lock, read and cleared while building a
+	 * snapshot, which is synchronized on it.
+	 */
+	private final BitSet modifiedNodes = new BitSet();
+
+	/**
+	 * The lock serializing the modifications of the graph.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * The distance weights of the edges, maintained as edges and geolocation data
+	 * are added.
+	 */
+	private final EdgeWeights edgeWeights;
+
+	/**
+	 * The landmarks used to search minimum paths, or {@code null} if landmarks
+	 * are disabled.
+	 */
+	private volatile LandmarkIndex landmarkIndex;
+
+	/**
+	 * The contraction hierarchies used to search minimum paths, at most one per
+	 * weight metric.
+	 */
+	private final List<ContractionHierarchy> contractionHierarchies = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The parallel delta-stepping engine used for large graphs, or {@code null}
+	 * if it is disabled.
+	 */
+	private volatile DeltaStepping deltaStepping;
+
+	/**
+	 * The distances tracked from some nodes (see
+	 * {@link #trackDistancesFrom(IPAddress, WeightMetric, Class)}), maintained
+	 * as the graph is modified.
+	 */
+	private final List<ShortestPathTree> shortestPathTrees = new ArrayList<>();
+
 	/**
 	 * Constructs an {@code InternetGraph} object by copying another
-	 * {@code InternetGraph} object.
+	 * {@code InternetGraph} object. The nodes and the cache of minimum distances
+	 * are copied too, so the two graphs can be modified independently.
 	 *
 	 * @param internetGraph The InternetGraph object to copy.
 	 */
-	// TODO Not a deep copy by the way
 	public InternetGraph(InternetGraph internetGraph) {
-		nodes = internetGraph.nodes;
-		adjacencyList = internetGraph.adjacencyList;
-		cache = internetGraph.cache;
+		internetGraph.lock.readLock().lock();
+		try {
+			nodeIdentifiers = new NodeIdentifiers(internetGraph.nodeIdentifiers);
+			adjacencyArrays = new AdjacencyArrays(internetGraph.adjacencyArrays);
+			edgeWeights = new EdgeWeights(internetGraph.edgeWeights);
+			version = internetGraph.version;
+			shorteningVersion = internetGraph.shorteningVersion;
+			cache = new CacheMinimumDistances(internetGraph.cache);
+		} finally {
+			internetGraph.lock.readLock().unlock();
+		}
+		nodes = new NodesView();
 	}
 
 	/**
 	 * Constructs an empty {@code InternetGraph} object.
 	 */
 	public InternetGraph() {
-		nodes = new HashSet<>();
-		adjacencyList = new HashMap<>();
+		nodeIdentifiers = new NodeIdentifiers();
+		adjacencyArrays = new AdjacencyArrays();
+		edgeWeights = new EdgeWeights();
+		nodes = new NodesView();
 		cache = new CacheMinimumDistances();
 	}
 
 	/**
-	 * Gets the set of nodes in the graph.
+	 * Gets the set of nodes in the graph. The returned set is a read-only view
+	 * backed by the graph: to iterate it while the graph is modified by another
+	 * thread, use {@link #snapshot()} instead.
 	 *
 	 * @return The set of nodes.
 	 */
@@ -79,6 +191,65 @@ public class InternetGraph implements Statisticable {
 		return cache;
 	}
 
+	/**
+	 * Gets the version of the graph. The version changes each time nodes, edges
+	 * or geolocation data of the graph are modified.
+	 *
+	 * @return The version of the graph.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets an immutable snapshot of the current state of the graph. The snapshot
+	 * is built on the first call following a modification, and reused as long as
+	 * the graph does not change. It is built from the previous snapshot when few
+	 * rows were modified since (see {@link GraphSnapshot}): this still copies
+	 * arrays linear in the size of the graph, but only the modified rows and
+	 * their weights are gathered again.
+	 * Snapshots are the read views of the graph: a reader iterating a snapshot
+	 * (export, statistics, view) sees a consistent version of the graph without
+	 * blocking the threads modifying it. The graph only keeps the last snapshot,
+	 * older ones are reclaimed once no reader holds them.
+	 *
+	 * @return The snapshot of the graph.
+	 */
+	public GraphSnapshot snapshot() {
+		GraphSnapshot current = snapshot;
+		if (current != null && current.getVersion() == version) {
+			return current;
+		}
+
+		lock.readLock().lock();
+		try {
+			synchronized (modifiedNodes) {
+				current = snapshot;
+				if (current == null || current.getVersion() != version) {
+					// Gathering most rows again is as fast as a full build, which doesn't compute unused columns
+					current = current == null || modifiedNodes.cardinality() > nodeIdentifiers.getBound() / 2
+							? new GraphSnapshot(version, shorteningVersion, nodeIdentifiers, adjacencyArrays,
+									edgeWeights)
+							: new GraphSnapshot(version, shorteningVersion, current, modifiedNodes, nodeIdentifiers,
+									adjacencyArrays, edgeWeights);
+					modifiedNodes.clear();
+					snapshot = current;
+				}
+				return current;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Marks the row of a node and the rows of its neighbors as modified, the write lock being held.
+	private void markIncidentRows(int id) {
+		modifiedNodes.set(id);
+		for (int index = 0; index < adjacencyArrays.getDegree(id); index++) {
+			modifiedNodes.set(adjacencyArrays.getNeighbor(id, index));
+		}
+	}
+
 	/**
 	 * Gets a node from the graph based on its IP address.
 	 *
@@ -98,12 +269,203 @@ public class InternetGraph implements Statisticable {
 	 *                   otherwise.
 	 */
 	public Optional<Node> getNode(String ipAddress) {
-		for (Node node : nodes) {
-			if (node.getStringIpAddress().equals(ipAddress)) {
-				return Optional.of(node);
+		lock.readLock().lock();
+		try {
+			return Optional.ofNullable(nodeIdentifiers.getNode(getNodeId(ipAddress)));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the identifier of a node based on its IP address. Identifiers are
+	 * dense, in {@code [0, getNodeIdBound())}, and are recycled when nodes are
+	 * removed.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           The identifier of the node, or {@code -1} if the node is
+	 *                   not in the graph.
+	 */
+	public int getNodeId(IPAddress ipAddress) {
+		return getNodeId(ipAddress.getStringIpAddress());
+	}
+
+	/**
+	 * Gets the identifier of a node based on its IP address.
+	 *
+	 * @param  ipAddress The IP address of the node.
+	 * @return           The identifier of the node, or {@code -1} if the node is
+	 *                   not in the graph.
+	 */
+	public int getNodeId(String ipAddress) {
+		long key = IPAddress.parseIpToLong(ipAddress);
+
+		lock.readLock().lock();
+		try {
+			return nodeIdentifiers.getIdentifier(key);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets a node based on its identifier.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The node, or {@code null} if no node has this identifier.
+	 */
+	public Node getNodeById(int id) {
+		lock.readLock().lock();
+		try {
+			return nodeIdentifiers.getNode(id);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the node identifiers. Arrays indexed
+	 * by node identifier must have at least this length.
+	 *
+	 * @return The bound of the node identifiers.
+	 */
+	public int getNodeIdBound() {
+		lock.readLock().lock();
+		try {
+			return nodeIdentifiers.getBound();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the degree (number of edges) of a node.
+	 *
+	 * @param  id The identifier of the node.
+	 * @return    The degree of the node.
+	 */
+	public int getDegree(int id) {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getDegree(id);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets a neighbor of a node.
+	 *
+	 * @param  id    The identifier of the node.
+	 * @param  index The index of the neighbor, in {@code [0, getDegree(id))}.
+	 * @return       The identifier of the neighbor.
+	 */
+	public int getNeighborId(int id, int index) {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getNeighbor(id, index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets an edge incident to a node. The edge at a given index links the node
+	 * to the neighbor at the same index (see {@link #getNeighborId(int, int)}).
+	 *
+	 * @param  id    The identifier of the node.
+	 * @param  index The index of the edge, in {@code [0, getDegree(id))}.
+	 * @return       The identifier of the edge.
+	 */
+	public int getIncidentEdgeId(int id, int index) {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getIncidentEdge(id, index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the edge between two nodes. The lookup is a single probe of an index
+	 * of the edges by pair of endpoints.
+	 *
+	 * @param  idA The identifier of the first node.
+	 * @param  idB The identifier of the second node.
+	 * @return     The identifier of the edge, or {@code -1} if there is none.
+	 */
+	public int getEdgeId(int idA, int idB) {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.findEdge(idA, idB);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the edge identifiers. Arrays indexed
+	 * by edge identifier must have at least this length.
+	 *
+	 * @return The bound of the edge identifiers.
+	 */
+	public int getEdgeIdBound() {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getEdgeBound();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets an edge based on its identifier.
+	 *
+	 * @param  edgeId The identifier of the edge.
+	 * @return        The edge.
+	 */
+	public Edge getEdgeById(int edgeId) {
+		lock.readLock().lock();
+		try {
+			if (!adjacencyArrays.containsEdge(edgeId)) {
+				throw new IllegalArgumentException("Error: Edge " + edgeId + " is not in the graph!");
 			}
+
+			return new Edge(nodeIdentifiers.getNode(adjacencyArrays.getNodeA(edgeId)),
+					nodeIdentifiers.getNode(adjacencyArrays.getNodeB(edgeId)), adjacencyArrays.isDirect(edgeId),
+					adjacencyArrays.getResponseTime(edgeId));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the weight of an edge based on the specified weight metric and
+	 * geolocation service.
+	 *
+	 * @param  edgeId             The identifier of the edge.
+	 * @param  weightMetric       The weight metric to use.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The weight of the edge.
+	 */
+	public double getEdgeWeight(int edgeId, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		lock.readLock().lock();
+		try {
+			switch (weightMetric) {
+				case CONSTANT:
+					return 1;
+				case RESPONSE_TIME:
+					return adjacencyArrays.getResponseTime(edgeId);
+				default:
+					if (edgeWeights.containsDistances(geolocationService)) {
+						return edgeWeights.getDistance(edgeId, geolocationService);
+					}
+					return weightMetric.getWeight(getEdgeById(edgeId), geolocationService);
+			}
+		} finally {
+			lock.readLock().unlock();
 		}
-		return Optional.empty();
 	}
 
 	/**
@@ -115,16 +477,21 @@ public class InternetGraph implements Statisticable {
 	 *                    otherwise.
 	 */
 	public Optional<Edge> getEdge(IPAddress ipAddressA, IPAddress ipAddressB) {
-		if (!adjacencyList.keySet().contains(ipAddressA.getStringIpAddress())
-				|| !adjacencyList.keySet().contains(ipAddressB.getStringIpAddress())) {
-			throw new IllegalArgumentException();
-		}
-		for (Edge edge : adjacencyList.get(ipAddressA.getStringIpAddress())) {
-			if (edge.isContainNode(ipAddressB)) {
-				return Optional.of(edge);
+		lock.readLock().lock();
+		try {
+			int idA = getNodeId(ipAddressA);
+			int idB = getNodeId(ipAddressB);
+
+			if (idA < 0 || idB < 0) {
+				throw new IllegalArgumentException();
 			}
+
+			int edgeId = adjacencyArrays.findEdge(idA, idB);
+
+			return edgeId < 0 ? Optional.empty() : Optional.of(getEdgeById(edgeId));
+		} finally {
+			lock.readLock().unlock();
 		}
-		return Optional.empty();
 	}
 
 	/**
@@ -133,11 +500,18 @@ public class InternetGraph implements Statisticable {
 	 * @return The set of edges.
 	 */
 	public Set<Edge> getEdges() {
-		Set<Edge> edges = new HashSet<>();
-		for (Map.Entry<String, Set<Edge>> entry : adjacencyList.entrySet()) {
-			edges.addAll(entry.getValue());
+		lock.readLock().lock();
+		try {
+			Set<Edge> edges = new HashSet<>();
+			for (int edgeId = 0; edgeId < adjacencyArrays.getEdgeBound(); edgeId++) {
+				if (adjacencyArrays.containsEdge(edgeId)) {
+					edges.add(getEdgeById(edgeId));
+				}
+			}
+			return edges;
+		} finally {
+			lock.readLock().unlock();
 		}
-		return edges;
 	}
 
 	/**
@@ -147,7 +521,7 @@ public class InternetGraph implements Statisticable {
 	 * @return      The set of edges connected to the node.
 	 */
 	public Set<Edge> getEdges(Node node) {
-		return adjacencyList.get(node.getStringIpAddress());
+		return getEdges(node.getStringIpAddress());
 	}
 
 	/**
@@ -158,7 +532,7 @@ public class InternetGraph implements Statisticable {
 	 * @return           The set of edges connected to the node.
 	 */
 	public Set<Edge> getEdges(IPAddress ipAddress) {
-		return adjacencyList.get(ipAddress.getStringIpAddress());
+		return getEdges(ipAddress.getStringIpAddress());
 	}
 
 	/**
@@ -169,10 +543,16 @@ public class InternetGraph implements Statisticable {
 	 * @return           The set of edges connected to the node.
 	 */
 	public Set<Edge> getEdges(String ipAddress) {
-		if (!adjacencyList.containsKey(ipAddress)) {
-			throw new IllegalArgumentException();
+		lock.readLock().lock();
+		try {
+			int id = getNodeId(ipAddress);
+			if (id < 0) {
+				throw new IllegalArgumentException();
+			}
+			return getIncidentEdges(id);
+		} finally {
+			lock.readLock().unlock();
 		}
-		return adjacencyList.get(ipAddress);
 	}
 
 	/**
@@ -202,63 +582,109 @@ public class InternetGraph implements Statisticable {
 	 * @return           The set of neighboring nodes.
 	 */
 	public Set<Node> getNeighbors(String ipAddress) {
-		Set<Node> neighbors = new HashSet<>();
-		Set<Edge> edges = getEdges(ipAddress);
-		for (Edge edge : edges) {
-			neighbors.add(edge.getAnotherNode(ipAddress));
+		lock.readLock().lock();
+		try {
+			int id = getNodeId(ipAddress);
+			if (id < 0) {
+				throw new IllegalArgumentException();
+			}
+			Set<Node> neighbors = new HashSet<>();
+			for (int index = 0; index < adjacencyArrays.getDegree(id); index++) {
+				neighbors.add(nodeIdentifiers.getNode(adjacencyArrays.getNeighbor(id, index)));
+			}
+			return neighbors;
+		} finally {
+			lock.readLock().unlock();
 		}
-		return neighbors;
 	}
 
 	/**
-	 * Gets the adjacency list representing edges between nodes.
+	 * Gets the adjacency list representing edges between nodes. The map is built
+	 * from the adjacency arrays on each call: algorithms should rather iterate
+	 * the graph through node identifiers (see {@link #getNeighborId(int, int)}).
 	 *
 	 * @return The adjacency list.
 	 */
 	public Map<String, Set<Edge>> getAdjacencyList() {
-		return adjacencyList;
+		lock.readLock().lock();
+		try {
+			Map<String, Set<Edge>> adjacencyList = new HashMap<>();
+			for (int id = 0; id < nodeIdentifiers.getBound(); id++) {
+				Node node = nodeIdentifiers.getNode(id);
+				if (node != null) {
+					adjacencyList.put(node.getStringIpAddress(), getIncidentEdges(id));
+				}
+			}
+			return adjacencyList;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies several modifications to the graph at once. The modifications are
+	 * done while holding the lock of the graph, and the state derived from the
+	 * graph (cache of minimum distances) is only updated once all of them have
+	 * been applied, so that adding {@code n} edges costs {@code O(n)} instead of
+	 * resetting the cache {@code n} times.
+	 *
+	 * @param modifications The modifications to apply, using the given batch.
+	 */
+	public void batch(Consumer<Batch> modifications) {
+		lock.writeLock().lock();
+		try {
+			Batch batch = new Batch();
+			try {
+				modifications.accept(batch);
+			} finally {
+				batch.close();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	/**
-	 * Adds a node to the graph.
+	 * Adds a node to the graph. Adding a node which is already in the graph has
+	 * no effect.
 	 *
 	 * @param node The node to add.
 	 */
 	public void addNode(Node node) {
-		nodes.add(node);
-		cache.addNode(node.getStringIpAddress());
-		adjacencyList.put(node.getStringIpAddress(), new HashSet<>());
+		batch(batch -> batch.addNode(node));
 	}
 
 	/**
-	 * Removes a node from the graph.
+	 * Removes a node from the graph. Only the edges of the removed node and the
+	 * rows of its neighbors are touched.
 	 *
 	 * @param ipAddress The IP address of the node to remove.
 	 */
 	public void removeNode(IPAddress ipAddress) {
-		nodes.removeIf(node -> node.getIpAddress().equals(ipAddress));
-		adjacencyList.remove(ipAddress.getStringIpAddress());
-		cache.removeNode(ipAddress.getStringIpAddress());
-		for (Set<Edge> edges : adjacencyList.values()) {
-			edges.removeIf(edge -> edge.isContainNode(ipAddress));
-		}
+		batch(batch -> batch.removeNode(ipAddress));
 	}
 
 	/**
-	 * Adds an edge to the graph.
+	 * Removes all the nodes matching a predicate from the graph, in a single pass
+	 * over the nodes.
+	 *
+	 * @param  filter The predicate selecting the nodes to remove.
+	 * @return        The number of removed nodes.
+	 */
+	public int removeNodes(Predicate<Node> filter) {
+		int[] numberRemovedNodes = new int[1];
+		batch(batch -> numberRemovedNodes[0] = batch.removeNodes(filter));
+		return numberRemovedNodes[0];
+	}
+
+	/**
+	 * Adds an edge to the graph. Adding an edge which is already in the graph
+	 * has no effect.
 	 *
 	 * @param edge The edge to add.
 	 */
 	public void addEdge(Edge edge) {
-		if (!adjacencyList.containsKey(edge.getNodeA().getStringIpAddress())
-				|| !adjacencyList.containsKey(edge.getNodeB().getStringIpAddress())
-				|| !nodes.contains(edge.getNodeA()) || !nodes.contains(edge.getNodeB())) {
-			throw new IllegalArgumentException();
-		}
-
-		adjacencyList.get(edge.getNodeA().getStringIpAddress()).add(edge);
-		adjacencyList.get(edge.getNodeB().getStringIpAddress()).add(edge);
-		cache.resetCache();
+		batch(batch -> batch.addEdge(edge));
 	}
 
 	/**
@@ -268,15 +694,7 @@ public class InternetGraph implements Statisticable {
 	 * @param ipAddressB The IP address of the second node.
 	 */
 	public void removeEdge(IPAddress ipAddressA, IPAddress ipAddressB) {
-		if (!adjacencyList.containsKey(ipAddressA.getStringIpAddress())
-				|| !adjacencyList.containsKey(ipAddressB.getStringIpAddress())) {
-			throw new IllegalArgumentException();
-		}
-
-		adjacencyList.get(ipAddressA.getStringIpAddress()).removeIf(edge -> edge.isContainNode(ipAddressB));
-		adjacencyList.get(ipAddressB.getStringIpAddress()).removeIf(edge -> edge.isContainNode(ipAddressA));
-
-		cache.resetCache();
+		batch(batch -> batch.removeEdge(ipAddressA, ipAddressB));
 	}
 
 	/**
@@ -285,17 +703,27 @@ public class InternetGraph implements Statisticable {
 	 * @return The iterator for the adjacency list.
 	 */
 	public Iterator<Map.Entry<String, Set<Edge>>> getAdjacencyListIterator() {
-		return adjacencyList.entrySet().iterator();
+		return getAdjacencyList().entrySet().iterator();
+	}
+
+	// Helper method to materialize the edges incident to a node.
+	private Set<Edge> getIncidentEdges(int id) {
+		Set<Edge> edges = new HashSet<>();
+		for (int index = 0; index < adjacencyArrays.getDegree(id); index++) {
+			edges.add(getEdgeById(adjacencyArrays.getIncidentEdge(id, index)));
+		}
+		return edges;
 	}
 
 	/**
 	 * Finds the minimum distance path between two nodes in the graph.
 	 * If the source equals the destination => return a path of cost 0 immediately.
 	 * If the cherched min path is already in the cache, so return it immediately.
-	 * Else, calculate it using the two algorithmes BFS and Dijkstra. If the metric
-	 * is CONSTANT
-	 * or TIME_RESPONSE, so use BFS. Else Dijkstra.
-	 * Stock all the gotten results in the cache for using after.
+	 * Else, calculate it using a point-to-point search: a bidirectional BFS if the
+	 * metric is CONSTANT, A* guided by the coordinates of the nodes if it is
+	 * DISTANCE, else a bidirectional Dijkstra.
+	 * Stock the path and its sub paths (which are minimum paths too) in the cache
+	 * for using after.
 	 *
 	 * @param  source             The source node's IP address.
 	 * @param  destination        The destination node's IP address.
@@ -315,48 +743,425 @@ public class InternetGraph implements Statisticable {
 		if (minPathCache.isPresent()) {
 			return minPathCache.get();
 		}
-		Optional<Node> nodeSource = getNode(source);
-		Optional<Node> nodeDestination = getNode(destination);
-		if (nodeSource.isEmpty() || nodeDestination.isEmpty()) {
-			throw new IllegalArgumentException();
+		return computeMinimumDistance(snapshot(), source, destination, weightMetric, geolocationService);
+	}
+
+	/**
+	 * Finds the minimum distance path between two nodes in a read view of the
+	 * graph (see {@link #snapshot()}). The cache is only used while the read view
+	 * is the current version of the graph.
+	 *
+	 * @param  graph              The read view of the graph.
+	 * @param  source             The source node's IP address.
+	 * @param  destination        The destination node's IP address.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The minimum distance path between the source and
+	 *                            destination nodes.
+	 */
+	public Path<String> minimumDistance(GraphSnapshot graph, IPAddress source, IPAddress destination,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		if (source.equals(destination)) {
+			return new Path<>(Collections.singletonList(source.getStringIpAddress()), 0);
+		}
+		lock.readLock().lock();
+		try {
+			if (graph.getVersion() == version) {
+				Optional<Path<String>> minPathCache = cache.getMinPath(weightMetric,
+						geolocationService.getCanonicalName(), source.getStringIpAddress(),
+						destination.getStringIpAddress());
+				if (minPathCache.isPresent()) {
+					return minPathCache.get();
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return computeMinimumDistance(graph, source, destination, weightMetric, geolocationService);
+	}
+
+	/**
+	 * Finds the k shortest loopless paths between two nodes in the graph, e.g.
+	 * the backup routes between two routers (see {@link KShortestPaths}).
+	 *
+	 * @param  source                   The source node's IP address.
+	 * @param  destination              The destination node's IP address.
+	 * @param  k                        The maximum number of paths.
+	 * @param  weightMetric             The weight metric for calculating
+	 *                                  distances.
+	 * @param  geolocationService       The geolocation service class.
+	 * @return                          The paths by increasing cost, the first
+	 *                                  one being a minimum distance path, or an
+	 *                                  empty list if the destination is
+	 *                                  unreachable.
+	 * @throws IllegalArgumentException If a node is not in the graph.
+	 */
+	public List<Path<String>> minimumDistances(IPAddress source, IPAddress destination, int k,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		GraphSnapshot graph = snapshot();
+		int sourceId = graph.getNodeId(source);
+		int destinationId = graph.getNodeId(destination);
+		if (sourceId < 0 || destinationId < 0) {
+			throw new IllegalArgumentException("Error: Node " + (sourceId < 0 ? source : destination)
+					.getStringIpAddress() + " is not in the graph!");
+		}
+
+		List<Path<String>> paths = new ArrayList<>();
+		for (IdentifierPath path : KShortestPaths.getMinPaths(sourceId, destinationId, k, graph, weightMetric,
+				geolocationService)) {
+			paths.add(path.toPath(graph));
+		}
+		return paths;
+	}
+
+	/**
+	 * Finds the paths between two nodes in the graph which are the best
+	 * trade-offs between response time and distance: each of them is shorter or
+	 * faster than all the others (see {@link ParetoSearch}).
+	 *
+	 * @param  source                   The source node's IP address.
+	 * @param  destination              The destination node's IP address.
+	 * @param  geolocationService       The geolocation service class giving the
+	 *                                  distances.
+	 * @param  maxLabels                The maximum number of partial paths kept
+	 *                                  per node ({@code Integer.MAX_VALUE} for
+	 *                                  all the trade-offs).
+	 * @return                          The paths by increasing response time, or
+	 *                                  an empty list if the destination is
+	 *                                  unreachable.
+	 * @throws IllegalArgumentException If a node is not in the graph.
+	 */
+	public List<ParetoPath> paretoDistances(IPAddress source, IPAddress destination,
+			Class<? extends GeolocationService> geolocationService, int maxLabels) {
+		GraphSnapshot graph = snapshot();
+		return ParetoSearch.getParetoPaths(getNodeId(graph, source), getNodeId(graph, destination), graph,
+				geolocationService, maxLabels);
+	}
+
+	/**
+	 * Finds the path between two nodes in the graph minimizing a weighted sum of
+	 * the response time and the distance, as a quick single trade-off between
+	 * the two weight metrics.
+	 *
+	 * @param  source                   The source node's IP address.
+	 * @param  destination              The destination node's IP address.
+	 * @param  geolocationService       The geolocation service class giving the
+	 *                                  distances.
+	 * @param  responseTimeFactor       The factor of the response time.
+	 * @param  distanceFactor           The factor of the distance.
+	 * @return                          The path, whose cost is the weighted sum.
+	 * @throws IllegalArgumentException If a node is not in the graph, or a
+	 *                                  factor is negative.
+	 */
+	public Path<String> minimumWeightedDistance(IPAddress source, IPAddress destination,
+			Class<? extends GeolocationService> geolocationService, double responseTimeFactor,
+			double distanceFactor) {
+		GraphSnapshot graph = snapshot();
+		return ParetoSearch.getWeightedMinPath(getNodeId(graph, source), getNodeId(graph, destination), graph,
+				geolocationService, responseTimeFactor, distanceFactor).toPath(graph);
+	}
+
+	// Helper method to get the identifier of a node of a read view, which must be in it.
+	private static int getNodeId(GraphSnapshot graph, IPAddress ipAddress) {
+		int id = graph.getNodeId(ipAddress);
+		if (id < 0) {
+			throw new IllegalArgumentException(
+					"Error: Node " + ipAddress.getStringIpAddress() + " is not in the graph!");
+		}
+		return id;
+	}
+
+	/**
+	 * Starts tracking the minimum distances from a node for a weight metric. The
+	 * distances are then maintained as the graph is modified: adding edges and
+	 * nodes only propagates the decreases of distances they cause, so that they
+	 * can be read in constant time while the graph grows (see
+	 * {@link #getTrackedDistance}).
+	 *
+	 * @param root               The IP address of the node to track the
+	 *                           distances from.
+	 * @param weightMetric       The weight metric for calculating distances.
+	 * @param geolocationService The geolocation service class.
+	 */
+	public void trackDistancesFrom(IPAddress root, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		lock.writeLock().lock();
+		try {
+			if (getShortestPathTree(root, weightMetric, geolocationService).isEmpty()) {
+				shortestPathTrees.add(new ShortestPathTree(root.getStringIpAddress(), weightMetric,
+						geolocationService, nodeIdentifiers, adjacencyArrays, edgeWeights));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the minimum distance between a node whose distances are tracked and
+	 * another node, in constant time.
+	 *
+	 * @param  root               The IP address of the node the distances are
+	 *                            tracked from.
+	 * @param  destination        The IP address of the other node.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    An optional containing the distance
+	 *                            ({@code Double.MAX_VALUE} if unreachable), or
+	 *                            empty if the distances are not tracked or the
+	 *                            destination is not in the graph.
+	 */
+	public Optional<Double> getTrackedDistance(IPAddress root, IPAddress destination, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		lock.readLock().lock();
+		try {
+			Optional<ShortestPathTree> shortestPathTree = getShortestPathTree(root, weightMetric, geolocationService);
+			int id = getNodeId(destination);
+			if (shortestPathTree.isEmpty() || id < 0) {
+				return Optional.empty();
+			}
+			return Optional.of(shortestPathTree.get().getDistance(id));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Helper method to get the tree tracking the distances from a node, the lock being held.
+	private Optional<ShortestPathTree> getShortestPathTree(IPAddress root, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		for (ShortestPathTree shortestPathTree : shortestPathTrees) {
+			if (shortestPathTree.matches(root.getStringIpAddress(), weightMetric, geolocationService)) {
+				return Optional.of(shortestPathTree);
+			}
+		}
+		return Optional.empty();
+	}
+
+	// Helper method to rebuild the trees depending on the geolocation data, the write lock being held.
+	private void rebuildShortestPathTreesOfDistance() {
+		for (ShortestPathTree shortestPathTree : shortestPathTrees) {
+			if (shortestPathTree.dependsOnGeolocationData()) {
+				shortestPathTree.rebuild();
+			}
+		}
+	}
+
+	/**
+	 * Computes the minimum distances from a node to all the nodes of a read view
+	 * of the graph, with a single traversal. This is much cheaper than a
+	 * {@link #minimumDistance} query per node when all the distances are needed.
+	 *
+	 * @param  graph                    The read view of the graph.
+	 * @param  source                   The source node's IP address.
+	 * @param  weightMetric             The weight metric for calculating
+	 *                                  distances.
+	 * @param  geolocationService       The geolocation service class.
+	 * @return                          The distances from the source, indexed by
+	 *                                  node identifier in the read view
+	 *                                  ({@code Double.MAX_VALUE} if unreachable).
+	 * @throws IllegalArgumentException If the source node is not in the read
+	 *                                  view.
+	 */
+	public double[] getDistancesFrom(GraphSnapshot graph, IPAddress source, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		int sourceId = graph.getNodeId(source);
+		if (sourceId < 0) {
+			throw new IllegalArgumentException("Error: Node " + source.getStringIpAddress() + " is not in the graph!");
 		}
 		if (weightMetric == WeightMetric.CONSTANT) {
-			Path<String> pathBFS = BreadthFirstSearch.getMinPath(source.getStringIpAddress(), destination.getStringIpAddress(), this);
-			cache.updateCache(weightMetric, geolocationService.getCanonicalName(), pathBFS);
-			return pathBFS;
+			return BreadthFirstSearch.getDistances(sourceId, graph);
 		}
-		Dijkstra.DijkstraResult result = Dijkstra.getMinPath(source.getStringIpAddress(), this, weightMetric,
-				geolocationService);
+		DeltaStepping deltaStepping = this.deltaStepping;
+		if (deltaStepping != null && deltaStepping.isSuitedFor(graph)) {
+			return deltaStepping.getDistances(sourceId, graph, weightMetric, geolocationService);
+		}
+		return Dijkstra.getDistances(sourceId, graph, weightMetric, geolocationService);
+	}
 
-		Map<String, String> predecessors = result.getPredecessors();
-		Map<String, Double> distances = result.getDistances();
-
-		Path<String> minPath = null;
-		for (String node : distances.keySet()) {
-			List<String> listPath = new LinkedList<>();
-			String crawl = node;
-			listPath.add(crawl);
-
-			if (predecessors.get(crawl).isEmpty()) {
-				listPath.add(source.getStringIpAddress());
-			} else {
-				while (!predecessors.get(crawl).isEmpty()) {
-					listPath.add(predecessors.get(crawl));
-					crawl = predecessors.get(crawl);
-				}
+	/**
+	 * Gets the nodes nearest to a node in a read view of the graph. The search
+	 * stops once they are found, so this is much cheaper than computing the
+	 * distances to all the nodes when only the first ones are needed.
+	 *
+	 * @param  graph                    The read view of the graph.
+	 * @param  source                   The source node's IP address.
+	 * @param  k                        The number of nodes.
+	 * @param  weightMetric             The weight metric for calculating
+	 *                                  distances.
+	 * @param  geolocationService       The geolocation service class.
+	 * @return                          The pairs of distance and IP address of
+	 *                                  the (at most) k nearest reachable nodes,
+	 *                                  the source excluded, by increasing
+	 *                                  distance. Nodes at the same distance are
+	 *                                  separate pairs.
+	 * @throws IllegalArgumentException If the source node is not in the read
+	 *                                  view.
+	 */
+	public List<Map.Entry<Double, String>> getNearestNodes(GraphSnapshot graph, IPAddress source, int k,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		int sourceId = graph.getNodeId(source);
+		if (sourceId < 0) {
+			throw new IllegalArgumentException("Error: Node " + source.getStringIpAddress() + " is not in the graph!");
+		}
+		List<Map.Entry<Double, String>> nearestNodes = new ArrayList<>();
+		for (Map.Entry<Double, Integer> nearest : NearestNodes.getNearest(sourceId, k, graph, weightMetric,
+				geolocationService)) {
+			nearestNodes.add(Map.entry(nearest.getKey(), graph.getNode(nearest.getValue()).getStringIpAddress()));
+		}
+		return nearestNodes;
+	}
+
+	/**
+	 * Computes the minimum distances from several nodes to all the nodes of a
+	 * read view of the graph, for analyses needing many distances (centrality,
+	 * distance matrices). The traversals from the sources are independent, so
+	 * they run in parallel in a {@link java.util.concurrent.ForkJoinPool}, each
+	 * worker reusing its own buffers (see {@link DistanceSearch}). The distances
+	 * are streamed to a consumer instead of being cached as paths.
+	 *
+	 * @param  graph                    The read view of the graph.
+	 * @param  sources                  The IP addresses of the source nodes.
+	 * @param  weightMetric             The weight metric for calculating
+	 *                                  distances.
+	 * @param  geolocationService       The geolocation service class.
+	 * @param  consumer                 The consumer of the distances of each
+	 *                                  source, indexed by node identifier in the
+	 *                                  read view ({@code Double.MAX_VALUE} if
+	 *                                  unreachable). It is called concurrently
+	 *                                  by the workers, and the array is only
+	 *                                  valid during the call.
+	 * @throws IllegalArgumentException If a source node is not in the read view.
+	 */
+	public void distancesFrom(GraphSnapshot graph, Collection<IPAddress> sources, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService, BiConsumer<IPAddress, double[]> consumer) {
+		int[] sourceIds = new int[sources.size()];
+		int index = 0;
+		for (IPAddress source : sources) {
+			sourceIds[index] = graph.getNodeId(source);
+			if (sourceIds[index++] < 0) {
+				throw new IllegalArgumentException(
+						"Error: Node " + source.getStringIpAddress() + " is not in the graph!");
 			}
-			Collections.reverse(listPath);
-			Path<String> path = new Path<>(listPath, distances.get(node));
-			cache.updateCache(weightMetric, geolocationService.getCanonicalName(), path);
-			if (node.equals(destination.getStringIpAddress())) {
-				minPath = path;
+		}
+
+		DistanceSearch.forEachSource(graph, sourceIds, weightMetric, geolocationService,
+				(distances, sourceId) -> consumer.accept(graph.getNode(sourceId).getIpAddress(), distances));
+	}
+
+	// Helper method to compute a minimum distance path on a snapshot with a
+	// point-to-point search, and cache its sub paths.
+	private Path<String> computeMinimumDistance(GraphSnapshot graph, IPAddress source, IPAddress destination,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		int sourceId = graph.getNodeId(source);
+		int destinationId = graph.getNodeId(destination);
+		if (sourceId < 0 || destinationId < 0) {
+			throw new IllegalArgumentException();
+		}
+		Optional<ContractionHierarchy> contractionHierarchy = getContractionHierarchy(graph, weightMetric,
+				geolocationService);
+		LandmarkIndex landmarkIndex = this.landmarkIndex;
+		Optional<Landmarks> landmarks = landmarkIndex == null || weightMetric == WeightMetric.CONSTANT
+				|| contractionHierarchy.isPresent()
+				? Optional.empty()
+				: landmarkIndex.getLandmarks(graph, weightMetric, geolocationService);
+		DeltaStepping deltaStepping = this.deltaStepping;
+		IdentifierPath minPath;
+		if (contractionHierarchy.isPresent()) {
+			minPath = contractionHierarchy.get().getMinPath(sourceId, destinationId, graph);
+		} else if (landmarks.isPresent()) {
+			minPath = ALT.getMinPath(sourceId, destinationId, graph, landmarks.get(), weightMetric,
+					geolocationService);
+		} else if (weightMetric != WeightMetric.CONSTANT && deltaStepping != null && deltaStepping.isSuitedFor(graph)) {
+			minPath = deltaStepping.getMinPath(sourceId, destinationId, graph, weightMetric, geolocationService);
+		} else {
+			switch (weightMetric) {
+				case CONSTANT:
+					minPath = BreadthFirstSearch.getMinPath(sourceId, destinationId, graph);
+					break;
+				case DISTANCE:
+					minPath = AStar.getMinPath(sourceId, destinationId, graph, geolocationService);
+					break;
+				default:
+					minPath = Dijkstra.getMinPath(sourceId, destinationId, graph, weightMetric, geolocationService);
+					break;
 			}
 		}
-		if (minPath == null) {
-			throw new IllegalStateException();
+
+		updateCache(graph, weightMetric, geolocationService, minPath.getSubPaths(graph));
+
+		return minPath.toPath(graph);
+	}
+
+	/**
+	 * Sets the landmarks used to search minimum paths with the ALT algorithm
+	 * (see {@link ALT}). While no landmarks valid for the graph's version are
+	 * built, and for the {@link WeightMetric#CONSTANT} weight metric (for which a
+	 * breadth-first search is already optimal), the other algorithms are used.
+	 *
+	 * @param landmarkIndex The landmarks, or {@code null} to disable them.
+	 */
+	public void setLandmarkIndex(LandmarkIndex landmarkIndex) {
+		this.landmarkIndex = landmarkIndex;
+	}
+
+	/**
+	 * Sets the delta-stepping engine used instead of Dijkstra's algorithm and
+	 * A* on the graphs it is suited for (see {@link DeltaStepping#isSuitedFor}),
+	 * when no contraction hierarchy nor landmarks can be used. The
+	 * {@link WeightMetric#CONSTANT} weight metric keeps the breadth-first search.
+	 *
+	 * @param deltaStepping The delta-stepping engine, or {@code null} to disable
+	 *                      it.
+	 */
+	public void setDeltaStepping(DeltaStepping deltaStepping) {
+		this.deltaStepping = deltaStepping;
+	}
+
+	/**
+	 * Sets the contraction hierarchy used to search minimum paths for its weight
+	 * metric, replacing the previous one. A hierarchy is only used while the
+	 * graph is in the version it was built from (see
+	 * {@link ContractionHierarchy#isBuiltFor}), so it suits graphs which are
+	 * mostly read, such as imported ones.
+	 *
+	 * @param contractionHierarchy The contraction hierarchy.
+	 */
+	public void setContractionHierarchy(ContractionHierarchy contractionHierarchy) {
+		lock.writeLock().lock();
+		try {
+			contractionHierarchies.removeIf(previous -> previous.getVersion() != version || previous
+					.isBuiltFor(contractionHierarchy.getWeightMetric(), contractionHierarchy.getGeolocationService()));
+			contractionHierarchies.add(contractionHierarchy);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Helper method to get the contraction hierarchy answering the queries of a weight metric on a snapshot.
+	private Optional<ContractionHierarchy> getContractionHierarchy(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		for (ContractionHierarchy contractionHierarchy : contractionHierarchies) {
+			if (contractionHierarchy.isBuiltFor(graph, weightMetric, geolocationService)) {
+				return Optional.of(contractionHierarchy);
+			}
 		}
+		return Optional.empty();
+	}
 
-		return minPath;
+	// Helper method to cache paths computed on a snapshot, unless the graph has
+	// been modified since (the cache was then reset, and the paths are stale).
+	private void updateCache(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService, List<Path<String>> paths) {
+		lock.readLock().lock();
+		try {
+			if (graph.getVersion() != version) {
+				return;
+			}
+			for (Path<String> path : paths) {
+				cache.updateCache(weightMetric, geolocationService.getCanonicalName(), path);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -375,54 +1180,387 @@ public class InternetGraph implements Statisticable {
 	 * @param geolocationService The geolocation service to use for updating data.
 	 */
 	public void updateNodesGeolocationDatas(GeolocationService geolocationService) {
-		for (Node node : nodes) {
-			if (!node.isNodeContainsAlreadyGeolocationData(geolocationService.getClass())) {
-				node.updateGeolocationData(new GeolocationData.TypedGeolocationData(geolocationService.getClass(),
+		GraphSnapshot graph = snapshot();
+		Map<Node, GeolocationData.TypedGeolocationData> geolocationDatas = new HashMap<>();
+
+		// Lookups are done without holding the lock, as they can be slow
+		for (int id = 0; id < graph.getNodeIdBound(); id++) {
+			Node node = graph.getNode(id);
+			if (node != null && !node.isNodeContainsAlreadyGeolocationData(geolocationService.getClass())) {
+				geolocationDatas.put(node, new GeolocationData.TypedGeolocationData(geolocationService.getClass(),
 						geolocationService.getGeolocationData(node.getIpAddress())));
 			}
 		}
 
-		for (Set<Edge> edges : adjacencyList.values()) {
-			for (Edge edge : edges) {
-				Node nodeA = edge.getNodeA();
-				Node nodeB = edge.getNodeB();
-				if (!nodeA.isNodeContainsAlreadyGeolocationData(geolocationService.getClass())) {
-					Optional<GeolocationData> newGeolocationDataNodeA = geolocationService
-							.getGeolocationData(nodeA.getIpAddress());
-					edge.updateGeolocationDataNodeA(new GeolocationData.TypedGeolocationData(
-							geolocationService.getClass(), newGeolocationDataNodeA));
-				}
-				if (!nodeB.isNodeContainsAlreadyGeolocationData(geolocationService.getClass())) {
-					Optional<GeolocationData> newGeolocationDataNodeB = geolocationService
-							.getGeolocationData(nodeB.getIpAddress());
-					edge.updateGeolocationDataNodeA(new GeolocationData.TypedGeolocationData(
-							geolocationService.getClass(), newGeolocationDataNodeB));
+		lock.writeLock().lock();
+		try {
+			for (Map.Entry<Node, GeolocationData.TypedGeolocationData> entry : geolocationDatas.entrySet()) {
+				entry.getKey().updateGeolocationData(entry.getValue());
+				updateIncidentEdgesWeights(getNodeId(entry.getKey().getStringIpAddress()));
+			}
+			if (!geolocationDatas.isEmpty()) {
+				shorteningVersion = ++version;
+				rebuildShortestPathTreesOfDistance();
+			}
+
+			cache.resetCacheMetricDistance();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Recomputes the distance weights of all the edges from the geolocation data
+	 * of their endpoints. The weights are already maintained when edges are added
+	 * and when geolocation data are retrieved by
+	 * {@link #updateNodesGeolocationDatas(GeolocationService)}: this is only
+	 * needed after geolocation data were modified directly on the nodes.
+	 */
+	public void updateEdgesWeights() {
+		lock.writeLock().lock();
+		try {
+			boolean changed = false;
+			for (int edgeId = 0; edgeId < adjacencyArrays.getEdgeBound(); edgeId++) {
+				if (adjacencyArrays.containsEdge(edgeId) && edgeWeights.update(edgeId,
+						nodeIdentifiers.getNode(adjacencyArrays.getNodeA(edgeId)),
+						nodeIdentifiers.getNode(adjacencyArrays.getNodeB(edgeId)))) {
+					modifiedNodes.set(adjacencyArrays.getNodeA(edgeId));
+					modifiedNodes.set(adjacencyArrays.getNodeB(edgeId));
+					changed = true;
 				}
 			}
+			if (changed) {
+				shorteningVersion = ++version;
+				rebuildShortestPathTreesOfDistance();
+				cache.resetCacheMetricDistance();
+			}
+		} finally {
+			lock.writeLock().unlock();
 		}
+	}
 
-		cache.resetCacheMetricDistance();
+	// Recomputes the distance weights of the edges incident to a node, the write lock being held.
+	private void updateIncidentEdgesWeights(int id) {
+		if (id < 0) {
+			return;
+		}
+		markIncidentRows(id);
+		for (int index = 0; index < adjacencyArrays.getDegree(id); index++) {
+			int edgeId = adjacencyArrays.getIncidentEdge(id, index);
+			edgeWeights.update(edgeId, nodeIdentifiers.getNode(adjacencyArrays.getNodeA(edgeId)),
+					nodeIdentifiers.getNode(adjacencyArrays.getNodeB(edgeId)));
+		}
 	}
 
-	public void updateEdgesWeights() {
-		// TODO What should I do ?
+	/**
+	 * Gets the number of nodes in the graph, in constant time.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int getNumberNodes() {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getDegreeHistogram().getNumberNodes();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
+	/**
+	 * Gets the number of edges in the graph, in constant time (unlike
+	 * {@code getEdges().size()}).
+	 *
+	 * @return The number of edges.
+	 */
+	public int getNumberEdges() {
+		lock.readLock().lock();
+		try {
+			return adjacencyArrays.getNumberEdges();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the statistics of the graph. The counters are maintained by the
+	 * modifications of the graph, so this runs in constant time.
+	 *
+	 * @return The statistics.
+	 */
 	public Statistics getStatistics() {
 		Statistics statistics = new Statistics();
 
-		statistics.addStatistic(getNumberNodesStatistic());
-		statistics.addStatistic(getNumberEdgesStatistic());
+		lock.readLock().lock();
+		try {
+			DegreeHistogram degreeHistogram = adjacencyArrays.getDegreeHistogram();
+
+			statistics.addStatistic(getNumberNodesStatistic(degreeHistogram));
+			statistics.addStatistic(getNumberEdgesStatistic());
+			statistics.addStatistic(getMinimumDegreeStatistic(degreeHistogram));
+			statistics.addStatistic(getMaximumDegreeStatistic(degreeHistogram));
+			statistics.addStatistic(getMeanDegreeStatistic(degreeHistogram));
+		} finally {
+			lock.readLock().unlock();
+		}
 
 		return statistics;
 	}
 
-	private Statistic<Integer> getNumberNodesStatistic() {
-		return new NumericStatistic<>("Number of nodes", nodes.size(), "");
+	private Statistic<Integer> getNumberNodesStatistic(DegreeHistogram degreeHistogram) {
+		return new NumericStatistic<>("Number of nodes", degreeHistogram.getNumberNodes(), "");
 	}
 
 	private Statistic<Integer> getNumberEdgesStatistic() {
-		return new NumericStatistic<>("Number of edges", getEdges().size(), "");
+		return new NumericStatistic<>("Number of edges", adjacencyArrays.getNumberEdges(), "");
+	}
+
+	private Statistic<Integer> getMinimumDegreeStatistic(DegreeHistogram degreeHistogram) {
+		return new NumericStatistic<>("Minimum degree", degreeHistogram.getMinDegree(), "");
+	}
+
+	private Statistic<Integer> getMaximumDegreeStatistic(DegreeHistogram degreeHistogram) {
+		return new NumericStatistic<>("Maximum degree", degreeHistogram.getMaxDegree(), "");
+	}
+
+	private Statistic<Double> getMeanDegreeStatistic(DegreeHistogram degreeHistogram) {
+		return new NumericStatistic<>("Mean degree", Math.round(degreeHistogram.getMeanDegree() * 100) / 100.0, "");
+	}
+
+	/**
+	 * A batch of modifications of the graph (see {@link #batch(Consumer)}). A
+	 * batch can only be used inside the call to {@code batch} it was given to.
+	 */
+	public class Batch {
+
+		private boolean closed;
+		private boolean edgesModified;
+		private boolean shortestPathTreesInvalidated;
+		private final Set<String> removedNodes;
+		private final int maxPropagatedEdges;
+		private int addedEdges;
+
+		private Batch() {
+			removedNodes = new HashSet<>();
+			maxPropagatedEdges = Math.max(MIN_PROPAGATED_EDGES, adjacencyArrays.getNumberEdges() / 16);
+		}
+
+		/**
+		 * Gets a node from the graph based on its IP address, taking into account
+		 * the modifications already done in the batch.
+		 *
+		 * @param  ipAddress The IP address of the node to retrieve.
+		 * @return           An optional containing the node if found, or empty
+		 *                   otherwise.
+		 */
+		public Optional<Node> getNode(String ipAddress) {
+			checkOpen();
+			return InternetGraph.this.getNode(ipAddress);
+		}
+
+		/**
+		 * Adds a node to the graph. Adding a node which is already in the graph has
+		 * no effect.
+		 *
+		 * @param node The node to add.
+		 */
+		public void addNode(Node node) {
+			checkOpen();
+			if (getNodeId(node.getStringIpAddress()) >= 0) {
+				return;
+			}
+			int id = nodeIdentifiers.intern(node);
+			adjacencyArrays.addNode(id);
+			modifiedNodes.set(id);
+			shorteningVersion = ++version;
+			if (!shortestPathTreesInvalidated) {
+				shortestPathTrees.forEach(shortestPathTree -> shortestPathTree.addNode(id));
+			}
+			removedNodes.remove(node.getStringIpAddress());
+			cache.addNode(node.getStringIpAddress());
+		}
+
+		/**
+		 * Removes a node from the graph.
+		 *
+		 * @param ipAddress The IP address of the node to remove.
+		 */
+		public void removeNode(IPAddress ipAddress) {
+			checkOpen();
+			int id = getNodeId(ipAddress);
+			if (id >= 0) {
+				removeNode(id);
+			}
+		}
+
+		/**
+		 * Removes all the nodes matching a predicate from the graph.
+		 *
+		 * @param  filter The predicate selecting the nodes to remove.
+		 * @return        The number of removed nodes.
+		 */
+		public int removeNodes(Predicate<Node> filter) {
+			checkOpen();
+			int numberRemovedNodes = 0;
+			for (int id = 0; id < nodeIdentifiers.getBound(); id++) {
+				Node node = nodeIdentifiers.getNode(id);
+				if (node != null && filter.test(node)) {
+					removeNode(id);
+					numberRemovedNodes++;
+				}
+			}
+			return numberRemovedNodes;
+		}
+
+		private void removeNode(int id) {
+			removedNodes.add(nodeIdentifiers.getNode(id).getStringIpAddress());
+			markIncidentRows(id);
+			adjacencyArrays.removeNode(id);
+			nodeIdentifiers.release(id);
+			version++;
+			shortestPathTreesInvalidated = true;
+		}
+
+		/**
+		 * Adds an edge to the graph. Adding an edge which is already in the graph
+		 * has no effect.
+		 *
+		 * @param edge The edge to add.
+		 */
+		public void addEdge(Edge edge) {
+			checkOpen();
+			int idA = getNodeId(edge.getStringIpAddressNodeA());
+			int idB = getNodeId(edge.getStringIpAddressNodeB());
+
+			if (idA < 0 || idB < 0) {
+				throw new IllegalArgumentException();
+			}
+
+			if (adjacencyArrays.findEdge(idA, idB) < 0) {
+				int edgeId = adjacencyArrays.addEdge(idA, idB, edge.isDirect(), edge.getResponseTime());
+				edgeWeights.update(edgeId, nodeIdentifiers.getNode(idA), nodeIdentifiers.getNode(idB));
+				modifiedNodes.set(idA);
+				modifiedNodes.set(idB);
+				shorteningVersion = ++version;
+				edgesModified = true;
+				if (++addedEdges > maxPropagatedEdges) {
+					shortestPathTreesInvalidated = true;
+				}
+				if (!shortestPathTreesInvalidated) {
+					shortestPathTrees.forEach(shortestPathTree -> shortestPathTree.addEdge(edgeId));
+				}
+			}
+		}
+
+		/**
+		 * Removes an edge between two nodes based on their IP addresses.
+		 *
+		 * @param ipAddressA The IP address of the first node.
+		 * @param ipAddressB The IP address of the second node.
+		 */
+		public void removeEdge(IPAddress ipAddressA, IPAddress ipAddressB) {
+			checkOpen();
+			int idA = getNodeId(ipAddressA);
+			int idB = getNodeId(ipAddressB);
+
+			if (idA < 0 || idB < 0) {
+				throw new IllegalArgumentException();
+			}
+
+			int edgeId = adjacencyArrays.findEdge(idA, idB);
+			if (edgeId >= 0) {
+				adjacencyArrays.removeEdge(edgeId);
+				modifiedNodes.set(idA);
+				modifiedNodes.set(idB);
+				version++;
+				edgesModified = true;
+				shortestPathTreesInvalidated = true;
+			}
+		}
+
+		// Updates the state derived from the graph, once for the whole batch.
+		private void close() {
+			closed = true;
+			if (!removedNodes.isEmpty()) {
+				cache.removeNodes(removedNodes);
+			}
+			if (edgesModified) {
+				cache.resetCache();
+			}
+			if (shortestPathTreesInvalidated) {
+				shortestPathTrees.forEach(ShortestPathTree::rebuild);
+			}
+		}
+
+		private void checkOpen() {
+			if (closed) {
+				throw new IllegalStateException("Error: Batch already applied!");
+			}
+		}
+
+	}
+
+	/**
+	 * Read-only view of the nodes of the graph, backed by the node identifiers.
+	 */
+	private class NodesView extends AbstractSet<Node> {
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Node)) {
+				return false;
+			}
+			Node node = (Node) object;
+			return getNode(node.getStringIpAddress()).filter(node::equals).isPresent();
+		}
+
+		@Override
+		public int size() {
+			lock.readLock().lock();
+			try {
+				return nodeIdentifiers.size();
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+			return new NodesViewIterator();
+		}
+
+	}
+
+	/**
+	 * Iterator over the nodes of the graph, skipping the free identifiers.
+	 */
+	private class NodesViewIterator implements Iterator<Node> {
+
+		private int current = advance(0);
+
+		@Override
+		public boolean hasNext() {
+			return current < nodeIdentifiers.getBound();
+		}
+
+		@Override
+		public Node next() {
+			if (hasNext()) {
+				Node node = nodeIdentifiers.getNode(current);
+				current = advance(current + 1);
+				return node;
+			}
+
+			throw new NoSuchElementException("Error: Nodes no next element!");
+		}
+
+		private int advance(int from) {
+			int id = from;
+			while (id < nodeIdentifiers.getBound() && nodeIdentifiers.getNode(id) == null) {
+				id++;
+			}
+			return id;
+		}
+
 	}
 
 }
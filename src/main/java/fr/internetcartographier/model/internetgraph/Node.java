@@ -25,9 +25,11 @@ public class Node {
 	private final IPAddress ipAddress;
 
 	/**
-	 * A map to store geolocation data for various services.
+	 * A map to store geolocation data for various services. The map is never
+	 * modified once published (it is copied on update), so the node can be read
+	 * while its geolocation data are updated by another thread.
 	 */
-	private Map<String, Optional<GeolocationData>> geolocationDatas;
+	private volatile Map<String, Optional<GeolocationData>> geolocationDatas;
 
 	/**
 	 * Constructs a {@code Node} object with the specified IP address and
@@ -110,14 +112,12 @@ public class Node {
 	 *
 	 * @param geolocationData The geolocation data to update.
 	 */
-	public void updateGeolocationData(TypedGeolocationData geolocationData) {
-		if (isNodeContainsAlreadyGeolocationData(geolocationData.getServiceGenerating())) {
-			geolocationDatas.replace(geolocationData.getServiceGenerating().getCanonicalName(),
-					geolocationData.getGeolocationData());
-		} else {
-			geolocationDatas.put(geolocationData.getServiceGenerating().getCanonicalName(),
-					geolocationData.getGeolocationData());
-		}
+	public synchronized void updateGeolocationData(TypedGeolocationData geolocationData) {
+		Map<String, Optional<GeolocationData>> updatedGeolocationDatas = new HashMap<>(geolocationDatas);
+
+		updatedGeolocationDatas.put(geolocationData.getServiceGenerating().getCanonicalName(),
+				geolocationData.getGeolocationData());
+		geolocationDatas = updatedGeolocationDatas;
 	}
 
 	/**
@@ -0,0 +1,154 @@
+package fr.internetcartographier.model.internetgraph;
+
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.util.collection.IntArrayList;
+import fr.internetcartographier.util.collection.LongIntHashMap;
+import java.util.Arrays;
+
+/**
+ * The {@code NodeIdentifiers} class interns the nodes of an
+ * {@link InternetGraph}: each node gets a dense {@code int} identifier, so that
+ * the graph and the algorithms working on it can use flat arrays indexed by
+ * node instead of maps keyed by IP address. Identifiers of removed nodes are
+ * recycled by the next added nodes.
+ */
+class NodeIdentifiers {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The identifiers of the nodes, keyed by the numeric value of their IP
+	 * address.
+	 */
+	private final LongIntHashMap identifiersByIpAddress;
+
+	/**
+	 * The nodes, indexed by identifier ({@code null} for free identifiers).
+	 */
+	private Node[] nodes;
+
+	/**
+	 * The identifiers freed by removed nodes.
+	 */
+	private final IntArrayList freeIdentifiers;
+
+	/**
+	 * The upper bound (exclusive) of the identifiers given until now.
+	 */
+	private int bound;
+
+	/**
+	 * Constructs an empty {@code NodeIdentifiers} object.
+	 */
+	NodeIdentifiers() {
+		identifiersByIpAddress = new LongIntHashMap();
+		nodes = new Node[DEFAULT_CAPACITY];
+		freeIdentifiers = new IntArrayList();
+	}
+
+	/**
+	 * Constructs a {@code NodeIdentifiers} object by copying another one. Nodes
+	 * are copied too, so that their geolocation data can be updated
+	 * independently.
+	 *
+	 * @param nodeIdentifiers The object to copy.
+	 */
+	NodeIdentifiers(NodeIdentifiers nodeIdentifiers) {
+		identifiersByIpAddress = new LongIntHashMap(nodeIdentifiers.identifiersByIpAddress);
+		nodes = new Node[nodeIdentifiers.nodes.length];
+		for (int identifier = 0; identifier < nodeIdentifiers.bound; identifier++) {
+			if (nodeIdentifiers.nodes[identifier] != null) {
+				nodes[identifier] = new Node(nodeIdentifiers.nodes[identifier]);
+			}
+		}
+		freeIdentifiers = new IntArrayList(nodeIdentifiers.freeIdentifiers);
+		bound = nodeIdentifiers.bound;
+	}
+
+	/**
+	 * Gives an identifier to a node not interned yet.
+	 *
+	 * @param  node The node to intern.
+	 * @return      The identifier of the node.
+	 */
+	int intern(Node node) {
+		int identifier = freeIdentifiers.isEmpty() ? bound++ : freeIdentifiers.removeLast();
+
+		if (identifier >= nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length * 2);
+		}
+
+		nodes[identifier] = node;
+		identifiersByIpAddress.put(IPAddress.ipToLong(node.getStringIpAddress()), identifier);
+
+		return identifier;
+	}
+
+	/**
+	 * Releases the identifier of a removed node.
+	 *
+	 * @param identifier The identifier to release.
+	 */
+	void release(int identifier) {
+		identifiersByIpAddress.remove(IPAddress.ipToLong(nodes[identifier].getStringIpAddress()));
+		nodes[identifier] = null;
+		freeIdentifiers.add(identifier);
+	}
+
+	/**
+	 * Gets the identifier of a node from the numeric value of its IP address.
+	 *
+	 * @param  ipAddress The numeric value of the IP address.
+	 * @return           The identifier, or {@code -1} if there is no such node.
+	 */
+	int getIdentifier(long ipAddress) {
+		return ipAddress < 0 ? -1 : identifiersByIpAddress.get(ipAddress);
+	}
+
+	/**
+	 * Gets the node with the specified identifier.
+	 *
+	 * @param  identifier The identifier of the node.
+	 * @return            The node, or {@code null} if the identifier is free.
+	 */
+	Node getNode(int identifier) {
+		return identifier < 0 || identifier >= bound ? null : nodes[identifier];
+	}
+
+	/**
+	 * Gets a copy of the index of the identifiers by IP address.
+	 *
+	 * @return A copy of the index.
+	 */
+	LongIntHashMap copyIdentifiersByIpAddress() {
+		return new LongIntHashMap(identifiersByIpAddress);
+	}
+
+	/**
+	 * Gets a copy of the nodes, indexed by identifier.
+	 *
+	 * @return An array of length {@link #getBound()}.
+	 */
+	Node[] copyNodes() {
+		return Arrays.copyOf(nodes, bound);
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the identifiers in use.
+	 *
+	 * @return The bound.
+	 */
+	int getBound() {
+		return bound;
+	}
+
+	/**
+	 * Gets the number of interned nodes.
+	 *
+	 * @return The number of nodes.
+	 */
+	int size() {
+		return identifiersByIpAddress.size();
+	}
+
+}
@@ -0,0 +1,190 @@
+package fr.internetcartographier.model.internetgraph;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import java.util.Arrays;
+
+/**
+ * The {@code ShortestPathTree} class maintains the minimum distances from a
+ * root node to all the nodes of an {@link InternetGraph}, for one weight
+ * metric. The graph mostly grows (traceroute results only add nodes and
+ * edges), so the tree is updated incrementally: a new edge can only decrease
+ * distances, and the decrease is propagated from its endpoint, only visiting
+ * the nodes whose distance changes. Other modifications (removals, new
+ * geolocation data) require a full rebuild.
+ * The tree reads the storage of the graph directly, so it must only be used
+ * while holding the lock of the graph.
+ */
+class ShortestPathTree {
+
+	private final String root;
+	private final WeightMetric weightMetric;
+	private final Class<? extends GeolocationService> geolocationService;
+
+	private final NodeIdentifiers nodeIdentifiers;
+	private final AdjacencyArrays adjacencyArrays;
+	private final EdgeWeights edgeWeights;
+
+	/**
+	 * The distances from the root, indexed by node identifier
+	 * ({@code Double.MAX_VALUE} if unreachable).
+	 */
+	private double[] distances;
+
+	/**
+	 * The queue of the nodes whose distance decreased and must be propagated.
+	 */
+	private final IndexedDoubleHeap heap;
+
+	/**
+	 * Constructs a {@code ShortestPathTree} object, and builds it.
+	 *
+	 * @param root               The IP address of the root node.
+	 * @param weightMetric       The weight metric.
+	 * @param geolocationService The geolocation service class (only used by
+	 *                           {@link WeightMetric#DISTANCE}).
+	 * @param nodeIdentifiers    The node identifiers of the graph.
+	 * @param adjacencyArrays    The edges of the graph.
+	 * @param edgeWeights        The distance weights of the edges of the graph.
+	 */
+	ShortestPathTree(String root, WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService,
+			NodeIdentifiers nodeIdentifiers, AdjacencyArrays adjacencyArrays, EdgeWeights edgeWeights) {
+		this.root = root;
+		this.weightMetric = weightMetric;
+		this.geolocationService = geolocationService;
+		this.nodeIdentifiers = nodeIdentifiers;
+		this.adjacencyArrays = adjacencyArrays;
+		this.edgeWeights = edgeWeights;
+
+		distances = new double[0];
+		heap = new IndexedDoubleHeap(0);
+		rebuild();
+	}
+
+	/**
+	 * Checks if the tree gives the distances of a weight metric from a node.
+	 *
+	 * @param  root               The IP address of the root node.
+	 * @param  weightMetric       The weight metric.
+	 * @param  geolocationService The geolocation service class (only compared
+	 *                            for {@link WeightMetric#DISTANCE}).
+	 * @return                    {@code true} if the tree matches,
+	 *                            {@code false} otherwise.
+	 */
+	boolean matches(String root, WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return this.root.equals(root) && this.weightMetric == weightMetric
+				&& (weightMetric != WeightMetric.DISTANCE || this.geolocationService.equals(geolocationService));
+	}
+
+	/**
+	 * Checks if the weights of the tree depend on the geolocation data.
+	 *
+	 * @return {@code true} for the {@link WeightMetric#DISTANCE} weight metric,
+	 *         {@code false} otherwise.
+	 */
+	boolean dependsOnGeolocationData() {
+		return weightMetric == WeightMetric.DISTANCE;
+	}
+
+	/**
+	 * Gets the distance from the root to a node.
+	 *
+	 * @param  node The identifier of the node.
+	 * @return      The distance, or {@code Double.MAX_VALUE} if unreachable.
+	 */
+	double getDistance(int node) {
+		return node < distances.length ? distances[node] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Takes a new node into account.
+	 *
+	 * @param node The identifier of the node.
+	 */
+	void addNode(int node) {
+		ensureCapacity(node + 1);
+		distances[node] = root.equals(nodeIdentifiers.getNode(node).getStringIpAddress()) ? 0 : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Takes a new edge into account, by propagating the distance decreases it
+	 * causes.
+	 *
+	 * @param edge The identifier of the edge.
+	 */
+	void addEdge(int edge) {
+		int nodeA = adjacencyArrays.getNodeA(edge);
+		int nodeB = adjacencyArrays.getNodeB(edge);
+		double weight = getWeight(edge);
+
+		ensureCapacity(Math.max(nodeA, nodeB) + 1);
+		relax(nodeA, nodeB, weight);
+		relax(nodeB, nodeA, weight);
+		propagate();
+	}
+
+	/**
+	 * Recomputes all the distances from the root, with Dijkstra's algorithm.
+	 */
+	void rebuild() {
+		int bound = nodeIdentifiers.getBound();
+
+		distances = new double[bound];
+		heap.ensureCapacity(bound);
+		Arrays.fill(distances, Double.MAX_VALUE);
+
+		int rootId = nodeIdentifiers.getIdentifier(IPAddress.parseIpToLong(root));
+		if (rootId >= 0) {
+			distances[rootId] = 0;
+			heap.insertOrDecrease(rootId, 0);
+			propagate();
+		}
+	}
+
+	// Lowers the distance of a node if it is shorter through a neighbor.
+	private void relax(int from, int to, double weight) {
+		if (distances[from] < Double.MAX_VALUE && distances[from] + weight < distances[to]) {
+			distances[to] = distances[from] + weight;
+			heap.insertOrDecrease(to, distances[to]);
+		}
+	}
+
+	// Propagates the decreased distances of the queued nodes, in order of distance.
+	private void propagate() {
+		while (!heap.isEmpty()) {
+			int node = heap.poll();
+
+			for (int index = 0; index < adjacencyArrays.getDegree(node); index++) {
+				relax(node, adjacencyArrays.getNeighbor(node, index),
+						getWeight(adjacencyArrays.getIncidentEdge(node, index)));
+			}
+		}
+	}
+
+	private double getWeight(int edge) {
+		switch (weightMetric) {
+			case CONSTANT:
+				return 1;
+			case RESPONSE_TIME:
+				return adjacencyArrays.getResponseTime(edge);
+			default:
+				if (edgeWeights.containsDistances(geolocationService)) {
+					return edgeWeights.getDistance(edge, geolocationService);
+				}
+				return EdgeWeights.getDistance(nodeIdentifiers.getNode(adjacencyArrays.getNodeA(edge)),
+						nodeIdentifiers.getNode(adjacencyArrays.getNodeB(edge)), geolocationService);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > distances.length) {
+			int previousCapacity = distances.length;
+			distances = Arrays.copyOf(distances, Math.max(capacity, previousCapacity * 2));
+			Arrays.fill(distances, previousCapacity, distances.length, Double.MAX_VALUE);
+			heap.ensureCapacity(distances.length);
+		}
+	}
+
+}
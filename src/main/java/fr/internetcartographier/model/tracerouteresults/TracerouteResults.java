@@ -1,16 +1,16 @@
 package fr.internetcartographier.model.tracerouteresults;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TracerouteResults {
 
 	Map<Long, TracerouteResult> tracerouteResults;
 
 	public TracerouteResults() {
-		tracerouteResults = new HashMap<>();
+		tracerouteResults = new ConcurrentHashMap<>();
 	}
 
 	public void addTracerouteResult(TracerouteResult tracerouteResult) {
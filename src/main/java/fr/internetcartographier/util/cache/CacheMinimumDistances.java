@@ -12,6 +12,8 @@ import java.util.*;
  * Internet graph.
  * The cache is used to store minimum paths computed using various weight
  * metrics and geolocation services.
+ * All the methods are synchronized, so the cache can be shared by the threads
+ * reading and modifying the graph.
  */
 public class CacheMinimumDistances {
 	
@@ -19,13 +21,21 @@ public class CacheMinimumDistances {
 
 	/**
 	 * Constructs a new CacheMinDistances instance by copying the content of another
-	 * instance.
+	 * instance. The maps are copied, the paths (never modified) are shared.
 	 *
 	 * @param cacheMinDistance Another CacheMinDistances instance to copy.
 	 */
-	// TODO You are not copying anything except the CacheMinDistances is this normal ? previous.cache == new.cache at this point (shared instance)
 	public CacheMinimumDistances(CacheMinimumDistances cacheMinDistance) {
-		cache = cacheMinDistance.cache;
+		cache = new HashMap<>();
+		synchronized (cacheMinDistance) {
+			for (Map.Entry<String, Map<String, Map<String, Path<String>>>> node : cacheMinDistance.cache.entrySet()) {
+				Map<String, Map<String, Path<String>>> cacheOfNode = new HashMap<>();
+				for (Map.Entry<String, Map<String, Path<String>>> caseName : node.getValue().entrySet()) {
+					cacheOfNode.put(caseName.getKey(), new HashMap<>(caseName.getValue()));
+				}
+				cache.put(node.getKey(), cacheOfNode);
+			}
+		}
 	}
 
 	/**
@@ -42,7 +52,7 @@ public class CacheMinimumDistances {
 	 * @return      True if the cache contains information for the node, false
 	 *              otherwise.
 	 */
-	public boolean containsNode(String node) {
+	public synchronized boolean containsNode(String node) {
 		return cache.containsKey(node);
 	}
 
@@ -51,24 +61,54 @@ public class CacheMinimumDistances {
 	 * 
 	 * @param  node The IP address of the node.
 	 */
-	public void addNode(String node) {
+	public synchronized void addNode(String node) {
 		cache.put(node, new HashMap<>());
 	}
 
 	/**
-	 * Removes a node and its associated information from the cache.
+	 * Removes a node and its associated information from the cache. The paths
+	 * going through the node are evicted, the others are kept: removing a node
+	 * from the graph can't shorten any path.
 	 *
 	 * @param node The IP address of the node to remove.
 	 */
-	public void removeNode(String node) {
-		cache.remove(node);
-		resetCache();
+	public synchronized void removeNode(String node) {
+		removeNodes(Collections.singleton(node));
+	}
+
+	/**
+	 * Removes several nodes and their associated information from the cache, in
+	 * a single pass over the cache. The paths going through one of the nodes are
+	 * evicted, the others are kept.
+	 *
+	 * @param nodes The IP addresses of the nodes to remove.
+	 */
+	public synchronized void removeNodes(Collection<String> nodes) {
+		Set<String> removedNodes = new HashSet<>(nodes);
+
+		cache.keySet().removeAll(removedNodes);
+
+		for (Map<String, Map<String, Path<String>>> cacheOfEachNode : cache.values()) {
+			for (Map<String, Path<String>> cacheByCaseName : cacheOfEachNode.values()) {
+				cacheByCaseName.values().removeIf(path -> containsAny(path, removedNodes));
+			}
+		}
+	}
+
+	// Helper method to check if a path goes through one of the nodes.
+	private static boolean containsAny(Path<String> path, Set<String> nodes) {
+		for (String node : path) {
+			if (nodes.contains(node)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * Resets the entire cache, removing all nodes and their associated information.
 	 */
-	public void resetCache() {
+	public synchronized void resetCache() {
 		for (String node : cache.keySet()) {
 			cache.replace(node, new HashMap<>());
 		}
@@ -78,7 +118,7 @@ public class CacheMinimumDistances {
 	 * Resets the cache for a specific weight metric, removing all stored paths.
 	 */
 	// TODO Need explanation
-	public void resetCacheMetricDistance() {
+	public synchronized void resetCacheMetricDistance() {
 		String caseHostIP = getKeyName(WeightMetric.DISTANCE, HostIP.class.getCanonicalName());
 		String caseGeoIP2 = getKeyName(WeightMetric.DISTANCE, GeoIP2.class.getCanonicalName());
 
@@ -108,7 +148,7 @@ public class CacheMinimumDistances {
 	 * @param path               The minimum path to update the cache with.
 	 */
 	// TODO Refactorable there is some code redundancy (a function to initialize cache for a node, and call it for source and destination)
-	public void updateCache(WeightMetric weightMetric, String geolocationService, Path<String> path) {
+	public synchronized void updateCache(WeightMetric weightMetric, String geolocationService, Path<String> path) {
 		String caseName = getKeyName(weightMetric, geolocationService);
 		String source = path.getSource();
 		String destination = path.getDestination();
@@ -163,7 +203,7 @@ public class CacheMinimumDistances {
 	 *                            or empty if not.
 	 */
 	// TODO You use a lot of Optional in your code, I don't always understand why (here for example). Is this a way for you to handle nullable stuff ?
-	public Optional<Path<String>> getMinPath(WeightMetric weightMetric, String geolocationService, String source,
+	public synchronized Optional<Path<String>> getMinPath(WeightMetric weightMetric, String geolocationService, String source,
 			String destination) {
 		String caseName = getKeyName(weightMetric, geolocationService);
 
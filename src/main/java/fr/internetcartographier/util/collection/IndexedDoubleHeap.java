@@ -0,0 +1,216 @@
+package fr.internetcartographier.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * An indexed min-priority queue of {@code int} elements in
+ * {@code [0, capacity)} with {@code double} keys, backed by a d-ary heap
+ * (d = 4). Each element is in the queue at most once, and its key can be
+ * decreased in place, which is what Dijkstra-like algorithms need to avoid
+ * pushing duplicates. Positions are stored in a flat array indexed by element,
+ * so that all the operations are allocation-free.
+ */
+public class IndexedDoubleHeap {
+
+	private static final int ARITY = 4;
+
+	private int[] heap;
+	private double[] keys;
+	private int[] positions;
+	private int size;
+
+	/**
+	 * Constructs an empty heap for the elements in {@code [0, capacity)}.
+	 *
+	 * @param capacity The upper bound (exclusive) of the elements.
+	 */
+	public IndexedDoubleHeap(int capacity) {
+		heap = new int[Math.max(capacity, 1)];
+		keys = new double[Math.max(capacity, 1)];
+		positions = new int[Math.max(capacity, 1)];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Makes sure the heap can hold the elements in {@code [0, capacity)}.
+	 *
+	 * @param capacity The upper bound (exclusive) of the elements.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > positions.length) {
+			int previousCapacity = positions.length;
+			heap = Arrays.copyOf(heap, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			positions = Arrays.copyOf(positions, capacity);
+			Arrays.fill(positions, previousCapacity, capacity, -1);
+		}
+	}
+
+	/**
+	 * Gets the number of elements in the heap.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the heap is empty.
+	 *
+	 * @return {@code true} if the heap is empty, {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Checks if an element is in the heap.
+	 *
+	 * @param  element The element.
+	 * @return         {@code true} if the element is in the heap, {@code false}
+	 *                 otherwise.
+	 */
+	public boolean contains(int element) {
+		return positions[element] >= 0;
+	}
+
+	/**
+	 * Gets the key of an element in the heap.
+	 *
+	 * @param  element The element, which must be in the heap.
+	 * @return         The key of the element.
+	 */
+	public double getKey(int element) {
+		return keys[element];
+	}
+
+	/**
+	 * Inserts an element, or decreases its key if it is already in the heap with
+	 * a greater key. Nothing is done if it is already in the heap with a smaller
+	 * or equal key.
+	 *
+	 * @param element The element.
+	 * @param key     The key of the element.
+	 */
+	public void insertOrDecrease(int element, double key) {
+		int position = positions[element];
+
+		if (position < 0) {
+			position = size++;
+		} else if (key >= keys[element]) {
+			return;
+		}
+
+		keys[element] = key;
+		siftUp(element, position);
+	}
+
+	/**
+	 * Gets the element with the minimum key, without removing it.
+	 *
+	 * @return                       The element with the minimum key.
+	 * @throws IllegalStateException If the heap is empty.
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new IllegalStateException("Error: The heap is empty!");
+		}
+		return heap[0];
+	}
+
+	/**
+	 * Gets the minimum key, without removing its element.
+	 *
+	 * @return                       The minimum key.
+	 * @throws IllegalStateException If the heap is empty.
+	 */
+	public double peekKey() {
+		return keys[peek()];
+	}
+
+	/**
+	 * Removes the element with the minimum key.
+	 *
+	 * @return                       The removed element.
+	 * @throws IllegalStateException If the heap is empty.
+	 */
+	public int poll() {
+		int first = peek();
+		int last = heap[--size];
+
+		positions[first] = -1;
+		if (size > 0) {
+			siftDown(last, 0);
+		}
+
+		return first;
+	}
+
+	/**
+	 * Removes all the elements, in time proportional to their number.
+	 */
+	public void clear() {
+		for (int position = 0; position < size; position++) {
+			positions[heap[position]] = -1;
+		}
+		size = 0;
+	}
+
+	// Moves element up from position until its parent has a smaller or equal key.
+	private void siftUp(int element, int position) {
+		double key = keys[element];
+
+		while (position > 0) {
+			int parentPosition = (position - 1) / ARITY;
+			int parent = heap[parentPosition];
+
+			if (keys[parent] <= key) {
+				break;
+			}
+
+			heap[position] = parent;
+			positions[parent] = position;
+			position = parentPosition;
+		}
+
+		heap[position] = element;
+		positions[element] = position;
+	}
+
+	// Moves element down from position until its children have greater or equal keys.
+	private void siftDown(int element, int position) {
+		double key = keys[element];
+
+		while (true) {
+			int firstChildPosition = position * ARITY + 1;
+
+			if (firstChildPosition >= size) {
+				break;
+			}
+
+			int lastChildPosition = Math.min(firstChildPosition + ARITY, size);
+			int minChildPosition = firstChildPosition;
+
+			for (int childPosition = firstChildPosition + 1; childPosition < lastChildPosition; childPosition++) {
+				if (keys[heap[childPosition]] < keys[heap[minChildPosition]]) {
+					minChildPosition = childPosition;
+				}
+			}
+
+			int minChild = heap[minChildPosition];
+
+			if (keys[minChild] >= key) {
+				break;
+			}
+
+			heap[position] = minChild;
+			positions[minChild] = position;
+			position = minChildPosition;
+		}
+
+		heap[position] = element;
+		positions[element] = position;
+	}
+
+}
@@ -0,0 +1,127 @@
+package fr.internetcartographier.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive {@code int} values. Used instead of
+ * {@code List<Integer>} on hot paths to avoid boxing and to keep the values
+ * contiguous in memory.
+ */
+public class IntArrayList {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private int[] values;
+	private int size;
+
+	/**
+	 * Constructs an empty list with a default initial capacity.
+	 */
+	public IntArrayList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty list with the specified initial capacity.
+	 *
+	 * @param initialCapacity The initial capacity of the list.
+	 */
+	public IntArrayList(int initialCapacity) {
+		values = new int[Math.max(initialCapacity, 1)];
+	}
+
+	/**
+	 * Constructs a new list by copying another list.
+	 *
+	 * @param intArrayList The list to copy.
+	 */
+	public IntArrayList(IntArrayList intArrayList) {
+		values = Arrays.copyOf(intArrayList.values, Math.max(intArrayList.size, 1));
+		size = intArrayList.size;
+	}
+
+	/**
+	 * Appends a value at the end of the list.
+	 *
+	 * @param value The value to append.
+	 */
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Gets the value at the specified index.
+	 *
+	 * @param  index The index of the value.
+	 * @return       The value.
+	 */
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return values[index];
+	}
+
+	/**
+	 * Replaces the value at the specified index.
+	 *
+	 * @param index The index of the value.
+	 * @param value The new value.
+	 */
+	public void set(int index, int value) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		values[index] = value;
+	}
+
+	/**
+	 * Removes and returns the last value of the list.
+	 *
+	 * @return The last value.
+	 */
+	public int removeLast() {
+		if (size == 0) {
+			throw new IllegalStateException("Error: IntArrayList is empty!");
+		}
+		return values[--size];
+	}
+
+	/**
+	 * Gets the number of values in the list.
+	 *
+	 * @return The size of the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the list is empty.
+	 *
+	 * @return {@code true} if the list is empty, {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the values of the list, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Gets a copy of the values of the list.
+	 *
+	 * @return An array containing the values of the list.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+}
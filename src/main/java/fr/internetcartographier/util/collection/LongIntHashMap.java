@@ -0,0 +1,246 @@
+package fr.internetcartographier.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive {@code long} keys to primitive {@code int} values,
+ * using open addressing with linear probing. It avoids the boxing and the
+ * per-entry objects of a {@code HashMap<Long, Integer>}, so a lookup costs a
+ * single probe sequence in two flat arrays.
+ * {@link Long#MIN_VALUE} is reserved and can't be used as a key.
+ */
+public class LongIntHashMap {
+
+	/**
+	 * Value returned by {@link #get(long)} when the key is not in the map.
+	 */
+	public static final int NO_VALUE = -1;
+
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final double LOAD_FACTOR = 0.5;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+
+	/**
+	 * Constructs an empty map with a default initial capacity.
+	 */
+	public LongIntHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty map able to hold the specified number of entries
+	 * without resizing.
+	 *
+	 * @param expectedSize The expected number of entries.
+	 */
+	public LongIntHashMap(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Constructs a new map by copying another map.
+	 *
+	 * @param longIntHashMap The map to copy.
+	 */
+	public LongIntHashMap(LongIntHashMap longIntHashMap) {
+		keys = longIntHashMap.keys.clone();
+		values = longIntHashMap.values.clone();
+		size = longIntHashMap.size;
+		mask = longIntHashMap.mask;
+	}
+
+	/**
+	 * Gets the value associated with a key.
+	 *
+	 * @param  key The key.
+	 * @return     The value associated with the key, or {@link #NO_VALUE} if the
+	 *             key is not in the map.
+	 */
+	public int get(long key) {
+		for (int slot = slot(key); ; slot = slot + 1 & mask) {
+			long current = keys[slot];
+
+			if (current == key) {
+				return values[slot];
+			}
+
+			if (current == EMPTY_KEY) {
+				return NO_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Checks if the map contains a key.
+	 *
+	 * @param  key The key.
+	 * @return     {@code true} if the key is in the map, {@code false} otherwise.
+	 */
+	public boolean containsKey(long key) {
+		for (int slot = slot(key); ; slot = slot + 1 & mask) {
+			long current = keys[slot];
+
+			if (current == key) {
+				return true;
+			}
+
+			if (current == EMPTY_KEY) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Associates a value with a key, replacing the previous value if any.
+	 *
+	 * @param  key   The key.
+	 * @param  value The value.
+	 * @return       The previous value associated with the key, or
+	 *               {@link #NO_VALUE} if there was none.
+	 */
+	public int put(long key, int value) {
+		if (key == EMPTY_KEY) {
+			throw new IllegalArgumentException("Error: Long.MIN_VALUE can't be used as a key!");
+		}
+
+		for (int slot = slot(key); ; slot = slot + 1 & mask) {
+			long current = keys[slot];
+
+			if (current == key) {
+				int previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+
+			if (current == EMPTY_KEY) {
+				keys[slot] = key;
+				values[slot] = value;
+
+				if (++size > keys.length * LOAD_FACTOR) {
+					rehash(keys.length * 2);
+				}
+
+				return NO_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Removes a key and its associated value from the map.
+	 *
+	 * @param  key The key.
+	 * @return     The value that was associated with the key, or
+	 *             {@link #NO_VALUE} if the key was not in the map.
+	 */
+	public int remove(long key) {
+		for (int slot = slot(key); ; slot = slot + 1 & mask) {
+			long current = keys[slot];
+
+			if (current == EMPTY_KEY) {
+				return NO_VALUE;
+			}
+
+			if (current == key) {
+				int previous = values[slot];
+				shiftBack(slot);
+				--size;
+				return previous;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of entries in the map.
+	 *
+	 * @return The size of the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return {@code true} if the map is empty, {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the entries of the map, keeping its capacity.
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY_KEY);
+		size = 0;
+	}
+
+	// Removes the entry at the given slot and moves back the following entries of
+	// the probe sequence, so that lookups never need tombstones.
+	private void shiftBack(int slot) {
+		int hole = slot;
+
+		for (int next = hole + 1 & mask; keys[next] != EMPTY_KEY; next = next + 1 & mask) {
+			int ideal = slot(keys[next]);
+
+			// The entry can fill the hole only if its ideal slot is not in (hole, next]
+			boolean canMove = hole <= next ? ideal <= hole || ideal > next : ideal <= hole && ideal > next;
+
+			if (canMove) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+
+		keys[hole] = EMPTY_KEY;
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ hash >>> 32) & mask;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY_KEY) {
+				int slot = slot(oldKeys[i]);
+
+				while (keys[slot] != EMPTY_KEY) {
+					slot = slot + 1 & mask;
+				}
+
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		Arrays.fill(keys, EMPTY_KEY);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+
+		while (capacity * LOAD_FACTOR < expectedSize) {
+			capacity *= 2;
+		}
+
+		return capacity;
+	}
+
+}
@@ -39,10 +39,19 @@ public class CSVReader {
 		List<String[]> nodesResult = reader.readFile(nodesFile, 1);
 		List<String[]> edgesResult = reader.readFile(edgesFile, 1);
 
-		List<GeolocationData.TypedGeolocationData> geolocationDatas = new ArrayList<>();
+		internetGraph.batch(batch -> {
+			addNodes(batch, nodesResult);
+			addEdges(batch, edgesResult);
+		});
 
+		return internetGraph;
+	}
+
+	// Helper method to add the nodes read from a nodes file.
+	private static void addNodes(InternetGraph.Batch batch, List<String[]> nodesResult) {
 		for (String[] nodeRecords : nodesResult) {
 			IPAddress ipAddress = new IPAddress(nodeRecords[0]);
+			List<GeolocationData.TypedGeolocationData> geolocationDatas = new ArrayList<>();
 
 			if (nodeRecords[8].equals("true")) {
 				Optional<GeolocationData> geoDataHostIP = parseGeolocationData(nodeRecords[5], nodeRecords[6],
@@ -57,12 +66,15 @@ public class CSVReader {
 			}
 
 			Node node = new Node(ipAddress, geolocationDatas.toArray(new GeolocationData.TypedGeolocationData[0]));
-			internetGraph.addNode(node);
+			batch.addNode(node);
 		}
+	}
 
+	// Helper method to add the edges read from an edges file.
+	private static void addEdges(InternetGraph.Batch batch, List<String[]> edgesResult) {
 		for (String[] edgeRecords : edgesResult) {
-			Optional<Node> nodeA = internetGraph.getNode(edgeRecords[0]);
-			Optional<Node> nodeB = internetGraph.getNode(edgeRecords[1]);
+			Optional<Node> nodeA = batch.getNode(edgeRecords[0]);
+			Optional<Node> nodeB = batch.getNode(edgeRecords[1]);
 
 			if (nodeA.isEmpty() || nodeB.isEmpty()) {
 				continue;
@@ -77,10 +89,8 @@ public class CSVReader {
 			}
 
 			Edge edge = new Edge(nodeA.get(), nodeB.get(), true, responseTime);
-			internetGraph.addEdge(edge);
+			batch.addEdge(edge);
 		}
-
-		return internetGraph;
 	}
 
 	public static InternetGraph importGraphFromCSVFiles(String pathToNodesFile, String pathToEdgesFile) throws IOException {
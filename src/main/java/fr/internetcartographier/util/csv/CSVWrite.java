@@ -8,6 +8,7 @@ import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.HostIP;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
 import java.io.BufferedWriter;
@@ -17,7 +18,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,8 +36,7 @@ public class CSVWrite {
 	public static void exportCsvNodesFile(InternetCartographier internetCartographier, String pathToFileNodes,
 			String pathToFileEdges) throws IOException {
 		InternetGraph internetGraph = internetCartographier.getInternetGraph();
-		Set<Node> nodes = internetGraph.getNodes();
-		Set<Edge> edges = internetGraph.getEdges();
+		GraphSnapshot graph = internetGraph.snapshot();
 
 		IPAddress originIpAddress = internetCartographier.getOrigin().getIpAddress();
 		List<String[]> listNodeRecords = new ArrayList<>();
@@ -54,21 +53,29 @@ public class CSVWrite {
 		listNodeRecords.add(nodesHeader);
 		listEdgeRecords.add(edgesHeader);
 
-		for (Node node : nodes) {
-			IPAddress ipAddress = node.getIpAddress();
+		// One traversal from the origin per distance column (the graph is undirected)
+		double[] constantDistances = internetGraph.getDistancesFrom(graph, originIpAddress, WeightMetric.CONSTANT,
+				GeolocationService.class);
+		double[] hostIPDistances = internetGraph.getDistancesFrom(graph, originIpAddress, WeightMetric.DISTANCE,
+				HostIP.class);
+		double[] geoIP2Distances = internetGraph.getDistancesFrom(graph, originIpAddress, WeightMetric.DISTANCE,
+				GeoIP2.class);
+		double[] responseTimeDistances = internetGraph.getDistancesFrom(graph, originIpAddress,
+				WeightMetric.RESPONSE_TIME, GeolocationService.class);
+
+		for (int id = 0; id < graph.getNodeIdBound(); id++) {
+			Node node = graph.getNode(id);
+			if (node == null) {
+				continue;
+			}
+
 			String[] nodeRecord = new String[13];
 
 			nodeRecord[0] = node.getStringIpAddress();
-			nodeRecord[1] = internetGraph
-					.minimumDistance(ipAddress, originIpAddress, WeightMetric.CONSTANT, GeolocationService.class)
-					.getCost() + "";
-			nodeRecord[2] = internetGraph
-					.minimumDistance(ipAddress, originIpAddress, WeightMetric.DISTANCE, HostIP.class).getCost() + "";
-			nodeRecord[3] = internetGraph
-					.minimumDistance(ipAddress, originIpAddress, WeightMetric.DISTANCE, GeoIP2.class).getCost() + "";
-			nodeRecord[4] = internetGraph
-					.minimumDistance(ipAddress, originIpAddress, WeightMetric.RESPONSE_TIME, GeolocationService.class)
-					.getCost() + "";
+			nodeRecord[1] = constantDistances[id] + "";
+			nodeRecord[2] = hostIPDistances[id] + "";
+			nodeRecord[3] = geoIP2Distances[id] + "";
+			nodeRecord[4] = responseTimeDistances[id] + "";
 
 			Optional<GeolocationData> geolocationDataHostIP = node.getGeolocationData(HostIP.class);
 			boolean isNodeContainsAlreadyHostIPData = node.isNodeContainsAlreadyGeolocationData(HostIP.class);
@@ -89,11 +96,16 @@ public class CSVWrite {
 			listNodeRecords.add(nodeRecord);
 		}
 
-		for (Edge edge : edges) {
+		for (int edgeId = 0; edgeId < graph.getEdgeIdBound(); edgeId++) {
+			if (!graph.containsEdge(edgeId)) {
+				continue;
+			}
+
+			Edge edge = graph.getEdge(edgeId);
 			String[] edgeRecord = new String[6];
 
-			edgeRecord[0] = edge.getNodeA().getStringIpAddress();
-			edgeRecord[1] = edge.getNodeB().getStringIpAddress();
+			edgeRecord[0] = edge.getStringIpAddressNodeA();
+			edgeRecord[1] = edge.getStringIpAddressNodeB();
 			edgeRecord[2] = edge.isDirect() + "";
 			edgeRecord[3] = edge.getWeight(WeightMetric.DISTANCE, HostIP.class) + "";
 			edgeRecord[4] = edge.getWeight(WeightMetric.DISTANCE, GeoIP2.class) + "";
@@ -0,0 +1,90 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import java.util.Arrays;
+
+/**
+ * ALT algorithm (A*, Landmarks and Triangle inequality) for finding the
+ * minimum path between two nodes of an Internet graph.
+ * The search is an A* search guided by the lower bounds given by precomputed
+ * {@link Landmarks}, so it works with any weight metric, unlike {@link AStar}
+ * which needs coordinates.
+ */
+public class ALT {
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph, using the ALT
+	 * algorithm. Distances in the tables of the landmarks are sums of the same
+	 * weights in another order, so a lower bound may exceed the real distance
+	 * left by a rounding error: nodes are reopened when a shorter path to them is
+	 * found, so that the path found is still a minimum path.
+	 *
+	 * @param  source                   The identifier of the source node.
+	 * @param  destination              The identifier of the destination node.
+	 * @param  graph                    The snapshot of the Internet graph.
+	 * @param  landmarks                The landmarks of the snapshot, computed for
+	 *                                  the same weight metric and geolocation
+	 *                                  service, from its version or from a
+	 *                                  version since which nodes and edges were
+	 *                                  only removed.
+	 * @param  weightMetric             The weight metric for calculating
+	 *                                  distances.
+	 * @param  geolocationService       The geolocation service class.
+	 * @return                          The minimum path, or a path only
+	 *                                  containing the source and the destination
+	 *                                  with a cost of {@code Double.MAX_VALUE} if
+	 *                                  the destination is unreachable.
+	 * @throws IllegalArgumentException If the landmarks were computed from a
+	 *                                  version of the graph whose distances may
+	 *                                  exceed the ones of the snapshot.
+	 */
+	public static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph, Landmarks landmarks,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		if (landmarks.getVersion() > graph.getVersion() || landmarks.getVersion() < graph.getShorteningVersion()) {
+			throw new IllegalArgumentException("Error: The landmarks are not valid for this version of the graph!");
+		}
+
+		if (source == destination) {
+			return new IdentifierPath(new int[] { source }, new double[0]);
+		}
+
+		int bound = graph.getNodeIdBound();
+		double[] weights = graph.getWeights(weightMetric, geolocationService);
+		double[] distances = new double[bound];
+		int[] predecessors = new int[bound];
+		int[] predecessorArcs = new int[bound];
+		IndexedDoubleHeap heap = new IndexedDoubleHeap(bound);
+
+		Arrays.fill(distances, Double.MAX_VALUE);
+		Arrays.fill(predecessors, -1);
+
+		distances[source] = 0.0;
+		heap.insertOrDecrease(source, landmarks.getLowerBound(source, destination));
+
+		while (!heap.isEmpty()) {
+			int ux = heap.poll();
+
+			if (ux == destination) {
+				return IdentifierPath.fromPredecessors(destination, predecessors, predecessorArcs, weights);
+			}
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+				double distance = distances[ux] + weights[arc];
+
+				if (distance < distances[vx]) {
+					distances[vx] = distance;
+					predecessors[vx] = ux;
+					predecessorArcs[vx] = arc;
+					heap.insertOrDecrease(vx, distance + landmarks.getLowerBound(vx, destination));
+				}
+			}
+		}
+
+		return IdentifierPath.unreachable(source, destination);
+	}
+
+}
@@ -0,0 +1,122 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import java.util.Arrays;
+
+/**
+ * A* algorithm for finding the minimum path between two nodes of an Internet
+ * graph with the {@link WeightMetric#DISTANCE} weight metric.
+ * The search is guided toward the destination by a lower bound of the distance
+ * left to travel, computed from the coordinates of the nodes: the weight of an
+ * edge is an equirectangular distance, which is never smaller than the
+ * euclidean distance in a plane where degrees of longitude are scaled by the
+ * smallest cosine of the latitudes of the graph, so the straight line in that
+ * plane is an admissible heuristic.
+ * Nodes without geolocation data get a heuristic of 0, and if the destination
+ * has no geolocation data the search is a plain Dijkstra's algorithm.
+ */
+public class AStar {
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph for the
+	 * {@link WeightMetric#DISTANCE} weight metric, using the A* algorithm.
+	 * Edge weights are rounded to 0.01 km, so the heuristic may exceed the real
+	 * distance left by up to 0.005 km per hop: nodes are reopened when a shorter
+	 * path to them is found, and the cost of the path found is exact up to this
+	 * rounding.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  destination        The identifier of the destination node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  geolocationService The geolocation service class giving the
+	 *                            coordinates of the nodes.
+	 * @return                    The minimum path, or a path only containing the
+	 *                            source and the destination with a cost of
+	 *                            {@code Double.MAX_VALUE} if the destination is
+	 *                            unreachable.
+	 */
+	public static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph,
+			Class<? extends GeolocationService> geolocationService) {
+		if (source == destination) {
+			return new IdentifierPath(new int[] { source }, new double[0]);
+		}
+
+		int bound = graph.getNodeIdBound();
+		double[] weights = graph.getWeights(WeightMetric.DISTANCE, geolocationService);
+		Heuristic heuristic = new Heuristic(graph.getCoordinates(geolocationService), destination);
+		double[] distances = new double[bound];
+		int[] predecessors = new int[bound];
+		int[] predecessorArcs = new int[bound];
+		IndexedDoubleHeap heap = new IndexedDoubleHeap(bound);
+
+		Arrays.fill(distances, Double.MAX_VALUE);
+		Arrays.fill(predecessors, -1);
+
+		distances[source] = 0.0;
+		heap.insertOrDecrease(source, heuristic.getLowerBound(source));
+
+		while (!heap.isEmpty()) {
+			int ux = heap.poll();
+
+			if (ux == destination) {
+				return IdentifierPath.fromPredecessors(destination, predecessors, predecessorArcs, weights);
+			}
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+				double distance = distances[ux] + weights[arc];
+
+				if (distance < distances[vx]) {
+					distances[vx] = distance;
+					predecessors[vx] = ux;
+					predecessorArcs[vx] = arc;
+					heap.insertOrDecrease(vx, distance + heuristic.getLowerBound(vx));
+				}
+			}
+		}
+
+		return IdentifierPath.unreachable(source, destination);
+	}
+
+	/**
+	 * The lower bound of the distance between the nodes and a destination.
+	 */
+	private static class Heuristic {
+
+		private final GraphSnapshot.Coordinates coordinates;
+		private final boolean isDestinationLocated;
+		private final double destinationLatitude;
+		private final double destinationLongitude;
+		private final double longitudeScale;
+
+		private Heuristic(GraphSnapshot.Coordinates coordinates, int destination) {
+			this.coordinates = coordinates;
+			isDestinationLocated = coordinates.isLocated(destination);
+			destinationLatitude = Math.toRadians(coordinates.getLatitude(destination));
+			destinationLongitude = Math.toRadians(coordinates.getLongitude(destination));
+			longitudeScale = coordinates.getMinCosLatitude();
+		}
+
+		/**
+		 * Gets the lower bound of the distance between a node and the destination.
+		 *
+		 * @param  node The identifier of the node.
+		 * @return      The lower bound, or 0 if the node or the destination is not
+		 *              located.
+		 */
+		private double getLowerBound(int node) {
+			if (!isDestinationLocated || !coordinates.isLocated(node)) {
+				return 0;
+			}
+
+			double x = (Math.toRadians(coordinates.getLongitude(node)) - destinationLongitude) * longitudeScale;
+			double y = Math.toRadians(coordinates.getLatitude(node)) - destinationLatitude;
+			return Math.sqrt(x * x + y * y) * WeightMetric.EARTH_RADIUS;
+		}
+
+	}
+
+}
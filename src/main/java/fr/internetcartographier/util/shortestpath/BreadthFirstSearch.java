@@ -1,10 +1,13 @@
 package fr.internetcartographier.util.shortestpath;
 
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
-import fr.internetcartographier.model.internetgraph.Node;
+import fr.internetcartographier.util.collection.IntArrayList;
 import fr.internetcartographier.util.path.Path;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 /**
  * Breadth-First Search (BFS) algorithm for finding the minimum path between two
@@ -16,6 +19,19 @@ import java.util.*;
  */
 public class BreadthFirstSearch {
 
+    /**
+     * The buffers of the two searches of each thread, reused from one query to
+     * the next so that a query only costs the nodes and arcs it visits.
+     */
+    private static final ThreadLocal<Frontier[]> FRONTIERS = ThreadLocal
+            .withInitial(() -> new Frontier[]{new Frontier(), new Frontier()});
+
+    /**
+     * The number of nodes from which the hop counts of the whole graph are
+     * computed in parallel by {@link #getDistances(int, GraphSnapshot)}.
+     */
+    private static final int PARALLEL_NODES = 100_000;
+
     /**
      * Calculates the minimum path between the source and destination nodes using
      * Breadth-First Search.
@@ -27,78 +43,417 @@ public class BreadthFirstSearch {
      * total distance.
      */
     public static Path<String> getMinPath(String source, String destination, InternetGraph graph) {
+        return getMinPath(source, destination, graph.snapshot());
+    }
+
+    /**
+     * Calculates the minimum path between the source and destination nodes using
+     * Breadth-First Search, on a snapshot of the graph.
+     *
+     * @param source      The IP address of the source node.
+     * @param destination The IP address of the destination node.
+     * @param graph       The snapshot of the Internet graph.
+     * @return A `Path` object representing the minimum path and its
+     * total distance.
+     */
+    public static Path<String> getMinPath(String source, String destination, GraphSnapshot graph) {
         if (source.equals(destination)) {
             return new Path<>(List.of(source), 0);
         }
 
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, String> predecessors = new HashMap<>();
-        Map<String, Boolean> spSet = new HashMap<>();
+        int sourceId = graph.getNodeId(source);
+        int destinationId = graph.getNodeId(destination);
+
+        if (sourceId < 0 || destinationId < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return getMinPath(sourceId, destinationId, graph).toPath(graph);
+    }
+
+    /**
+     * Calculates the minimum path between the source and destination nodes using
+     * a bidirectional Breadth-First Search: the levels of a search from the
+     * source and of a search from the destination are expanded alternately (the
+     * smaller frontier first), until the two searches meet. The buffers of the
+     * searches are reused (see {@link Frontier}), so nothing proportional to
+     * the size of the graph is allocated or cleared by a query.
+     *
+     * @param source      The identifier of the source node.
+     * @param destination The identifier of the destination node.
+     * @param graph       The snapshot of the Internet graph.
+     * @return The minimum path, or a path only containing the source and the
+     * destination with a cost of {@code Double.MAX_VALUE} if the destination is
+     * unreachable.
+     */
+    public static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph) {
+        if (source == destination) {
+            return new IdentifierPath(new int[]{source}, new double[0]);
+        }
 
-        bfs(source, destination, graph, predecessors, distances, spSet);
+        Frontier[] frontiers = FRONTIERS.get();
+        Frontier forward = frontiers[0].reset(graph.getNodeIdBound(), source);
+        Frontier backward = frontiers[1].reset(graph.getNodeIdBound(), destination);
+        int meeting = -1;
 
-        LinkedList<String> path = new LinkedList<>();
-        String crawl = destination;
+        while (meeting < 0 && !forward.isExhausted() && !backward.isExhausted()) {
+            Frontier frontier = forward.getLevelSize() <= backward.getLevelSize() ? forward : backward;
+            Frontier other = frontier == forward ? backward : forward;
 
-        path.add(crawl);
+            meeting = frontier.expandLevel(graph, other);
+        }
 
-        if (predecessors.get(crawl).isEmpty()) {
-            path.add(source);
-        } else {
-            while (!predecessors.get(crawl).isEmpty()) {
-                path.add(predecessors.get(crawl));
-                crawl = predecessors.get(crawl);
-            }
+        if (meeting < 0) {
+            return IdentifierPath.unreachable(source, destination);
+        }
+
+        int length = forward.levels[meeting] + backward.levels[meeting] + 1;
+        int[] nodes = new int[length];
+        double[] weights = new double[length - 1];
+
+        Arrays.fill(weights, 1);
+        for (int crawl = meeting, index = forward.levels[meeting]; crawl >= 0; crawl = forward.predecessors[crawl]) {
+            nodes[index--] = crawl;
         }
+        for (int crawl = meeting, index = forward.levels[meeting]; crawl >= 0; crawl = backward.predecessors[crawl]) {
+            nodes[index++] = crawl;
+        }
+
+        return new IdentifierPath(nodes, weights);
+    }
 
-        Collections.reverse(path);
+    /**
+     * Calculates the number of hops from the source to all the nodes of the graph
+     * using a direction-optimizing Breadth-First Search (see
+     * {@link #getHopCounts}), in parallel on large graphs.
+     *
+     * @param source The identifier of the source node.
+     * @param graph  The snapshot of the Internet graph.
+     * @return The distances from the source, indexed by node identifier
+     * ({@code Double.MAX_VALUE} if unreachable).
+     */
+    public static double[] getDistances(int source, GraphSnapshot graph) {
+        int[] hopCounts = getHopCounts(source, graph, graph.getNumberNodes() >= PARALLEL_NODES);
+        double[] distances = new double[hopCounts.length];
 
-        return new Path<>(path, distances.get(destination));
+        for (int id = 0; id < hopCounts.length; id++) {
+            distances[id] = hopCounts[id] < 0 ? Double.MAX_VALUE : hopCounts[id];
+        }
+
+        return distances;
     }
 
     /**
-     * Helper method for the Breadth-First Search algorithm.
-     * Performs BFS traversal to find the minimum path.
+     * Calculates the number of hops from the source to all the nodes of the graph
+     * using a direction-optimizing Breadth-First Search. Each level is expanded
+     * top-down (the arcs of the frontier are scanned for unvisited nodes) while
+     * the frontier is small, and bottom-up (the unvisited nodes look for a
+     * parent in the frontier, and stop at the first one) when the arcs of the
+     * frontier outnumber a fraction of the arcs left to explore, which avoids
+     * scanning most of the arcs of the huge frontiers around the core routers.
      *
-     * @param source       The source node's IP address.
-     * @param destination  The destination node's IP address.
-     * @param graph        The Internet graph.
-     * @param predecessors Map to store predecessors of nodes.
-     * @param distances    Map to store distances from the source node.
-     * @param spSet        Map to keep track of visited nodes.
+     * @param source   The identifier of the source node.
+     * @param graph    The snapshot of the Internet graph.
+     * @param parallel {@code true} to expand each level in parallel in the
+     *                 common {@link java.util.concurrent.ForkJoinPool}.
+     * @return The numbers of hops from the source, indexed by node identifier
+     * ({@code -1} if unreachable).
      */
-    private static void bfs(String source, String destination, InternetGraph graph, Map<String, String> predecessors,
-                            Map<String, Double> distances, Map<String, Boolean> spSet) {
-        LinkedList<String> queue = new LinkedList<>();
+    public static int[] getHopCounts(int source, GraphSnapshot graph, boolean parallel) {
+        return new Sweep(graph, parallel).run(source);
+    }
+
+    /**
+     * One of the two searches of a bidirectional Breadth-First Search. The
+     * visited nodes are marked in a bitset and kept in a queue, the nodes of the
+     * current level being at the end of it. Each node is queued at most once, so
+     * the queue never wraps. The levels and predecessors are only meaningful for
+     * the visited nodes, and resetting the search only clears the bits of the
+     * nodes of the queue.
+     */
+    private static class Frontier {
+
+        private long[] visited = new long[0];
+        private int[] levels = new int[0];
+        private int[] predecessors = new int[0];
+        private int[] queue = new int[0];
+        private int levelStart;
+        private int tail;
 
-        for (String ipAddress : graph.getAdjacencyList().keySet()) {
-            distances.put(ipAddress, Double.MAX_VALUE);
-            predecessors.put(ipAddress, "");
-            spSet.put(ipAddress, false);
+        /**
+         * Starts a new search from a node.
+         *
+         * @param bound  The bound of the node identifiers of the graph.
+         * @param origin The identifier of the origin node.
+         * @return This search.
+         */
+        private Frontier reset(int bound, int origin) {
+            for (int index = 0; index < tail; index++) {
+                visited[queue[index] >>> 6] = 0;
+            }
+            if (bound > queue.length) {
+                visited = new long[(bound + 63) >>> 6];
+                levels = new int[bound];
+                predecessors = new int[bound];
+                queue = new int[bound];
+            }
+
+            levelStart = 0;
+            tail = 0;
+            visit(origin, -1, 0);
+
+            return this;
+        }
+
+        private boolean isVisited(int node) {
+            return (visited[node >>> 6] & (1L << node)) != 0;
+        }
+
+        private void visit(int node, int predecessor, int level) {
+            visited[node >>> 6] |= 1L << node;
+            levels[node] = level;
+            predecessors[node] = predecessor;
+            queue[tail++] = node;
+        }
+
+        private boolean isExhausted() {
+            return levelStart == tail;
         }
 
-        distances.replace(source, 0.0);
-        spSet.replace(source, true);
-        queue.add(source);
+        private int getLevelSize() {
+            return tail - levelStart;
+        }
 
-        while (!queue.isEmpty()) {
-            String u = queue.remove();
+        /**
+         * Expands the current level of the search.
+         *
+         * @return The node where the search meets the other search with the
+         * shortest path, or {@code -1} if they don't meet yet.
+         */
+        private int expandLevel(GraphSnapshot graph, Frontier other) {
+            int levelEnd = tail;
+            int meeting = -1;
+            int best = Integer.MAX_VALUE;
 
-            for (Node nodeNeighbor : graph.getNeighbors(u)) {
-                String neighbor = nodeNeighbor.getStringIpAddress();
+            for (; levelStart < levelEnd; levelStart++) {
+                int u = queue[levelStart];
 
-                if (!spSet.get(neighbor)) {
-                    spSet.replace(neighbor, true);
-                    distances.replace(neighbor, distances.get(u) + 1);
-                    predecessors.replace(neighbor, u);
-                    queue.add(neighbor);
+                for (int arc = graph.getFirstArc(u); arc < graph.getLastArc(u); arc++) {
+                    int neighbor = graph.getArcTarget(arc);
 
-                    if (neighbor.equals(destination)) {
-                        return;
+                    if (!isVisited(neighbor)) {
+                        visit(neighbor, u, levels[u] + 1);
+
+                        // The whole level is expanded, as the first meeting may not be the best one
+                        if (other.isVisited(neighbor) && levels[neighbor] + other.levels[neighbor] < best) {
+                            best = levels[neighbor] + other.levels[neighbor];
+                            meeting = neighbor;
+                        }
                     }
                 }
             }
+
+            return meeting;
         }
+
+    }
+
+    /**
+     * A direction-optimizing Breadth-First Search over the whole graph. The
+     * frontier is a list of nodes in the top-down direction and a bitset in the
+     * bottom-up direction. In parallel, the top-down tasks claim the nodes with
+     * compare-and-set operations on the visited bitset, and the bottom-up tasks
+     * own ranges of whole words of the bitsets, so that each level is computed
+     * without locks.
+     */
+    private static class Sweep {
+
+        /**
+         * The bottom-up direction is used when the arcs of the frontier are more
+         * than the arcs left to explore divided by this factor.
+         */
+        private static final int ALPHA = 14;
+
+        /**
+         * The top-down direction is used again when the frontier has less nodes
+         * than the graph divided by this factor.
+         */
+        private static final int BETA = 24;
+
+        /**
+         * The number of nodes handled by a task (a multiple of 64, so that the
+         * bottom-up tasks own whole words of the bitsets).
+         */
+        private static final int CHUNK_SIZE = 4096;
+
+        private final GraphSnapshot graph;
+        private final boolean parallel;
+        private final int bound;
+        private final int[] levels;
+        private final AtomicLongArray visited;
+
+        private int[] frontier;
+        private long[] frontierBits;
+        private int frontierSize;
+        private long frontierArcs;
+
+        private Sweep(GraphSnapshot graph, boolean parallel) {
+            this.graph = graph;
+            this.parallel = parallel;
+            bound = graph.getNodeIdBound();
+            levels = new int[bound];
+            visited = new AtomicLongArray((bound + 63) >>> 6);
+        }
+
+        private int[] run(int source) {
+            Arrays.fill(levels, -1);
+            levels[source] = 0;
+            visited.set(source >>> 6, 1L << source);
+
+            frontier = new int[]{source};
+            frontierSize = 1;
+            frontierArcs = graph.getDegree(source);
+            long unexploredArcs = graph.getNumberArcs() - frontierArcs;
+            boolean bottomUp = false;
+
+            for (int level = 0; frontierSize > 0; level++) {
+                if (!bottomUp && frontierArcs > unexploredArcs / ALPHA) {
+                    bottomUp = true;
+                    frontierBits = toBits(frontier);
+                } else if (bottomUp && frontierSize < bound / BETA) {
+                    bottomUp = false;
+                    frontier = toNodes(frontierBits);
+                }
+
+                if (bottomUp) {
+                    expandBottomUp(level);
+                } else {
+                    expandTopDown(level);
+                }
+                unexploredArcs -= frontierArcs;
+            }
+
+            return levels;
+        }
+
+        // Expands a level by scanning the arcs of the frontier.
+        private void expandTopDown(int level) {
+            int[] nodes = frontier;
+            int chunks = (nodes.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntArrayList[] next = new IntArrayList[chunks];
+            long[] nextArcs = new long[chunks];
+
+            getChunks(chunks).forEach(chunk -> {
+                IntArrayList claimed = new IntArrayList();
+                for (int index = chunk * CHUNK_SIZE; index < Math.min(nodes.length, (chunk + 1) * CHUNK_SIZE); index++) {
+                    int u = nodes[index];
+
+                    for (int arc = graph.getFirstArc(u); arc < graph.getLastArc(u); arc++) {
+                        int neighbor = graph.getArcTarget(arc);
+
+                        if (claim(neighbor)) {
+                            levels[neighbor] = level + 1;
+                            claimed.add(neighbor);
+                            nextArcs[chunk] += graph.getDegree(neighbor);
+                        }
+                    }
+                }
+                next[chunk] = claimed;
+            });
+
+            frontierSize = 0;
+            frontierArcs = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                frontierSize += next[chunk].size();
+                frontierArcs += nextArcs[chunk];
+            }
+            frontier = new int[frontierSize];
+            for (int chunk = 0, offset = 0; chunk < chunks; offset += next[chunk++].size()) {
+                System.arraycopy(next[chunk].toArray(), 0, frontier, offset, next[chunk].size());
+            }
+        }
+
+        // Expands a level by looking for a parent in the frontier for each unvisited node.
+        private void expandBottomUp(int level) {
+            long[] bits = frontierBits;
+            long[] nextBits = new long[bits.length];
+            int chunks = (bound + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int[] nextSizes = new int[chunks];
+            long[] nextArcs = new long[chunks];
+
+            getChunks(chunks).forEach(chunk -> {
+                for (int node = chunk * CHUNK_SIZE; node < Math.min(bound, (chunk + 1) * CHUNK_SIZE); node++) {
+                    if (isVisited(node)) {
+                        continue;
+                    }
+
+                    for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+                        int neighbor = graph.getArcTarget(arc);
+
+                        if ((bits[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                            levels[node] = level + 1;
+                            claim(node);
+                            nextBits[node >>> 6] |= 1L << node;
+                            nextSizes[chunk]++;
+                            nextArcs[chunk] += graph.getDegree(node);
+                            break;
+                        }
+                    }
+                }
+            });
+
+            frontierBits = nextBits;
+            frontierSize = 0;
+            frontierArcs = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                frontierSize += nextSizes[chunk];
+                frontierArcs += nextArcs[chunk];
+            }
+        }
+
+        private IntStream getChunks(int chunks) {
+            IntStream stream = IntStream.range(0, chunks);
+            return parallel && chunks > 1 ? stream.parallel() : stream;
+        }
+
+        private boolean isVisited(int node) {
+            return (visited.get(node >>> 6) & (1L << node)) != 0;
+        }
+
+        // Marks a node as visited, and returns false if it already was.
+        private boolean claim(int node) {
+            int word = node >>> 6;
+            long bit = 1L << node;
+            long current;
+
+            do {
+                current = visited.get(word);
+                if ((current & bit) != 0) {
+                    return false;
+                }
+            } while (!visited.compareAndSet(word, current, current | bit));
+
+            return true;
+        }
+
+        private long[] toBits(int[] nodes) {
+            long[] bits = new long[(bound + 63) >>> 6];
+            for (int node : nodes) {
+                bits[node >>> 6] |= 1L << node;
+            }
+            return bits;
+        }
+
+        private int[] toNodes(long[] bits) {
+            IntArrayList nodes = new IntArrayList(frontierSize);
+            for (int word = 0; word < bits.length; word++) {
+                for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                    nodes.add((word << 6) + Long.numberOfTrailingZeros(remaining));
+                }
+            }
+            return nodes.toArray();
+        }
+
     }
 
 }
@@ -0,0 +1,910 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import fr.internetcartographier.util.collection.IntArrayList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A contraction hierarchy of an Internet graph for one weight metric, which
+ * answers minimum path queries by exploring only a few nodes.
+ * The nodes are contracted one after the other, from the least important to the
+ * most important: contracting a node removes it from the graph and adds a
+ * shortcut between two of its neighbors when it lies on their only minimum
+ * path. Each node then only keeps its arcs toward the nodes contracted after it
+ * (its upward arcs), and a minimum path is found by two searches going upward
+ * from the source and the destination, which meet at the most important node
+ * of the path.
+ * The hierarchy is only valid for the snapshot it was built from (see
+ * {@link #isBuiltFor}). It can be saved with {@link #write} and loaded back with
+ * {@link #read}, as long as the graph did not change.
+ */
+public class ContractionHierarchy {
+
+	private static final int MAGIC = 0x43484945;
+	private static final int FORMAT_VERSION = 1;
+
+	private final long version;
+	private final WeightMetric weightMetric;
+	private final Class<? extends GeolocationService> geolocationService;
+	private final long fingerprint;
+
+	/**
+	 * The upward arcs, stored as a CSR: the arcs of node {@code u} are in
+	 * {@code [firstArcs[u], firstArcs[u + 1])}. The middle of an arc is the node
+	 * a shortcut bypasses, or {@code -1} for an edge of the graph.
+	 */
+	private final int[] firstArcs;
+	private final int[] arcTargets;
+	private final double[] arcWeights;
+	private final int[] arcMiddles;
+
+	/**
+	 * The buffers of the searches, reused by the queries of a thread.
+	 */
+	private final ThreadLocal<Search> searches;
+
+	private ContractionHierarchy(long version, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService, long fingerprint,
+			int[] firstArcs, int[] arcTargets, double[] arcWeights, int[] arcMiddles) {
+		this.version = version;
+		this.weightMetric = weightMetric;
+		this.geolocationService = geolocationService;
+		this.fingerprint = fingerprint;
+		this.firstArcs = firstArcs;
+		this.arcTargets = arcTargets;
+		this.arcWeights = arcWeights;
+		this.arcMiddles = arcMiddles;
+
+		int bound = firstArcs.length - 1;
+		searches = ThreadLocal.withInitial(() -> new Search(bound));
+	}
+
+	/**
+	 * Builds the contraction hierarchy of a snapshot. The nodes are contracted in
+	 * rounds: each round contracts, in parallel, the nodes which are less
+	 * important than all their neighbors (so that no two of them are adjacent),
+	 * and the importance of their neighbors is then updated in parallel. The
+	 * importance of a node is the number of shortcuts its contraction would add,
+	 * minus its degree, plus its number of contracted neighbors (so that the
+	 * contractions are spread over the graph).
+	 *
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The contraction hierarchy of the snapshot.
+	 */
+	public static ContractionHierarchy build(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		Contraction contraction = new Contraction(graph, graph.getWeights(weightMetric, geolocationService));
+		contraction.run();
+
+		return new ContractionHierarchy(graph.getVersion(), weightMetric, geolocationService,
+				getFingerprint(graph, weightMetric, geolocationService), contraction.firstArcs, contraction.arcTargets,
+				contraction.arcWeights, contraction.arcMiddles);
+	}
+
+	/**
+	 * Checks if the hierarchy can answer the queries of a weight metric on a
+	 * snapshot.
+	 *
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    {@code true} if the hierarchy was built for this
+	 *                            weight metric (and geolocation service, for
+	 *                            {@link WeightMetric#DISTANCE}) from the
+	 *                            snapshot's version of the graph, {@code false}
+	 *                            otherwise.
+	 */
+	public boolean isBuiltFor(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		return graph.getVersion() == version && isBuiltFor(weightMetric, geolocationService);
+	}
+
+	/**
+	 * Checks if the hierarchy was built for a weight metric.
+	 *
+	 * @param  weightMetric       The weight metric.
+	 * @param  geolocationService The geolocation service class (only compared
+	 *                            for {@link WeightMetric#DISTANCE}).
+	 * @return                    {@code true} if the hierarchy was built for this
+	 *                            weight metric, {@code false} otherwise.
+	 */
+	public boolean isBuiltFor(WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return this.weightMetric == weightMetric && (weightMetric != WeightMetric.DISTANCE
+				|| this.geolocationService.equals(geolocationService));
+	}
+
+	/**
+	 * Gets the weight metric the hierarchy was built for.
+	 *
+	 * @return The weight metric.
+	 */
+	public WeightMetric getWeightMetric() {
+		return weightMetric;
+	}
+
+	/**
+	 * Gets the geolocation service class the hierarchy was built for.
+	 *
+	 * @return The geolocation service class.
+	 */
+	public Class<? extends GeolocationService> getGeolocationService() {
+		return geolocationService;
+	}
+
+	/**
+	 * Gets the version of the snapshot the hierarchy was built or loaded from.
+	 *
+	 * @return The version of the snapshot.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the number of upward arcs (edges of the graph and shortcuts).
+	 *
+	 * @return The number of upward arcs.
+	 */
+	public int getNumberArcs() {
+		return arcTargets.length;
+	}
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph, with a
+	 * bidirectional search in the upward arcs of the hierarchy. The shortcuts of
+	 * the path found are then unpacked to the edges of the graph.
+	 *
+	 * @param  source                   The identifier of the source node.
+	 * @param  destination              The identifier of the destination node.
+	 * @param  graph                    The snapshot the hierarchy was built for.
+	 * @return                          The minimum path, or a path only
+	 *                                  containing the source and the destination
+	 *                                  with a cost of {@code Double.MAX_VALUE} if
+	 *                                  the destination is unreachable.
+	 * @throws IllegalArgumentException If the hierarchy was built from another
+	 *                                  version of the graph.
+	 */
+	public IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph) {
+		if (graph.getVersion() != version) {
+			throw new IllegalArgumentException(
+					"Error: The contraction hierarchy was built from another version of the graph!");
+		}
+
+		if (source == destination) {
+			return new IdentifierPath(new int[] { source }, new double[0]);
+		}
+
+		Search search = searches.get();
+		try {
+			return search.getMinPath(source, destination);
+		} finally {
+			search.reset();
+		}
+	}
+
+	/**
+	 * Writes the hierarchy to a stream. The nodes are written with their IP
+	 * address, so that the hierarchy can be loaded in a graph where the nodes
+	 * have other identifiers.
+	 *
+	 * @param  outputStream The stream to write to.
+	 * @param  graph        The snapshot the hierarchy was built for.
+	 * @throws IOException  If an I/O error occurs.
+	 */
+	public void write(OutputStream outputStream, GraphSnapshot graph) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+		int bound = firstArcs.length - 1;
+
+		output.writeInt(MAGIC);
+		output.writeInt(FORMAT_VERSION);
+		output.writeUTF(weightMetric.name());
+		output.writeUTF(geolocationService.getCanonicalName());
+		output.writeLong(fingerprint);
+		output.writeInt(bound);
+		output.writeInt(arcTargets.length);
+
+		for (int node = 0; node < bound; node++) {
+			output.writeLong(getIpAddress(graph, node));
+			output.writeInt(firstArcs[node + 1] - firstArcs[node]);
+		}
+		for (int arc = 0; arc < arcTargets.length; arc++) {
+			output.writeInt(arcTargets[arc]);
+			output.writeDouble(arcWeights[arc]);
+			output.writeInt(arcMiddles[arc]);
+		}
+
+		output.flush();
+	}
+
+	/**
+	 * Reads a hierarchy written by {@link #write} and attaches it to a snapshot.
+	 *
+	 * @param  inputStream              The stream to read from.
+	 * @param  graph                    The snapshot to attach the hierarchy to.
+	 * @param  weightMetric             The weight metric the hierarchy must have
+	 *                                  been built for.
+	 * @param  geolocationService       The geolocation service class.
+	 * @return                          The hierarchy, valid for the snapshot.
+	 * @throws IOException              If an I/O error occurs or the stream is not
+	 *                                  a valid contraction hierarchy.
+	 * @throws IllegalArgumentException If the hierarchy was built for another
+	 *                                  weight metric or from another graph.
+	 */
+	public static ContractionHierarchy read(InputStream inputStream, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+
+		if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+			throw new IOException("Error: The stream is not a contraction hierarchy!");
+		}
+
+		WeightMetric storedWeightMetric = WeightMetric.valueOf(input.readUTF());
+		String storedGeolocationService = input.readUTF();
+		long storedFingerprint = input.readLong();
+
+		if (storedWeightMetric != weightMetric || (weightMetric == WeightMetric.DISTANCE
+				&& !storedGeolocationService.equals(geolocationService.getCanonicalName()))) {
+			throw new IllegalArgumentException("Error: The contraction hierarchy was built for another weight metric!");
+		}
+		if (storedFingerprint != getFingerprint(graph, weightMetric, geolocationService)) {
+			throw new IllegalArgumentException("Error: The contraction hierarchy was built from another graph!");
+		}
+
+		int storedBound = input.readInt();
+		int numberArcs = input.readInt();
+		if (storedBound < 0 || numberArcs < 0) {
+			throw new IOException("Error: The contraction hierarchy is corrupted!");
+		}
+
+		int[] identifiers = new int[storedBound];
+		int[] degrees = new int[storedBound];
+
+		for (int node = 0; node < storedBound; node++) {
+			long ipAddress = input.readLong();
+			identifiers[node] = ipAddress < 0 ? -1 : graph.getNodeId(IPAddress.longToIP(ipAddress));
+			degrees[node] = input.readInt();
+			if (degrees[node] < 0) {
+				throw new IOException("Error: The contraction hierarchy is corrupted!");
+			}
+		}
+
+		int bound = graph.getNodeIdBound();
+		int[] firstArcs = new int[bound + 1];
+		for (int node = 0; node < storedBound; node++) {
+			if (degrees[node] > 0) {
+				if (identifiers[node] < 0) {
+					throw new IllegalArgumentException("Error: The contraction hierarchy was built from another graph!");
+				}
+				if (firstArcs[identifiers[node] + 1] != 0) {
+					throw new IOException("Error: The contraction hierarchy is corrupted!");
+				}
+				firstArcs[identifiers[node] + 1] = degrees[node];
+			}
+		}
+		for (int node = 0; node < bound; node++) {
+			firstArcs[node + 1] += firstArcs[node];
+		}
+		if (firstArcs[bound] != numberArcs) {
+			throw new IOException("Error: The contraction hierarchy is corrupted!");
+		}
+
+		int[] arcTargets = new int[numberArcs];
+		double[] arcWeights = new double[numberArcs];
+		int[] arcMiddles = new int[numberArcs];
+		for (int node = 0; node < storedBound; node++) {
+			for (int index = 0, arc = degrees[node] > 0 ? firstArcs[identifiers[node]] : 0; index < degrees[node];
+					index++, arc++) {
+				arcTargets[arc] = getNode(input.readInt(), identifiers);
+				arcWeights[arc] = input.readDouble();
+				int middle = input.readInt();
+				arcMiddles[arc] = middle == -1 ? -1 : getNode(middle, identifiers);
+			}
+		}
+
+		return new ContractionHierarchy(graph.getVersion(), weightMetric, geolocationService, storedFingerprint,
+				firstArcs, arcTargets, arcWeights, arcMiddles);
+	}
+
+	// Helper method to map the stored index of a node to its identifier in the snapshot, checking both.
+	private static int getNode(int index, int[] identifiers) throws IOException {
+		if (index < 0 || index >= identifiers.length || identifiers[index] < 0) {
+			throw new IOException("Error: The contraction hierarchy is corrupted!");
+		}
+		return identifiers[index];
+	}
+
+	// Helper method to get the numeric IP address of a node, or -1 if there is no node with this identifier.
+	private static long getIpAddress(GraphSnapshot graph, int node) {
+		return graph.getNode(node) == null ? -1 : IPAddress.parseIpToLong(graph.getNode(node).getStringIpAddress());
+	}
+
+	// Helper method to hash the weighted edges of a snapshot, independently of the node identifiers
+	// and of the order of the edges, so that a hierarchy is only loaded in the graph it was built from.
+	private static long getFingerprint(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		double[] weights = graph.getWeights(weightMetric, geolocationService);
+		long fingerprint = 0;
+
+		for (int node = 0; node < graph.getNodeIdBound(); node++) {
+			long ipAddress = getIpAddress(graph, node);
+			for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+				long targetIpAddress = getIpAddress(graph, graph.getArcTarget(arc));
+				if (ipAddress < targetIpAddress && weights[arc] < Double.MAX_VALUE) {
+					fingerprint += mix(mix(ipAddress * 31 + targetIpAddress) ^ Double.doubleToLongBits(weights[arc]));
+				}
+			}
+		}
+
+		return fingerprint;
+	}
+
+	// The finalizer of SplitMix64, spreading the bits of a value.
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * The contraction of a snapshot, building the upward arcs of the hierarchy.
+	 */
+	private static class Contraction {
+
+		/**
+		 * The maximum number of nodes settled by a witness search. A search stopped
+		 * early only adds shortcuts which may be unnecessary, never misses one.
+		 */
+		private static final int WITNESS_SETTLED_LIMIT = 500;
+
+		private final int bound;
+		private final RemainingGraph remaining;
+		private final double[] priorities;
+		private final int[] contractedNeighbors;
+		private final boolean[] excluded;
+		private final ThreadLocal<WitnessSearch> witnessSearches;
+
+		private final int[][] upwardTargets;
+		private final double[][] upwardWeights;
+		private final int[][] upwardMiddles;
+
+		private int[] firstArcs;
+		private int[] arcTargets;
+		private double[] arcWeights;
+		private int[] arcMiddles;
+
+		private Contraction(GraphSnapshot graph, double[] weights) {
+			bound = graph.getNodeIdBound();
+			remaining = new RemainingGraph(bound);
+			priorities = new double[bound];
+			contractedNeighbors = new int[bound];
+			excluded = new boolean[bound];
+			witnessSearches = ThreadLocal.withInitial(() -> new WitnessSearch(bound));
+
+			upwardTargets = new int[bound][];
+			upwardWeights = new double[bound][];
+			upwardMiddles = new int[bound][];
+
+			for (int node = 0; node < bound; node++) {
+				for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+					int target = graph.getArcTarget(arc);
+					if (node < target && weights[arc] < Double.MAX_VALUE) {
+						remaining.relax(node, target, weights[arc], -1);
+					}
+				}
+			}
+		}
+
+		private void run() {
+			int[] nodes = IntStream.range(0, bound).toArray();
+
+			IntStream.of(nodes).parallel().forEach(node -> priorities[node] = computePriority(node));
+
+			while (nodes.length > 0) {
+				int[] round = IntStream.of(nodes).parallel().filter(this::isLocalMinimum).toArray();
+
+				for (int node : round) {
+					excluded[node] = true;
+				}
+
+				Shortcuts[] shortcuts = IntStream.of(round).parallel().mapToObj(this::findShortcuts)
+						.toArray(Shortcuts[]::new);
+
+				IntArrayList neighbors = new IntArrayList();
+				for (int index = 0; index < round.length; index++) {
+					contract(round[index], shortcuts[index], neighbors);
+				}
+
+				IntStream.of(neighbors.toArray()).distinct().parallel()
+						.forEach(node -> priorities[node] = computePriority(node));
+
+				nodes = IntStream.of(nodes).filter(node -> !excluded[node]).toArray();
+			}
+
+			buildArcs();
+		}
+
+		// Checks if a node is less important than all its remaining neighbors (ties are broken by identifier).
+		private boolean isLocalMinimum(int node) {
+			for (int index = 0; index < remaining.getDegree(node); index++) {
+				int neighbor = remaining.getNeighbor(node, index);
+				if (priorities[neighbor] < priorities[node]
+						|| (priorities[neighbor] == priorities[node] && neighbor < node)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// Computes the importance of a node from the shortcuts its contraction would add.
+		private double computePriority(int node) {
+			return findShortcuts(node).size() - remaining.getDegree(node) + contractedNeighbors[node];
+		}
+
+		// Finds the shortcuts to add between the neighbors of a node when contracting it.
+		private Shortcuts findShortcuts(int node) {
+			Shortcuts shortcuts = new Shortcuts();
+			WitnessSearch witnessSearch = witnessSearches.get();
+			int degree = remaining.getDegree(node);
+
+			for (int first = 0; first < degree - 1; first++) {
+				int source = remaining.getNeighbor(node, first);
+				double sourceWeight = remaining.getWeight(node, first);
+				double maxCost = 0;
+
+				for (int second = first + 1; second < degree; second++) {
+					maxCost = Math.max(maxCost, sourceWeight + remaining.getWeight(node, second));
+				}
+
+				witnessSearch.run(source, node, maxCost, remaining, excluded);
+				for (int second = first + 1; second < degree; second++) {
+					double cost = sourceWeight + remaining.getWeight(node, second);
+					if (witnessSearch.getDistance(remaining.getNeighbor(node, second)) > cost) {
+						shortcuts.add(source, remaining.getNeighbor(node, second), cost);
+					}
+				}
+				witnessSearch.reset();
+			}
+
+			return shortcuts;
+		}
+
+		// Contracts a node: keeps its remaining arcs as its upward arcs, removes it and adds its shortcuts.
+		private void contract(int node, Shortcuts shortcuts, IntArrayList neighbors) {
+			int degree = remaining.getDegree(node);
+
+			upwardTargets[node] = new int[degree];
+			upwardWeights[node] = new double[degree];
+			upwardMiddles[node] = new int[degree];
+
+			for (int index = 0; index < degree; index++) {
+				int neighbor = remaining.getNeighbor(node, index);
+				upwardTargets[node][index] = neighbor;
+				upwardWeights[node][index] = remaining.getWeight(node, index);
+				upwardMiddles[node][index] = remaining.getMiddle(node, index);
+				++contractedNeighbors[neighbor];
+				neighbors.add(neighbor);
+			}
+			for (int index = 0; index < degree; index++) {
+				remaining.remove(upwardTargets[node][index], node);
+			}
+			remaining.clear(node);
+
+			for (int index = 0; index < shortcuts.size(); index++) {
+				remaining.relax(shortcuts.getNodeA(index), shortcuts.getNodeB(index), shortcuts.getWeight(index),
+						node);
+			}
+		}
+
+		// Gathers the upward arcs in a CSR.
+		private void buildArcs() {
+			firstArcs = new int[bound + 1];
+			for (int node = 0; node < bound; node++) {
+				firstArcs[node + 1] = firstArcs[node] + upwardTargets[node].length;
+			}
+
+			arcTargets = new int[firstArcs[bound]];
+			arcWeights = new double[firstArcs[bound]];
+			arcMiddles = new int[firstArcs[bound]];
+			for (int node = 0; node < bound; node++) {
+				System.arraycopy(upwardTargets[node], 0, arcTargets, firstArcs[node], upwardTargets[node].length);
+				System.arraycopy(upwardWeights[node], 0, arcWeights, firstArcs[node], upwardWeights[node].length);
+				System.arraycopy(upwardMiddles[node], 0, arcMiddles, firstArcs[node], upwardMiddles[node].length);
+			}
+		}
+
+	}
+
+	/**
+	 * The graph of the nodes not contracted yet, with the shortcuts added so far,
+	 * stored as a growable adjacency list per node.
+	 */
+	private static class RemainingGraph {
+
+		private final int[][] neighbors;
+		private final double[][] weights;
+		private final int[][] middles;
+		private final int[] degrees;
+
+		private RemainingGraph(int bound) {
+			neighbors = new int[bound][0];
+			weights = new double[bound][0];
+			middles = new int[bound][0];
+			degrees = new int[bound];
+		}
+
+		private int getDegree(int node) {
+			return degrees[node];
+		}
+
+		private int getNeighbor(int node, int index) {
+			return neighbors[node][index];
+		}
+
+		private double getWeight(int node, int index) {
+			return weights[node][index];
+		}
+
+		private int getMiddle(int node, int index) {
+			return middles[node][index];
+		}
+
+		// Adds an edge between two nodes, or lowers the weight of their edge.
+		private void relax(int nodeA, int nodeB, double weight, int middle) {
+			relaxArc(nodeA, nodeB, weight, middle);
+			relaxArc(nodeB, nodeA, weight, middle);
+		}
+
+		private void relaxArc(int node, int neighbor, double weight, int middle) {
+			int index = indexOf(node, neighbor);
+
+			if (index < 0) {
+				if (degrees[node] == neighbors[node].length) {
+					int capacity = Math.max(4, degrees[node] * 2);
+					neighbors[node] = Arrays.copyOf(neighbors[node], capacity);
+					weights[node] = Arrays.copyOf(weights[node], capacity);
+					middles[node] = Arrays.copyOf(middles[node], capacity);
+				}
+				index = degrees[node]++;
+			} else if (weights[node][index] <= weight) {
+				return;
+			}
+
+			neighbors[node][index] = neighbor;
+			weights[node][index] = weight;
+			middles[node][index] = middle;
+		}
+
+		// Removes the arc from a node to a neighbor, by moving the last arc in its place.
+		private void remove(int node, int neighbor) {
+			int index = indexOf(node, neighbor);
+			int last = --degrees[node];
+
+			neighbors[node][index] = neighbors[node][last];
+			weights[node][index] = weights[node][last];
+			middles[node][index] = middles[node][last];
+		}
+
+		private void clear(int node) {
+			neighbors[node] = new int[0];
+			weights[node] = new double[0];
+			middles[node] = new int[0];
+			degrees[node] = 0;
+		}
+
+		private int indexOf(int node, int neighbor) {
+			for (int index = 0; index < degrees[node]; index++) {
+				if (neighbors[node][index] == neighbor) {
+					return index;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+	/**
+	 * The shortcuts found for the contraction of a node.
+	 */
+	private static class Shortcuts {
+
+		private final IntArrayList nodes = new IntArrayList();
+		private double[] weights = new double[0];
+
+		private void add(int nodeA, int nodeB, double weight) {
+			if (size() == weights.length) {
+				weights = Arrays.copyOf(weights, Math.max(4, weights.length * 2));
+			}
+			weights[size()] = weight;
+			nodes.add(nodeA);
+			nodes.add(nodeB);
+		}
+
+		private int size() {
+			return nodes.size() / 2;
+		}
+
+		private int getNodeA(int index) {
+			return nodes.get(2 * index);
+		}
+
+		private int getNodeB(int index) {
+			return nodes.get(2 * index + 1);
+		}
+
+		private double getWeight(int index) {
+			return weights[index];
+		}
+
+	}
+
+	/**
+	 * A Dijkstra's search looking for witness paths, which avoids the contracted
+	 * nodes and stops at a maximum cost. Its buffers are reused between searches
+	 * and only the touched entries are reset.
+	 */
+	private static class WitnessSearch {
+
+		private final double[] distances;
+		private final IndexedDoubleHeap heap;
+		private final IntArrayList touched;
+
+		private WitnessSearch(int bound) {
+			distances = new double[bound];
+			heap = new IndexedDoubleHeap(bound);
+			touched = new IntArrayList();
+			Arrays.fill(distances, Double.MAX_VALUE);
+		}
+
+		private void run(int source, int ignored, double maxCost, RemainingGraph remaining, boolean[] excluded) {
+			distances[source] = 0;
+			touched.add(source);
+			heap.insertOrDecrease(source, 0);
+
+			for (int settled = 0; !heap.isEmpty() && settled < Contraction.WITNESS_SETTLED_LIMIT; settled++) {
+				if (heap.peekKey() > maxCost) {
+					break;
+				}
+
+				int node = heap.poll();
+				for (int index = 0; index < remaining.getDegree(node); index++) {
+					int neighbor = remaining.getNeighbor(node, index);
+
+					if (neighbor == ignored || excluded[neighbor]) {
+						continue;
+					}
+
+					double distance = distances[node] + remaining.getWeight(node, index);
+					if (distance < distances[neighbor]) {
+						if (distances[neighbor] == Double.MAX_VALUE) {
+							touched.add(neighbor);
+						}
+						distances[neighbor] = distance;
+						heap.insertOrDecrease(neighbor, distance);
+					}
+				}
+			}
+		}
+
+		private double getDistance(int node) {
+			return distances[node];
+		}
+
+		private void reset() {
+			for (int index = 0; index < touched.size(); index++) {
+				distances[touched.get(index)] = Double.MAX_VALUE;
+			}
+			touched.clear();
+			heap.clear();
+		}
+
+	}
+
+	/**
+	 * The buffers of a query: the upward searches from the source and from the
+	 * destination.
+	 */
+	private class Search {
+
+		private final Frontier forward;
+		private final Frontier backward;
+
+		private Search(int bound) {
+			forward = new Frontier(bound);
+			backward = new Frontier(bound);
+		}
+
+		private IdentifierPath getMinPath(int source, int destination) {
+			forward.start(source);
+			backward.start(destination);
+
+			double best = Double.MAX_VALUE;
+			int meeting = -1;
+
+			while (true) {
+				boolean forwardDone = forward.heap.isEmpty() || forward.heap.peekKey() >= best;
+				boolean backwardDone = backward.heap.isEmpty() || backward.heap.peekKey() >= best;
+
+				if (forwardDone && backwardDone) {
+					break;
+				}
+
+				Frontier current = forwardDone ? backward
+						: backwardDone || forward.heap.peekKey() <= backward.heap.peekKey() ? forward : backward;
+				Frontier other = current == forward ? backward : forward;
+				int node = current.heap.poll();
+
+				if (other.distances[node] < Double.MAX_VALUE
+						&& current.distances[node] + other.distances[node] < best) {
+					best = current.distances[node] + other.distances[node];
+					meeting = node;
+				}
+
+				current.relax(node);
+			}
+
+			if (meeting < 0) {
+				return IdentifierPath.unreachable(source, destination);
+			}
+
+			IntArrayList nodes = new IntArrayList();
+			double[] weights = new double[4];
+			nodes.add(source);
+
+			int[] upArcs = forward.getArcsTo(meeting);
+			for (int index = upArcs.length - 1; index >= 0; index--) {
+				weights = unpack(upArcs[index], true, nodes, weights);
+			}
+			for (int arc : backward.getArcsTo(meeting)) {
+				weights = unpack(arc, false, nodes, weights);
+			}
+
+			return new IdentifierPath(nodes.toArray(), Arrays.copyOf(weights, nodes.size() - 1));
+		}
+
+		// Appends the hops of an upward arc to a path, going upward or downward, and
+		// returns the (possibly grown) hop weights.
+		private double[] unpack(int upArc, boolean upward, IntArrayList nodes, double[] weights) {
+			int from = nodes.get(nodes.size() - 1);
+			IntArrayList pending = new IntArrayList();
+			pending.add(upward ? upArc : ~upArc);
+
+			while (!pending.isEmpty()) {
+				int encoded = pending.removeLast();
+				int arc = encoded >= 0 ? encoded : ~encoded;
+				int middle = arcMiddles[arc];
+				int lower = getArcSource(arc);
+				int higher = arcTargets[arc];
+				int target = encoded >= 0 ? higher : lower;
+
+				if (middle < 0) {
+					if (nodes.size() == weights.length + 1) {
+						weights = Arrays.copyOf(weights, weights.length * 2);
+					}
+					weights[nodes.size() - 1] = arcWeights[arc];
+					nodes.add(target);
+					from = target;
+					continue;
+				}
+
+				// The shortcut lower-higher bypasses middle, which has upward arcs to both
+				int toLower = findArc(middle, lower);
+				int toHigher = findArc(middle, higher);
+				if (from == lower) {
+					pending.add(toHigher);
+					pending.add(~toLower);
+				} else {
+					pending.add(toLower);
+					pending.add(~toHigher);
+				}
+			}
+
+			return weights;
+		}
+
+		private void reset() {
+			forward.reset();
+			backward.reset();
+		}
+
+	}
+
+	// Gets the source of an upward arc.
+	private int getArcSource(int arc) {
+		int low = 0;
+		int high = firstArcs.length - 2;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (firstArcs[middle] <= arc) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	// Gets the upward arc from a node to one of its neighbors.
+	private int findArc(int node, int target) {
+		for (int arc = firstArcs[node]; arc < firstArcs[node + 1]; arc++) {
+			if (arcTargets[arc] == target) {
+				return arc;
+			}
+		}
+		throw new IllegalStateException("Error: The contraction hierarchy is inconsistent!");
+	}
+
+	/**
+	 * An upward search from one endpoint of a query.
+	 */
+	private class Frontier {
+
+		private final double[] distances;
+		private final int[] parentArcs;
+		private final IndexedDoubleHeap heap;
+		private final IntArrayList touched;
+
+		private Frontier(int bound) {
+			distances = new double[bound];
+			parentArcs = new int[bound];
+			heap = new IndexedDoubleHeap(bound);
+			touched = new IntArrayList();
+			Arrays.fill(distances, Double.MAX_VALUE);
+		}
+
+		private void start(int node) {
+			distances[node] = 0;
+			parentArcs[node] = -1;
+			touched.add(node);
+			heap.insertOrDecrease(node, 0);
+		}
+
+		private void relax(int node) {
+			for (int arc = firstArcs[node]; arc < firstArcs[node + 1]; arc++) {
+				int target = arcTargets[arc];
+				double distance = distances[node] + arcWeights[arc];
+
+				if (distance < distances[target]) {
+					if (distances[target] == Double.MAX_VALUE) {
+						touched.add(target);
+					}
+					distances[target] = distance;
+					parentArcs[target] = arc;
+					heap.insertOrDecrease(target, distance);
+				}
+			}
+		}
+
+		// Gets the upward arcs from the start of the search to a node, from the node back to the start.
+		private int[] getArcsTo(int node) {
+			IntArrayList arcs = new IntArrayList();
+			for (int arc = parentArcs[node]; arc >= 0; arc = parentArcs[getArcSource(arc)]) {
+				arcs.add(arc);
+			}
+			return arcs.toArray();
+		}
+
+		private void reset() {
+			for (int index = 0; index < touched.size(); index++) {
+				distances[touched.get(index)] = Double.MAX_VALUE;
+			}
+			touched.clear();
+			heap.clear();
+		}
+
+	}
+
+}
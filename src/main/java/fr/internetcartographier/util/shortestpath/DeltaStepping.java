@@ -0,0 +1,428 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IntArrayList;
+import fr.internetcartographier.util.shortestpath.Dijkstra.DijkstraResult;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * The delta-stepping algorithm, a parallel alternative to {@link Dijkstra} for
+ * very large graphs. The nodes are grouped in buckets of width delta by
+ * distance, and the buckets are settled in order: the arcs lighter than delta
+ * of the nodes of the current bucket are relaxed in parallel phases until the
+ * bucket stops changing, then their heavier arcs are relaxed once, also in
+ * parallel. A small delta behaves like Dijkstra's algorithm, a large one like
+ * the Bellman-Ford algorithm.
+ * The algorithm is selected by the {@link
+ * fr.internetcartographier.model.internetgraph.InternetGraph} for graphs of at
+ * least a number of nodes, with a delta per weight metric.
+ */
+public class DeltaStepping {
+
+	/**
+	 * The number of nodes relaxed by a task of a parallel phase.
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	private final int minimumNodes;
+	private final Map<WeightMetric, Double> deltas;
+
+	/**
+	 * Constructs a {@code DeltaStepping} object.
+	 *
+	 * @param  minimumNodes             The number of nodes from which a graph is
+	 *                                  searched with delta-stepping.
+	 * @param  deltas                   The width of the buckets for each weight
+	 *                                  metric. The mean weight of the arcs is used
+	 *                                  for the missing weight metrics.
+	 * @throws IllegalArgumentException If a width is not positive.
+	 */
+	public DeltaStepping(int minimumNodes, Map<WeightMetric, Double> deltas) {
+		for (Map.Entry<WeightMetric, Double> delta : deltas.entrySet()) {
+			if (!(delta.getValue() > 0)) {
+				throw new IllegalArgumentException("Error: The delta of " + delta.getKey() + " must be positive!");
+			}
+		}
+
+		this.minimumNodes = minimumNodes;
+		this.deltas = new EnumMap<>(WeightMetric.class);
+		this.deltas.putAll(deltas);
+	}
+
+	/**
+	 * Checks if a graph is large enough to be searched with delta-stepping.
+	 *
+	 * @param  graph The snapshot of the Internet graph.
+	 * @return       {@code true} if the graph has at least the minimum number of
+	 *               nodes, {@code false} otherwise.
+	 */
+	public boolean isSuitedFor(GraphSnapshot graph) {
+		return graph.getNumberNodes() >= minimumNodes;
+	}
+
+	/**
+	 * Gets the width of the buckets for a weight metric.
+	 *
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The configured width, or the mean weight of the
+	 *                            arcs of the graph if none is configured.
+	 */
+	public double getDelta(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		Double delta = deltas.get(weightMetric);
+		if (delta != null) {
+			return delta;
+		}
+		return getMeanWeight(graph.getWeights(weightMetric, geolocationService));
+	}
+
+	/**
+	 * Calculates the minimum path and distances from source to all other nodes of
+	 * the graph, using delta-stepping with the width of the weight metric.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distances and predecessors of all nodes.
+	 */
+	public DijkstraResult getMinPath(int source, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		return getMinPath(source, graph, weightMetric, geolocationService,
+				getDelta(graph, weightMetric, geolocationService));
+	}
+
+	/**
+	 * Calculates the distances from source to all other nodes of the graph,
+	 * using delta-stepping with the width of the weight metric.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distances from the source, indexed by node
+	 *                            identifier ({@code Double.MAX_VALUE} if
+	 *                            unreachable).
+	 */
+	public double[] getDistances(int source, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		Search search = new Search(graph, graph.getWeights(weightMetric, geolocationService),
+				getDelta(graph, weightMetric, geolocationService), source);
+		search.run(-1);
+		return search.getDistances();
+	}
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph, using
+	 * delta-stepping with the width of the weight metric. The search stops as
+	 * soon as the bucket of the destination is settled.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  destination        The identifier of the destination node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The minimum path, or a path only containing the
+	 *                            source and the destination with a cost of
+	 *                            {@code Double.MAX_VALUE} if the destination is
+	 *                            unreachable.
+	 */
+	public IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		return getMinPath(source, destination, graph, weightMetric, geolocationService,
+				getDelta(graph, weightMetric, geolocationService));
+	}
+
+	/**
+	 * Calculates the minimum path and distances from source to all other nodes of
+	 * the graph, using delta-stepping.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @param  delta              The width of the buckets.
+	 * @return                    The distances and predecessors of all nodes.
+	 */
+	public static DijkstraResult getMinPath(int source, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService, double delta) {
+		Search search = new Search(graph, graph.getWeights(weightMetric, geolocationService), delta, source);
+		search.run(-1);
+
+		double[] distances = search.getDistances();
+		int[] predecessors = new int[distances.length];
+		IntStream.range(0, distances.length).parallel().forEach(id -> {
+			int arc = search.getPredecessorArc(id);
+			predecessors[id] = arc < 0 ? -1 : graph.getArcTarget(arc);
+		});
+
+		return new DijkstraResult(graph, source, distances, predecessors);
+	}
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph, using
+	 * delta-stepping. The search stops as soon as the bucket of the destination
+	 * is settled.
+	 *
+	 * @param  source                The identifier of the source node.
+	 * @param  destination           The identifier of the destination node.
+	 * @param  graph                 The snapshot of the Internet graph.
+	 * @param  weightMetric          The weight metric for calculating distances.
+	 * @param  geolocationService    The geolocation service class.
+	 * @param  delta                 The width of the buckets.
+	 * @return                       The minimum path, or a path only containing
+	 *                               the source and the destination with a cost of
+	 *                               {@code Double.MAX_VALUE} if the destination
+	 *                               is unreachable.
+	 * @throws IllegalStateException If the predecessors of the destination do not
+	 *                               lead back to the source.
+	 */
+	public static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService, double delta) {
+		if (source == destination) {
+			return new IdentifierPath(new int[] { source }, new double[0]);
+		}
+
+		double[] weights = graph.getWeights(weightMetric, geolocationService);
+		Search search = new Search(graph, weights, delta, source);
+		search.run(destination);
+
+		if (search.getDistance(destination) == Double.MAX_VALUE) {
+			return IdentifierPath.unreachable(source, destination);
+		}
+
+		// The predecessors are walked back from the destination
+		int length = 1;
+		for (int node = destination; node != source; ++length) {
+			int arc = search.getPredecessorArc(node);
+			if (arc < 0) {
+				throw new IllegalStateException("Error: The predecessors of the destination are broken!");
+			}
+			node = graph.getArcTarget(arc);
+		}
+
+		int[] nodes = new int[length];
+		double[] hopWeights = new double[length - 1];
+		int node = destination;
+		for (int index = length - 1; index > 0; index--) {
+			int arc = search.getPredecessorArc(node);
+			nodes[index] = node;
+			hopWeights[index - 1] = weights[arc];
+			node = graph.getArcTarget(arc);
+		}
+		nodes[0] = source;
+
+		return new IdentifierPath(nodes, hopWeights);
+	}
+
+	// Helper method to compute the mean of the finite weights, used as the default width of the buckets.
+	private static double getMeanWeight(double[] weights) {
+		double sum = 0;
+		int count = 0;
+		for (double weight : weights) {
+			if (weight < Double.MAX_VALUE) {
+				sum += weight;
+				++count;
+			}
+		}
+		return count == 0 || sum == 0 ? 1 : sum / count;
+	}
+
+	/**
+	 * The state of a delta-stepping search. The distances are updated
+	 * concurrently by the tasks of a phase, with compare-and-set operations on
+	 * their bits (the order of non-negative doubles is the order of their bits).
+	 * Each update also stamps the node with the number of its phase; the
+	 * predecessors are deduced at the end from the final distances and the
+	 * stamps, which keeps them consistent without synchronizing them with the
+	 * distances.
+	 */
+	private static class Search {
+
+		private final GraphSnapshot graph;
+		private final double[] weights;
+		private final double delta;
+		private final int source;
+
+		private final AtomicLongArray distances;
+		private final int[] stamps;
+		private final int[] frontierMarks;
+		private final int[] settledMarks;
+		private final TreeMap<Long, IntArrayList> buckets = new TreeMap<>();
+
+		private int phase;
+		private int round;
+
+		private Search(GraphSnapshot graph, double[] weights, double delta, int source) {
+			this.graph = graph;
+			this.weights = weights;
+			this.delta = delta;
+			this.source = source;
+
+			int bound = graph.getNodeIdBound();
+			distances = new AtomicLongArray(bound);
+			stamps = new int[bound];
+			frontierMarks = new int[bound];
+			settledMarks = new int[bound];
+
+			long infinity = Double.doubleToRawLongBits(Double.MAX_VALUE);
+			for (int id = 0; id < bound; id++) {
+				distances.set(id, infinity);
+			}
+			distances.set(source, Double.doubleToRawLongBits(0.0));
+			addToBucket(source);
+		}
+
+		// Settles the buckets in order, until the one of the destination if any (-1 for all the nodes).
+		private void run(int destination) {
+			while (!buckets.isEmpty()) {
+				Map.Entry<Long, IntArrayList> entry = buckets.pollFirstEntry();
+				long bucket = entry.getKey();
+
+				if (destination >= 0 && getDistance(destination) < Double.MAX_VALUE
+						&& bucket > getBucket(getDistance(destination))) {
+					return;
+				}
+
+				++round;
+				IntArrayList settled = new IntArrayList();
+				IntArrayList frontier = new IntArrayList();
+				for (int index = 0; index < entry.getValue().size(); index++) {
+					addToFrontier(entry.getValue().get(index), bucket, frontier);
+				}
+
+				while (!frontier.isEmpty()) {
+					for (int index = 0; index < frontier.size(); index++) {
+						int node = frontier.get(index);
+						if (settledMarks[node] != round) {
+							settledMarks[node] = round;
+							settled.add(node);
+						}
+					}
+
+					IntArrayList[] improved = relax(frontier.toArray(), true);
+					frontier = new IntArrayList();
+					for (IntArrayList nodes : improved) {
+						for (int index = 0; index < nodes.size(); index++) {
+							int node = nodes.get(index);
+							if (getBucket(getDistance(node)) == bucket) {
+								addToFrontier(node, bucket, frontier);
+							} else {
+								addToBucket(node);
+							}
+						}
+					}
+				}
+
+				for (IntArrayList nodes : relax(settled.toArray(), false)) {
+					for (int index = 0; index < nodes.size(); index++) {
+						addToBucket(nodes.get(index));
+					}
+				}
+			}
+		}
+
+		// Relaxes the light or heavy arcs of nodes in a parallel phase, and returns the improved nodes of each task.
+		private IntArrayList[] relax(int[] nodes, boolean light) {
+			int stamp = ++phase;
+			double[] nodeDistances = new double[nodes.length];
+			for (int index = 0; index < nodes.length; index++) {
+				nodeDistances[index] = getDistance(nodes[index]);
+			}
+
+			int chunks = (nodes.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			IntArrayList[] improved = new IntArrayList[chunks];
+			IntStream stream = IntStream.range(0, chunks);
+
+			(chunks > 1 ? stream.parallel() : stream).forEach(chunk -> {
+				IntArrayList improvedNodes = new IntArrayList();
+				for (int index = chunk * CHUNK_SIZE; index < Math.min(nodes.length,
+						(chunk + 1) * CHUNK_SIZE); index++) {
+					int node = nodes[index];
+					for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+						if ((weights[arc] <= delta) == light
+								&& decrease(graph.getArcTarget(arc), nodeDistances[index] + weights[arc], stamp)) {
+							improvedNodes.add(graph.getArcTarget(arc));
+						}
+					}
+				}
+				improved[chunk] = improvedNodes;
+			});
+
+			return improved;
+		}
+
+		// Lowers the distance of a node if the new one is shorter.
+		private boolean decrease(int node, double distance, int stamp) {
+			long current = distances.get(node);
+			while (distance < Double.longBitsToDouble(current)) {
+				if (distances.compareAndSet(node, current, Double.doubleToRawLongBits(distance))) {
+					stamps[node] = stamp;
+					return true;
+				}
+				current = distances.get(node);
+			}
+			return false;
+		}
+
+		// Adds a node of the current bucket to the next phase, once.
+		private void addToFrontier(int node, long bucket, IntArrayList frontier) {
+			if (frontierMarks[node] != phase + 1 && getBucket(getDistance(node)) == bucket) {
+				frontierMarks[node] = phase + 1;
+				frontier.add(node);
+			}
+		}
+
+		// Adds a node to the bucket of its distance (stale entries are skipped when the bucket is settled).
+		private void addToBucket(int node) {
+			buckets.computeIfAbsent(getBucket(getDistance(node)), bucket -> new IntArrayList()).add(node);
+		}
+
+		private long getBucket(double distance) {
+			return (long) (distance / delta);
+		}
+
+		private double getDistance(int node) {
+			return Double.longBitsToDouble(distances.get(node));
+		}
+
+		private double[] getDistances() {
+			double[] result = new double[distances.length()];
+			for (int id = 0; id < result.length; id++) {
+				result[id] = getDistance(id);
+			}
+			return result;
+		}
+
+		/*
+		 * Gets the arc from a node to its predecessor: a neighbor whose final
+		 * distance was set in an earlier phase and leads to the node's distance.
+		 * The last update of a node comes from a neighbor that already had its
+		 * final distance, so such a neighbor exists, and the decreasing stamps
+		 * along the predecessors prevent cycles, even with arcs of weight 0.
+		 */
+		private int getPredecessorArc(int node) {
+			double distance = getDistance(node);
+			if (node == source || distance == Double.MAX_VALUE) {
+				return -1;
+			}
+			for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+				int neighbor = graph.getArcTarget(arc);
+				if (stamps[neighbor] < stamps[node] && getDistance(neighbor) + weights[arc] == distance) {
+					return arc;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+}
@@ -2,9 +2,17 @@ package fr.internetcartographier.util.shortestpath;
 
 import fr.internetcartographier.model.WeightMetric;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
-import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import fr.internetcartographier.util.collection.IntArrayList;
+import fr.internetcartographier.util.path.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,36 +25,109 @@ import java.util.Map;
  */
 public class Dijkstra {
 
+	private static final ThreadLocal<Frontier[]> FRONTIERS = ThreadLocal
+			.withInitial(() -> new Frontier[] { new Frontier(), new Frontier() });
+
 	/**
 	 * Result of Dijkstra's algorithm, containing distances and predecessors.
+	 * Both are stored in primitive arrays indexed by node identifier.
 	 */
 	// TODO Could be a record, also don't understand why we work with an inner static class (or why we dont also do that for BSF)
 	public static class DijkstraResult {
-		
-		private final Map<String, Double> distances;
-		private final Map<String, String> predecessors;
+
+		private final GraphSnapshot graph;
+		private final int source;
+		private final double[] distances;
+		private final int[] predecessors;
 
 		/**
 		 * Constructs a DijkstraResult with the provided distances and predecessors.
 		 * Serve to profit the result of Dijkstra algorithme to feed the cache.
 		 *
-		 * @param distances    Map of node IP addresses to their distances from the
-		 *                     source.
-		 * @param predecessors Map of node IP addresses to their predecessors in the
-		 *                     minimum path.
+		 * @param graph        The snapshot of the graph the algorithm ran on.
+		 * @param source       The identifier of the source node.
+		 * @param distances    Distances from the source, indexed by node identifier
+		 *                     ({@code Double.MAX_VALUE} if unreachable).
+		 * @param predecessors Predecessors in the minimum path, indexed by node
+		 *                     identifier ({@code -1} for the source and unreachable
+		 *                     nodes).
 		 */
-		public DijkstraResult(Map<String, Double> distances, Map<String, String> predecessors) {
+		public DijkstraResult(GraphSnapshot graph, int source, double[] distances, int[] predecessors) {
+			this.graph = graph;
+			this.source = source;
 			this.distances = distances;
 			this.predecessors = predecessors;
 		}
 
+		/**
+		 * Gets the identifier of the source node.
+		 *
+		 * @return The identifier of the source node.
+		 */
+		public int getSource() {
+			return source;
+		}
+
+		/**
+		 * Gets the distance from the source to a node.
+		 *
+		 * @param  id The identifier of the node.
+		 * @return    The distance, or {@code Double.MAX_VALUE} if unreachable.
+		 */
+		public double getDistance(int id) {
+			return distances[id];
+		}
+
+		/**
+		 * Gets the predecessor of a node in the minimum path from the source.
+		 *
+		 * @param  id The identifier of the node.
+		 * @return    The identifier of the predecessor, or {@code -1} if none.
+		 */
+		public int getPredecessor(int id) {
+			return predecessors[id];
+		}
+
+		/**
+		 * Gets the minimum path from the source to a node. If the node is
+		 * unreachable, the path only contains the source and the node, with a cost
+		 * of {@code Double.MAX_VALUE}.
+		 *
+		 * @param  id The identifier of the destination node.
+		 * @return    The minimum path.
+		 */
+		public Path<String> getPath(int id) {
+			List<String> listPath = new LinkedList<>();
+			int crawl = id;
+			listPath.add(graph.getNode(crawl).getStringIpAddress());
+
+			if (predecessors[crawl] < 0) {
+				listPath.add(graph.getNode(source).getStringIpAddress());
+			} else {
+				while (predecessors[crawl] >= 0) {
+					crawl = predecessors[crawl];
+					listPath.add(graph.getNode(crawl).getStringIpAddress());
+				}
+			}
+			Collections.reverse(listPath);
+
+			return new Path<>(listPath, distances[id]);
+		}
+
 		/**
 		 * Gets the map of node IP addresses to their distances from the source.
 		 *
 		 * @return Map of distances.
 		 */
 		public Map<String, Double> getDistances() {
-			return distances;
+			Map<String, Double> distancesByIpAddress = new HashMap<>();
+			for (int id = 0; id < distances.length; id++) {
+				Node node = graph.getNode(id);
+				if (node != null) {
+					distancesByIpAddress.put(node.getStringIpAddress(), distances[id]);
+				}
+			}
+			return distancesByIpAddress;
 		}
 
 		/**
@@ -55,61 +136,267 @@ public class Dijkstra {
 		 * @return Map of predecessors.
 		 */
 		public Map<String, String> getPredecessors() {
-			return predecessors;
+			Map<String, String> predecessorsByIpAddress = new HashMap<>();
+			for (int id = 0; id < predecessors.length; id++) {
+				Node node = graph.getNode(id);
+				if (node != null) {
+					predecessorsByIpAddress.put(node.getStringIpAddress(),
+							predecessors[id] < 0 ? "" : graph.getNode(predecessors[id]).getStringIpAddress());
+				}
+			}
+			return predecessorsByIpAddress;
 		}
-		
+
 	}
 
 	/**
 	 * Calculates the minimum path and distances from source to all other nodes of
 	 * the graph, using Dijkstra's algorithm.
+	 *
+	 * @param  source             The IP address of the source node.
+	 * @param  graph              The Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distances and predecessors of all nodes.
+	 */
+	public static DijkstraResult getMinPath(String source, InternetGraph graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		GraphSnapshot snapshot = graph.snapshot();
+		int sourceId = snapshot.getNodeId(source);
+
+		if (sourceId < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		return getMinPath(sourceId, snapshot, weightMetric, geolocationService);
+	}
+
+	/**
+	 * Calculates the minimum path and distances from source to all other nodes of
+	 * the graph, using Dijkstra's algorithm. The next node to settle is taken from
+	 * an indexed d-ary heap (see {@link IndexedDoubleHeap}) and only the arcs of
+	 * the settled nodes are relaxed, so this runs in O((V + E) log V).
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distances and predecessors of all nodes.
 	 */
-	private static String minimumDistance(Map<String, Double> distances, Map<String, Boolean> spSet) {
-		double m = Double.MAX_VALUE;
-		String m_key = null;
-
-		for (String ipAddress : distances.keySet()) {
-			if (!spSet.get(ipAddress) && distances.get(ipAddress) <= m) {
-				m = distances.get(ipAddress);
-				m_key = ipAddress;
+	public static DijkstraResult getMinPath(int source, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		int bound = graph.getNodeIdBound();
+		double[] weights = graph.getWeights(weightMetric, geolocationService);
+		double[] distances = new double[bound];
+		int[] predecessors = new int[bound];
+		boolean[] spSet = new boolean[bound];
+		IndexedDoubleHeap heap = new IndexedDoubleHeap(bound);
+
+		Arrays.fill(distances, Double.MAX_VALUE);
+		Arrays.fill(predecessors, -1);
+
+		distances[source] = 0.0;
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int ux = heap.poll();
+
+			spSet[ux] = true;
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+
+				if (spSet[vx]) {
+					continue;
+				}
+
+				double distance = distances[ux] + weights[arc];
+
+				if (distance < distances[vx]) {
+					distances[vx] = distance;
+					predecessors[vx] = ux;
+					heap.insertOrDecrease(vx, distance);
+				}
 			}
 		}
-		
-		return m_key;
+
+		return new DijkstraResult(graph, source, distances, predecessors);
 	}
 
-	public static DijkstraResult getMinPath(String source, InternetGraph graph, WeightMetric weightMetric,
+	/**
+	 * Calculates the distances from source to all other nodes of the graph, using
+	 * Dijkstra's algorithm.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The distances from the source, indexed by node
+	 *                            identifier ({@code Double.MAX_VALUE} if
+	 *                            unreachable).
+	 */
+	public static double[] getDistances(int source, GraphSnapshot graph, WeightMetric weightMetric,
 			Class<? extends GeolocationService> geolocationService) {
-		Map<String, Double> distances = new HashMap<>();
-		Map<String, String> predecessors = new HashMap<>();
-		Map<String, Boolean> spSet = new HashMap<>();
-
-		for (String ipAddress : graph.getAdjacencyList().keySet()) {
-			distances.put(ipAddress, Double.MAX_VALUE);
-			predecessors.put(ipAddress, "");
-			spSet.put(ipAddress, false);
-		}
-
-		distances.replace(source, 0.0);
-
-		for (int cnt = 0; cnt < graph.getAdjacencyList().keySet().size() - 1; cnt++) {
-			String ux = minimumDistance(distances, spSet);
-			spSet.replace(ux, true);
-			
-			for (String vx : graph.getAdjacencyList().keySet()) {
-				// TODO Split this in small boolean with meaningful names, its unreadable
-				if (!spSet.get(vx) && graph.getEdge(new IPAddress(ux), new IPAddress(vx)).isPresent()
-						&& distances.get(ux) != Double.MAX_VALUE
-						&& distances.get(ux) + graph.getEdge(new IPAddress(ux), new IPAddress(vx)).get()
-								.getWeight(weightMetric, geolocationService) < distances.get(vx)) {
-					distances.replace(vx, distances.get(ux) + graph.getEdge(new IPAddress(ux), new IPAddress(vx)).get()
-							.getWeight(weightMetric, geolocationService));
-					predecessors.replace(vx, ux);
+		return getMinPath(source, graph, weightMetric, geolocationService).distances;
+	}
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph, using a
+	 * bidirectional Dijkstra's algorithm: a search from the source and a search
+	 * from the destination are run alternately (the graph is undirected), and
+	 * stop as soon as no path through the unsettled nodes can be shorter than the
+	 * best path found where the two searches meet. Only the nodes around the
+	 * source and the destination are explored, instead of the whole graph.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  destination        The identifier of the destination node.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The minimum path, or a path only containing the
+	 *                            source and the destination with a cost of
+	 *                            {@code Double.MAX_VALUE} if the destination is
+	 *                            unreachable.
+	 */
+	public static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return getMinPath(source, destination, graph, graph.getWeights(weightMetric, geolocationService));
+	}
+
+	/**
+	 * Calculates the minimum path between two nodes of the graph for given arc
+	 * weights, using a bidirectional Dijkstra's algorithm.
+	 *
+	 * @param  source      The identifier of the source node.
+	 * @param  destination The identifier of the destination node.
+	 * @param  graph       The snapshot of the Internet graph.
+	 * @param  weights     The non-negative weights of the arcs of the graph.
+	 * @return             The minimum path, or a path only containing the source
+	 *                     and the destination with a cost of
+	 *                     {@code Double.MAX_VALUE} if the destination is
+	 *                     unreachable.
+	 */
+	static IdentifierPath getMinPath(int source, int destination, GraphSnapshot graph, double[] weights) {
+		if (source == destination) {
+			return new IdentifierPath(new int[] { source }, new double[0]);
+		}
+
+		Frontier[] frontiers = FRONTIERS.get();
+		Frontier forward = frontiers[0].reset(graph.getNodeIdBound(), source);
+		Frontier backward = frontiers[1].reset(graph.getNodeIdBound(), destination);
+		double best = Double.MAX_VALUE;
+		int meeting = -1;
+
+		while (!forward.heap.isEmpty() && !backward.heap.isEmpty()
+				&& forward.heap.peekKey() + backward.heap.peekKey() < best) {
+			Frontier frontier = forward.heap.size() <= backward.heap.size() ? forward : backward;
+			Frontier other = frontier == forward ? backward : forward;
+			int ux = frontier.heap.poll();
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+				double distance = frontier.distances[ux] + weights[arc];
+
+				if (distance < frontier.distances[vx]) {
+					frontier.touch(vx, distance, ux, arc);
+
+					if (other.distances[vx] < Double.MAX_VALUE && distance + other.distances[vx] < best) {
+						best = distance + other.distances[vx];
+						meeting = vx;
+					}
 				}
 			}
 		}
-		
-		return new DijkstraResult(distances, predecessors);
+
+		if (meeting < 0) {
+			return IdentifierPath.unreachable(source, destination);
+		}
+
+		return joinPaths(forward, backward, meeting, weights);
 	}
-	
+
+	// Joins the path from the source to the meeting node and the path from the meeting node to the destination.
+	private static IdentifierPath joinPaths(Frontier forward, Frontier backward, int meeting, double[] weights) {
+		int forwardLength = 0;
+		for (int crawl = meeting; crawl >= 0; crawl = forward.predecessors[crawl]) {
+			++forwardLength;
+		}
+		int length = forwardLength - 1;
+		for (int crawl = meeting; crawl >= 0; crawl = backward.predecessors[crawl]) {
+			++length;
+		}
+
+		int[] nodes = new int[length];
+		double[] hopWeights = new double[length - 1];
+
+		int index = forwardLength - 1;
+		for (int crawl = meeting; crawl >= 0; crawl = forward.predecessors[crawl], index--) {
+			nodes[index] = crawl;
+			if (index > 0) {
+				hopWeights[index - 1] = weights[forward.predecessorArcs[crawl]];
+			}
+		}
+		index = forwardLength - 1;
+		for (int crawl = meeting; crawl >= 0; crawl = backward.predecessors[crawl], index++) {
+			nodes[index] = crawl;
+			if (index < length - 1) {
+				hopWeights[index] = weights[backward.predecessorArcs[crawl]];
+			}
+		}
+
+		return new IdentifierPath(nodes, hopWeights);
+	}
+
+	/**
+	 * One of the two searches of a bidirectional Dijkstra's algorithm. The
+	 * buffers are kept by each thread and only the entries touched by the last
+	 * search are reset, so a query only costs the nodes it explores.
+	 */
+	private static class Frontier {
+
+		private double[] distances = new double[0];
+		private int[] predecessors = new int[0];
+		private int[] predecessorArcs = new int[0];
+		private final IndexedDoubleHeap heap = new IndexedDoubleHeap(0);
+		private final IntArrayList touched = new IntArrayList();
+
+		/**
+		 * Starts a new search from a node.
+		 *
+		 * @param  bound  The bound of the node identifiers of the graph.
+		 * @param  origin The identifier of the origin node.
+		 * @return        This search.
+		 */
+		private Frontier reset(int bound, int origin) {
+			for (int index = 0; index < touched.size(); index++) {
+				distances[touched.get(index)] = Double.MAX_VALUE;
+			}
+			touched.clear();
+			heap.clear();
+
+			if (bound > distances.length) {
+				distances = new double[bound];
+				predecessors = new int[bound];
+				predecessorArcs = new int[bound];
+				Arrays.fill(distances, Double.MAX_VALUE);
+				heap.ensureCapacity(bound);
+			}
+
+			touch(origin, 0.0, -1, -1);
+			return this;
+		}
+
+		// Sets a shorter distance to a node, reached from a predecessor through an arc.
+		private void touch(int node, double distance, int predecessor, int arc) {
+			if (distances[node] == Double.MAX_VALUE) {
+				touched.add(node);
+			}
+			distances[node] = distance;
+			predecessors[node] = predecessor;
+			predecessorArcs[node] = arc;
+			heap.insertOrDecrease(node, distance);
+		}
+
+	}
+
 }
@@ -0,0 +1,174 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Computes the distances from sources to all the nodes of a snapshot, reusing
+ * the same primitive buffers from one source to the next: a breadth-first
+ * search for {@link WeightMetric#CONSTANT}, Dijkstra's algorithm otherwise.
+ * A {@code DistanceSearch} is not thread-safe: {@link #forEachSource} gives one
+ * to each worker thread.
+ */
+public class DistanceSearch {
+
+	private final GraphSnapshot graph;
+	private final WeightMetric weightMetric;
+	private final double[] weights;
+	private final double[] distances;
+	private final int[] queue;
+	private final IndexedDoubleHeap heap;
+
+	/**
+	 * Constructs a {@code DistanceSearch} for a snapshot and a weight metric.
+	 *
+	 * @param graph              The snapshot of the Internet graph.
+	 * @param weightMetric       The weight metric for calculating distances.
+	 * @param geolocationService The geolocation service class.
+	 */
+	public DistanceSearch(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		this.graph = graph;
+		this.weightMetric = weightMetric;
+
+		int bound = graph.getNodeIdBound();
+		distances = new double[bound];
+		if (weightMetric == WeightMetric.CONSTANT) {
+			weights = null;
+			queue = new int[bound];
+			heap = null;
+		} else {
+			weights = graph.getWeights(weightMetric, geolocationService);
+			queue = null;
+			heap = new IndexedDoubleHeap(bound);
+		}
+	}
+
+	/**
+	 * Computes the distances from a source to all the nodes.
+	 *
+	 * @param  source The identifier of the source node.
+	 * @return        The distances from the source, indexed by node identifier
+	 *                ({@code Double.MAX_VALUE} if unreachable). The array is a
+	 *                buffer of this search, overwritten by the next call.
+	 */
+	public double[] getDistances(int source) {
+		Arrays.fill(distances, Double.MAX_VALUE);
+		distances[source] = 0;
+
+		if (weightMetric == WeightMetric.CONSTANT) {
+			runBreadthFirstSearch(source);
+		} else {
+			runDijkstra(source);
+		}
+
+		return distances;
+	}
+
+	/**
+	 * Computes the distances from several sources in parallel, in the common
+	 * {@link ForkJoinPool}. Each worker thread reuses its own buffers for all
+	 * the sources it handles, and the distances are handed to a consumer as soon
+	 * as they are computed instead of being kept.
+	 *
+	 * @param graph              The snapshot of the Internet graph.
+	 * @param sources            The identifiers of the source nodes.
+	 * @param weightMetric       The weight metric for calculating distances.
+	 * @param geolocationService The geolocation service class.
+	 * @param consumer           The consumer of the distances of each source
+	 *                           (see {@link #getDistances(int)}), called
+	 *                           concurrently by the worker threads. The array
+	 *                           is only valid during the call.
+	 */
+	public static void forEachSource(GraphSnapshot graph, int[] sources, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService, ObjIntConsumer<double[]> consumer) {
+		ThreadLocal<DistanceSearch> searches = ThreadLocal
+				.withInitial(() -> new DistanceSearch(graph, weightMetric, geolocationService));
+
+		ForkJoinPool.commonPool().invoke(new SourcesTask(sources, 0, sources.length, searches, consumer));
+	}
+
+	private void runBreadthFirstSearch(int source) {
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = source;
+
+		while (head < tail) {
+			int u = queue[head++];
+
+			for (int arc = graph.getFirstArc(u); arc < graph.getLastArc(u); arc++) {
+				int neighbor = graph.getArcTarget(arc);
+
+				if (distances[neighbor] == Double.MAX_VALUE) {
+					distances[neighbor] = distances[u] + 1;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+	}
+
+	private void runDijkstra(int source) {
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int ux = heap.poll();
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+				double distance = distances[ux] + weights[arc];
+
+				if (distance < distances[vx]) {
+					distances[vx] = distance;
+					heap.insertOrDecrease(vx, distance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The computation of the distances from a range of sources, split in halves
+	 * until a single source is left.
+	 */
+	private static class SourcesTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sources;
+		private final int from;
+		private final int to;
+		private final ThreadLocal<DistanceSearch> searches;
+		private final ObjIntConsumer<double[]> consumer;
+
+		private SourcesTask(int[] sources, int from, int to, ThreadLocal<DistanceSearch> searches,
+				ObjIntConsumer<double[]> consumer) {
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			this.searches = searches;
+			this.consumer = consumer;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				for (int index = from; index < to; index++) {
+					consumer.accept(searches.get().getDistances(sources[index]), sources[index]);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new SourcesTask(sources, from, middle, searches, consumer),
+					new SourcesTask(sources, middle, to, searches, consumer));
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.path.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimum path between two nodes found by a point-to-point search, expressed
+ * with node identifiers of a {@link GraphSnapshot}. Along with the nodes, it
+ * keeps the cost from the source to each node of the path, so that the sub
+ * paths (which are minimum paths too) can be derived without searching again.
+ */
+public class IdentifierPath {
+
+	private final int[] nodes;
+	private final double[] weights;
+	private final double[] costs;
+
+	/**
+	 * Constructs an {@code IdentifierPath}.
+	 *
+	 * @param nodes   The identifiers of the nodes of the path, from the source to
+	 *                the destination.
+	 * @param weights The weights of the hops of the path: {@code weights[i]} is
+	 *                the weight between {@code nodes[i]} and {@code nodes[i + 1]}.
+	 */
+	IdentifierPath(int[] nodes, double[] weights) {
+		this.nodes = nodes;
+		this.weights = weights;
+
+		costs = new double[nodes.length];
+		for (int index = 1; index < nodes.length; index++) {
+			costs[index] = costs[index - 1] + weights[index - 1];
+		}
+	}
+
+	/**
+	 * Constructs the path of a destination which is unreachable from the source:
+	 * it only contains the source and the destination, with a cost of
+	 * {@code Double.MAX_VALUE}.
+	 *
+	 * @param  source      The identifier of the source node.
+	 * @param  destination The identifier of the destination node.
+	 * @return             The unreachable path.
+	 */
+	static IdentifierPath unreachable(int source, int destination) {
+		return new IdentifierPath(new int[] { source, destination }, new double[] { Double.MAX_VALUE });
+	}
+
+	/**
+	 * Constructs a path by following the predecessors of a destination back to
+	 * the source.
+	 *
+	 * @param  destination     The identifier of the destination node.
+	 * @param  predecessors    The predecessors of the nodes, indexed by node
+	 *                         identifier ({@code -1} for the source).
+	 * @param  predecessorArcs The arcs from the predecessors to the nodes,
+	 *                         indexed by node identifier.
+	 * @param  weights         The weights of the arcs.
+	 * @return                 The path from the source to the destination.
+	 */
+	static IdentifierPath fromPredecessors(int destination, int[] predecessors, int[] predecessorArcs,
+			double[] weights) {
+		int length = 0;
+		for (int crawl = destination; crawl >= 0; crawl = predecessors[crawl]) {
+			++length;
+		}
+
+		int[] nodes = new int[length];
+		double[] hopWeights = new double[length - 1];
+		int index = length - 1;
+		for (int crawl = destination; crawl >= 0; crawl = predecessors[crawl], index--) {
+			nodes[index] = crawl;
+			if (index > 0) {
+				hopWeights[index - 1] = weights[predecessorArcs[crawl]];
+			}
+		}
+
+		return new IdentifierPath(nodes, hopWeights);
+	}
+
+	/**
+	 * Gets the number of nodes of the path.
+	 *
+	 * @return The number of nodes.
+	 */
+	public int getLength() {
+		return nodes.length;
+	}
+
+	/**
+	 * Gets a node of the path.
+	 *
+	 * @param  index The index of the node in the path.
+	 * @return       The identifier of the node.
+	 */
+	public int getNode(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * Gets the cost from the source to a node of the path.
+	 *
+	 * @param  index The index of the node in the path.
+	 * @return       The cost from the source to the node.
+	 */
+	public double getCost(int index) {
+		return costs[index];
+	}
+
+	/**
+	 * Gets the cost of the path.
+	 *
+	 * @return The cost, or {@code Double.MAX_VALUE} if the destination is
+	 *         unreachable.
+	 */
+	public double getCost() {
+		return costs[costs.length - 1];
+	}
+
+	/**
+	 * Checks if the destination is reachable from the source.
+	 *
+	 * @return {@code true} if the destination is reachable, {@code false}
+	 *         otherwise.
+	 */
+	public boolean isReachable() {
+		return getCost() < Double.MAX_VALUE;
+	}
+
+	/**
+	 * Converts the path to a path of IP addresses.
+	 *
+	 * @param  graph The snapshot the path was found in.
+	 * @return       The path of IP addresses.
+	 */
+	public Path<String> toPath(GraphSnapshot graph) {
+		return new Path<>(getIpAddresses(graph, 0, nodes.length), getCost());
+	}
+
+	/**
+	 * Gets the paths from the source to each node of the path, and from each node
+	 * of the path to the destination. Sub paths of a minimum path are minimum
+	 * paths too, so they can all be cached after a single search.
+	 *
+	 * @param  graph The snapshot the path was found in.
+	 * @return       The sub paths (including the path itself), or only the path
+	 *               itself if the destination is unreachable.
+	 */
+	public List<Path<String>> getSubPaths(GraphSnapshot graph) {
+		List<Path<String>> subPaths = new ArrayList<>();
+
+		if (!isReachable()) {
+			subPaths.add(toPath(graph));
+			return subPaths;
+		}
+
+		for (int end = 2; end <= nodes.length; end++) {
+			subPaths.add(new Path<>(getIpAddresses(graph, 0, end), costs[end - 1]));
+		}
+
+		// Suffix costs are summed from the destination, as a search from it would
+		double suffixCost = 0;
+		for (int start = nodes.length - 2; start > 0; start--) {
+			suffixCost += weights[start];
+			subPaths.add(new Path<>(getIpAddresses(graph, start, nodes.length), suffixCost));
+		}
+
+		return subPaths;
+	}
+
+	// Helper method to get the IP addresses of the nodes in [start, end).
+	private List<String> getIpAddresses(GraphSnapshot graph, int start, int end) {
+		List<String> ipAddresses = new ArrayList<>(end - start);
+		for (int index = start; index < end; index++) {
+			ipAddresses.add(graph.getNode(nodes[index]).getStringIpAddress());
+		}
+		return ipAddresses;
+	}
+
+}
@@ -0,0 +1,265 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import fr.internetcartographier.util.collection.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Yen's algorithm for finding the k shortest loopless paths between two nodes,
+ * e.g. the backup routes between two routers. Each new path deviates from a
+ * previous one at a spur node: the nodes before it and the arcs already taken
+ * after the same prefix are blocked, and the rest of the path is searched
+ * from the spur node.
+ * The spur searches are A* searches guided by the exact distances to the
+ * destination in the whole graph, computed once: blocking nodes and arcs only
+ * lengthens paths, so these distances stay a consistent lower bound, and a spur
+ * search whose tree path is not blocked goes straight along it. The spur nodes
+ * of a path start where it deviated from its parent (Lawler's refinement),
+ * since the earlier ones were already tried for the parent, and the buffers of
+ * the searches are shared by all of them.
+ */
+public class KShortestPaths {
+
+	/**
+	 * Calculates the k shortest loopless paths between two nodes of the graph.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  destination        The identifier of the destination node.
+	 * @param  k                  The maximum number of paths.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The paths by increasing cost (paths with the
+	 *                            same cost by increasing length), fewer than k if
+	 *                            there are not enough of them, and none if the
+	 *                            destination is unreachable.
+	 */
+	public static List<IdentifierPath> getMinPaths(int source, int destination, int k, GraphSnapshot graph,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		List<IdentifierPath> paths = new ArrayList<>();
+		if (k <= 0) {
+			return paths;
+		}
+		if (source == destination) {
+			paths.add(new IdentifierPath(new int[] { source }, new double[0]));
+			return paths;
+		}
+
+		double[] weights = graph.getWeights(weightMetric, geolocationService);
+		SpurSearch spurSearch = new SpurSearch(graph, weights,
+				Dijkstra.getDistances(destination, graph, weightMetric, geolocationService), destination);
+		spurSearch.block(new int[] { source }, 0, List.of());
+		Candidate first = spurSearch.search(source, new int[] { source }, new double[0], 0);
+		if (first == null) {
+			return paths;
+		}
+
+		List<Candidate> accepted = new ArrayList<>();
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+				Comparator.comparingDouble((Candidate candidate) -> candidate.cost)
+						.thenComparingInt(candidate -> candidate.nodes.length));
+		Set<String> known = new HashSet<>();
+
+		accepted.add(first);
+		known.add(Arrays.toString(first.nodes));
+
+		while (accepted.size() < k) {
+			Candidate last = accepted.get(accepted.size() - 1);
+
+			for (int spur = last.deviation; spur < last.nodes.length - 1; spur++) {
+				spurSearch.block(last.nodes, spur, accepted);
+
+				Candidate candidate = spurSearch.search(last.nodes[spur], last.nodes, last.weights, spur);
+				if (candidate != null && known.add(Arrays.toString(candidate.nodes))) {
+					candidates.add(candidate);
+				}
+			}
+
+			if (candidates.isEmpty()) {
+				break;
+			}
+			accepted.add(candidates.poll());
+		}
+
+		for (Candidate candidate : accepted) {
+			paths.add(new IdentifierPath(candidate.nodes, candidate.weights));
+		}
+		return paths;
+	}
+
+	/**
+	 * A path found by the algorithm, with the index of its spur node.
+	 */
+	private static class Candidate {
+
+		private final int[] nodes;
+		private final double[] weights;
+		private final double cost;
+		private final int deviation;
+
+		private Candidate(int[] nodes, double[] weights, int deviation) {
+			this.nodes = nodes;
+			this.weights = weights;
+			this.deviation = deviation;
+
+			double sum = 0;
+			for (double weight : weights) {
+				sum += weight;
+			}
+			cost = sum;
+		}
+
+	}
+
+	/**
+	 * The A* searches from the spur nodes to the destination. The buffers are
+	 * allocated once, and only the entries touched by a search are reset.
+	 */
+	private static class SpurSearch {
+
+		private final GraphSnapshot graph;
+		private final double[] weights;
+		private final double[] lowerBounds;
+		private final int destination;
+
+		private final double[] distances;
+		private final int[] predecessors;
+		private final int[] predecessorArcs;
+		private final int[] blockedNodes;
+		private final IndexedDoubleHeap heap;
+		private final IntArrayList touched = new IntArrayList();
+		private final IntArrayList blockedNeighbors = new IntArrayList();
+		private int stamp;
+
+		private SpurSearch(GraphSnapshot graph, double[] weights, double[] lowerBounds, int destination) {
+			this.graph = graph;
+			this.weights = weights;
+			this.lowerBounds = lowerBounds;
+			this.destination = destination;
+
+			int bound = graph.getNodeIdBound();
+			distances = new double[bound];
+			predecessors = new int[bound];
+			predecessorArcs = new int[bound];
+			blockedNodes = new int[bound];
+			heap = new IndexedDoubleHeap(bound);
+
+			Arrays.fill(distances, Double.MAX_VALUE);
+		}
+
+		/**
+		 * Blocks the nodes of a path before a spur node, and the arcs from the spur
+		 * node taken by the accepted paths sharing the same prefix.
+		 */
+		private void block(int[] nodes, int spur, List<Candidate> accepted) {
+			++stamp;
+			for (int index = 0; index < spur; index++) {
+				blockedNodes[nodes[index]] = stamp;
+			}
+
+			blockedNeighbors.clear();
+			for (Candidate candidate : accepted) {
+				if (candidate.nodes.length > spur + 1
+						&& Arrays.equals(candidate.nodes, 0, spur + 1, nodes, 0, spur + 1)) {
+					blockedNeighbors.add(candidate.nodes[spur + 1]);
+				}
+			}
+		}
+
+		/**
+		 * Searches the rest of a path from a spur node, avoiding the blocked nodes
+		 * and arcs.
+		 *
+		 * @return The path made of the prefix of the root path and the spur path,
+		 *         or {@code null} if the destination cannot be reached.
+		 */
+		private Candidate search(int spurNode, int[] rootNodes, double[] rootWeights, int spur) {
+			boolean found = false;
+
+			distances[spurNode] = 0;
+			touched.add(spurNode);
+			heap.insertOrDecrease(spurNode, lowerBounds[spurNode]);
+
+			while (!heap.isEmpty()) {
+				int ux = heap.poll();
+
+				if (ux == destination) {
+					found = true;
+					break;
+				}
+
+				for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+					int vx = graph.getArcTarget(arc);
+
+					if (blockedNodes[vx] == stamp || lowerBounds[vx] == Double.MAX_VALUE
+							|| ux == spurNode && isBlockedNeighbor(vx)) {
+						continue;
+					}
+
+					double distance = distances[ux] + weights[arc];
+
+					if (distance < distances[vx]) {
+						if (distances[vx] == Double.MAX_VALUE) {
+							touched.add(vx);
+						}
+						distances[vx] = distance;
+						predecessors[vx] = ux;
+						predecessorArcs[vx] = arc;
+						heap.insertOrDecrease(vx, distance + lowerBounds[vx]);
+					}
+				}
+			}
+
+			Candidate candidate = found ? join(spurNode, rootNodes, rootWeights, spur) : null;
+			reset();
+			return candidate;
+		}
+
+		private boolean isBlockedNeighbor(int node) {
+			for (int index = 0; index < blockedNeighbors.size(); index++) {
+				if (blockedNeighbors.get(index) == node) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// Joins the prefix of the root path up to the spur node and the spur path found.
+		private Candidate join(int spurNode, int[] rootNodes, double[] rootWeights, int spur) {
+			int spurLength = 1;
+			for (int crawl = destination; crawl != spurNode; crawl = predecessors[crawl]) {
+				++spurLength;
+			}
+
+			int[] nodes = Arrays.copyOf(rootNodes, spur + spurLength);
+			double[] hopWeights = Arrays.copyOf(rootWeights, spur + spurLength - 1);
+			int crawl = destination;
+			for (int index = nodes.length - 1; index > spur; index--) {
+				nodes[index] = crawl;
+				hopWeights[index - 1] = weights[predecessorArcs[crawl]];
+				crawl = predecessors[crawl];
+			}
+
+			return new Candidate(nodes, hopWeights, spur);
+		}
+
+		private void reset() {
+			for (int index = 0; index < touched.size(); index++) {
+				distances[touched.get(index)] = Double.MAX_VALUE;
+			}
+			touched.clear();
+			heap.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code LandmarkIndex} class keeps the {@link Landmarks} of an Internet
+ * graph up to date, for each weight metric (and geolocation service, for
+ * {@link WeightMetric#DISTANCE}) paths are searched with.
+ * Landmarks computed from an older version of the graph are still valid while
+ * nodes and edges were only removed since (see
+ * {@link GraphSnapshot#getShorteningVersion()}), as removals only make the
+ * distances longer. Otherwise their lower bounds may exceed the real distances
+ * of the snapshot, so they are not returned and searches fall back to another
+ * algorithm until they are rebuilt.
+ * Landmarks are built in the background: when they are asked for a snapshot
+ * and are missing, are not valid for it, or were computed from a version of
+ * the graph older than the snapshot by at least the rebuild threshold (as the
+ * removals make their lower bounds looser), a rebuild is scheduled on the
+ * snapshot. At most one rebuild runs at a time for each weight metric, so a
+ * graph modified continuously does not queue rebuilds.
+ */
+public class LandmarkIndex {
+
+	/**
+	 * The default number of landmarks.
+	 */
+	public static final int DEFAULT_NUMBER_LANDMARKS = 8;
+
+	/**
+	 * The default number of versions of the graph after which the landmarks are
+	 * rebuilt while they are still valid.
+	 */
+	public static final long DEFAULT_REBUILD_THRESHOLD = 256;
+
+	private final String origin;
+	private final int numberLandmarks;
+	private final long rebuildThreshold;
+	private final Executor executor;
+
+	/**
+	 * The latest landmarks, keyed by weight metric (see {@link #getKey}).
+	 */
+	private final Map<String, Landmarks> landmarks;
+
+	/**
+	 * The keys of the landmarks being rebuilt.
+	 */
+	private final Set<String> rebuilding;
+
+	/**
+	 * Constructs a {@code LandmarkIndex} rebuilding the landmarks on a daemon
+	 * thread.
+	 *
+	 * @param origin           The IP address of the node to start the selection
+	 *                         of the landmarks from.
+	 * @param numberLandmarks  The number of landmarks.
+	 * @param rebuildThreshold The number of versions of the graph after which the
+	 *                         landmarks are rebuilt while they are still valid.
+	 */
+	public LandmarkIndex(String origin, int numberLandmarks, long rebuildThreshold) {
+		this(origin, numberLandmarks, rebuildThreshold, Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "landmarks");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	/**
+	 * Constructs a {@code LandmarkIndex}.
+	 *
+	 * @param  origin                   The IP address of the node to start the
+	 *                                  selection of the landmarks from.
+	 * @param  numberLandmarks          The number of landmarks.
+	 * @param  rebuildThreshold         The number of versions of the graph after
+	 *                                  which the landmarks are rebuilt while they
+	 *                                  are still valid.
+	 * @param  executor                 The executor running the rebuilds.
+	 * @throws IllegalArgumentException If the number of landmarks or the rebuild
+	 *                                  threshold is not positive.
+	 */
+	public LandmarkIndex(String origin, int numberLandmarks, long rebuildThreshold, Executor executor) {
+		if (numberLandmarks <= 0) {
+			throw new IllegalArgumentException("Error: The number of landmarks must be positive!");
+		}
+		if (rebuildThreshold <= 0) {
+			throw new IllegalArgumentException("Error: The rebuild threshold must be positive!");
+		}
+
+		this.origin = origin;
+		this.numberLandmarks = numberLandmarks;
+		this.rebuildThreshold = rebuildThreshold;
+		this.executor = executor;
+
+		landmarks = new ConcurrentHashMap<>();
+		rebuilding = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * Gets the landmarks of a snapshot, and schedules a rebuild if they are
+	 * missing, not valid for the snapshot or too old.
+	 *
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    An optional containing the landmarks if they
+	 *                            are valid for the snapshot's version of the
+	 *                            graph, or empty otherwise.
+	 */
+	public Optional<Landmarks> getLandmarks(GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		String key = getKey(weightMetric, geolocationService);
+		Landmarks current = landmarks.get(key);
+
+		if ((!isValid(current, graph) || graph.getVersion() - current.getVersion() >= rebuildThreshold)
+				&& rebuilding.add(key)) {
+			executor.execute(() -> {
+				try {
+					rebuild(key, graph, weightMetric, geolocationService);
+				} finally {
+					rebuilding.remove(key);
+				}
+			});
+		}
+
+		current = landmarks.get(key);
+		return isValid(current, graph) ? Optional.of(current) : Optional.empty();
+	}
+
+	// Helper method to check that the lower bounds of landmarks hold for a snapshot.
+	private static boolean isValid(Landmarks landmarks, GraphSnapshot graph) {
+		return landmarks != null && landmarks.getVersion() <= graph.getVersion()
+				&& landmarks.getVersion() >= graph.getShorteningVersion();
+	}
+
+	// Helper method to build the landmarks of a snapshot, unless newer ones were built meanwhile.
+	private void rebuild(String key, GraphSnapshot graph, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		int originId = graph.getNodeId(origin);
+
+		for (int id = 0; originId < 0 && id < graph.getNodeIdBound(); id++) {
+			if (graph.getNode(id) != null) {
+				originId = id;
+			}
+		}
+
+		if (originId < 0) {
+			return;
+		}
+
+		Landmarks built = Landmarks.build(graph, originId, numberLandmarks, weightMetric, geolocationService);
+		landmarks.merge(key, built,
+				(previous, next) -> previous.getVersion() > next.getVersion() ? previous : next);
+	}
+
+	// Helper method to get the key of the landmarks of a weight metric: the
+	// geolocation service only changes the weights of the DISTANCE metric.
+	private static String getKey(WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return weightMetric == WeightMetric.DISTANCE
+				? weightMetric.name() + " " + geolocationService.getCanonicalName()
+				: weightMetric.name();
+	}
+
+}
@@ -0,0 +1,177 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.shortestpath.Dijkstra.DijkstraResult;
+import java.util.Arrays;
+
+/**
+ * The distance tables of a set of landmarks of an Internet graph, for one
+ * weight metric. For any landmark l, the triangle inequality gives
+ * {@code d(v, t) >= |d(l, t) - d(l, v)|} (the graph is undirected), so the
+ * tables give a lower bound of the distance between any two nodes, which
+ * {@link ALT} uses to guide its search.
+ * The tables are only valid for the snapshot they were computed from (see
+ * {@link #getVersion()}).
+ */
+public class Landmarks {
+
+	private final long version;
+	private final int[] landmarks;
+
+	/**
+	 * The distances from the landmarks, stored node by node:
+	 * {@code distances[node * landmarks.length + index]} is the distance between
+	 * the landmark {@code index} and the node, so that the distances of a node
+	 * are contiguous.
+	 */
+	private final double[] distances;
+
+	private Landmarks(long version, int[] landmarks, double[] distances) {
+		this.version = version;
+		this.landmarks = landmarks;
+		this.distances = distances;
+	}
+
+	/**
+	 * Selects landmarks and computes their distance tables. The landmarks are
+	 * selected farthest-first: the first one is the node farthest from the
+	 * origin, and each next one is the node farthest from the landmarks already
+	 * selected, so that they end up on the border of the graph where their lower
+	 * bounds are the tightest. Only the nodes reachable from the origin can be
+	 * selected, and fewer landmarks are selected if there are not enough of them.
+	 *
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  origin             The identifier of the node to start the
+	 *                            selection from.
+	 * @param  numberLandmarks    The number of landmarks to select.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The landmarks of the snapshot.
+	 */
+	public static Landmarks build(GraphSnapshot graph, int origin, int numberLandmarks, WeightMetric weightMetric,
+			Class<? extends GeolocationService> geolocationService) {
+		if (numberLandmarks <= 0) {
+			throw new IllegalArgumentException("Error: The number of landmarks must be positive!");
+		}
+
+		int bound = graph.getNodeIdBound();
+		int[] selected = new int[numberLandmarks];
+		double[][] tables = new double[numberLandmarks][];
+		double[] minDistances = getDistances(Dijkstra.getMinPath(origin, graph, weightMetric, geolocationService),
+				bound);
+		int count = 0;
+
+		while (count < numberLandmarks) {
+			int farthest = -1;
+
+			for (int node = 0; node < bound; node++) {
+				double distance = minDistances[node];
+				if (distance > 0 && distance < Double.MAX_VALUE
+						&& (farthest < 0 || distance > minDistances[farthest])) {
+					farthest = node;
+				}
+			}
+
+			if (farthest < 0) {
+				break;
+			}
+
+			double[] table = getDistances(Dijkstra.getMinPath(farthest, graph, weightMetric, geolocationService),
+					bound);
+			for (int node = 0; node < bound; node++) {
+				minDistances[node] = Math.min(minDistances[node], table[node]);
+			}
+
+			selected[count] = farthest;
+			tables[count++] = table;
+		}
+
+		double[] distances = new double[bound * count];
+		for (int index = 0; index < count; index++) {
+			for (int node = 0; node < bound; node++) {
+				distances[node * count + index] = tables[index][node];
+			}
+		}
+
+		return new Landmarks(graph.getVersion(), Arrays.copyOf(selected, count), distances);
+	}
+
+	/**
+	 * Gets the version of the snapshot the tables were computed from.
+	 *
+	 * @return The version of the snapshot.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the number of landmarks.
+	 *
+	 * @return The number of landmarks.
+	 */
+	public int size() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Gets a landmark.
+	 *
+	 * @param  index The index of the landmark.
+	 * @return       The identifier of the landmark node.
+	 */
+	public int getLandmark(int index) {
+		return landmarks[index];
+	}
+
+	/**
+	 * Gets the distance between a landmark and a node.
+	 *
+	 * @param  index The index of the landmark.
+	 * @param  node  The identifier of the node.
+	 * @return       The distance, or {@code Double.MAX_VALUE} if the node is
+	 *               unreachable from the landmark.
+	 */
+	public double getDistance(int index, int node) {
+		return distances[node * landmarks.length + index];
+	}
+
+	/**
+	 * Gets the lower bound of the distance between two nodes given by the
+	 * landmarks. Landmarks which cannot reach both nodes are ignored.
+	 *
+	 * @param  node        The identifier of the first node.
+	 * @param  destination The identifier of the second node.
+	 * @return             The lower bound, or 0 if no landmark can reach both
+	 *                     nodes.
+	 */
+	public double getLowerBound(int node, int destination) {
+		int numberLandmarks = landmarks.length;
+		int nodeOffset = node * numberLandmarks;
+		int destinationOffset = destination * numberLandmarks;
+		double lowerBound = 0;
+
+		for (int index = 0; index < numberLandmarks; index++) {
+			double nodeDistance = distances[nodeOffset + index];
+			double destinationDistance = distances[destinationOffset + index];
+
+			if (nodeDistance < Double.MAX_VALUE && destinationDistance < Double.MAX_VALUE) {
+				lowerBound = Math.max(lowerBound, Math.abs(destinationDistance - nodeDistance));
+			}
+		}
+
+		return lowerBound;
+	}
+
+	// Helper method to copy the distances of a result to an array indexed by node identifier.
+	private static double[] getDistances(DijkstraResult result, int bound) {
+		double[] distances = new double[bound];
+		for (int node = 0; node < bound; node++) {
+			distances[node] = result.getDistance(node);
+		}
+		return distances;
+	}
+
+}
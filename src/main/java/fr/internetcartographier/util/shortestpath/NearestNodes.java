@@ -0,0 +1,103 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.util.collection.IndexedDoubleHeap;
+import fr.internetcartographier.util.collection.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the nodes nearest to a source with Dijkstra's algorithm, stopping as
+ * soon as enough nodes are settled. The buffers of the search are kept by each
+ * thread and only the entries it touched are reset, so a query costs
+ * O(k log n) for the k nearest nodes of a sparse graph, whatever its size.
+ */
+public class NearestNodes {
+
+	private static final ThreadLocal<NearestNodes> SEARCHES = ThreadLocal.withInitial(NearestNodes::new);
+
+	private double[] distances = new double[0];
+	private final IndexedDoubleHeap heap = new IndexedDoubleHeap(0);
+	private final IntArrayList touched = new IntArrayList();
+
+	private NearestNodes() {
+	}
+
+	/**
+	 * Gets the nodes nearest to a source, the source excluded.
+	 *
+	 * @param  source             The identifier of the source node.
+	 * @param  k                  The number of nodes.
+	 * @param  graph              The snapshot of the Internet graph.
+	 * @param  weightMetric       The weight metric for calculating distances.
+	 * @param  geolocationService The geolocation service class.
+	 * @return                    The pairs of distance and node identifier of the
+	 *                            (at most) k nearest reachable nodes, by
+	 *                            increasing distance. Nodes at the same distance
+	 *                            are separate pairs, in the order they are
+	 *                            settled.
+	 */
+	public static List<Map.Entry<Double, Integer>> getNearest(int source, int k, GraphSnapshot graph,
+			WeightMetric weightMetric, Class<? extends GeolocationService> geolocationService) {
+		return SEARCHES.get().search(source, k, graph, graph.getWeights(weightMetric, geolocationService));
+	}
+
+	private List<Map.Entry<Double, Integer>> search(int source, int k, GraphSnapshot graph, double[] weights) {
+		List<Map.Entry<Double, Integer>> nearest = new ArrayList<>(Math.max(k, 0));
+
+		ensureCapacity(graph.getNodeIdBound());
+		touch(source, 0.0);
+
+		// A node is never improved once settled, the weights being non-negative
+		while (!heap.isEmpty() && nearest.size() < k) {
+			double distance = heap.peekKey();
+			int ux = heap.poll();
+
+			if (ux != source) {
+				nearest.add(Map.entry(distance, ux));
+			}
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+
+				if (distance + weights[arc] < distances[vx]) {
+					touch(vx, distance + weights[arc]);
+				}
+			}
+		}
+
+		reset();
+
+		return nearest;
+	}
+
+	private void touch(int node, double distance) {
+		if (distances[node] == Double.MAX_VALUE) {
+			touched.add(node);
+		}
+		distances[node] = distance;
+		heap.insertOrDecrease(node, distance);
+	}
+
+	// Resets the entries touched by the last search, instead of the whole buffers.
+	private void reset() {
+		for (int index = 0; index < touched.size(); index++) {
+			distances[touched.get(index)] = Double.MAX_VALUE;
+		}
+		touched.clear();
+		heap.clear();
+	}
+
+	private void ensureCapacity(int bound) {
+		if (bound > distances.length) {
+			distances = new double[bound];
+			Arrays.fill(distances, Double.MAX_VALUE);
+			heap.ensureCapacity(bound);
+		}
+	}
+
+}
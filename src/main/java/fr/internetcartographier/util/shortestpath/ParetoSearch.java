@@ -0,0 +1,234 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeolocationService;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Multi-criteria path search minimizing both the {@link WeightMetric#RESPONSE_TIME}
+ * and the {@link WeightMetric#DISTANCE} weight metrics.
+ * The Pareto frontier (the paths that no other path beats on both criteria) is
+ * found by a label-setting search: the labels (partial paths with their two
+ * costs) are settled by increasing response time plus the minimum response
+ * time left to the destination, as in A*, then by distance. At a node, labels
+ * are thus settled by lexicographic order of their costs, so a label is
+ * dominated at its node exactly when its distance is not below the smallest
+ * distance settled there, which makes the dominance tests constant-time. The
+ * paths to the destination are found early, and the labels which cannot beat
+ * them, even with the minimum remaining costs, are pruned. The number of
+ * labels settled per node can also be bounded.
+ * A weighted sum of the two criteria can also be minimized, for a single path
+ * of the frontier quickly.
+ */
+public class ParetoSearch {
+
+	/**
+	 * A path of the Pareto frontier, with its two costs.
+	 */
+	public static class ParetoPath {
+
+		private final List<String> elements;
+		private final double responseTime;
+		private final double distance;
+
+		private ParetoPath(List<String> elements, double responseTime, double distance) {
+			this.elements = elements;
+			this.responseTime = responseTime;
+			this.distance = distance;
+		}
+
+		/**
+		 * Gets the IP addresses of the nodes of the path.
+		 *
+		 * @return The IP addresses, from the source to the destination.
+		 */
+		public List<String> getElements() {
+			return elements;
+		}
+
+		/**
+		 * Gets the response time of the path.
+		 *
+		 * @return The sum of the response times of the edges.
+		 */
+		public double getResponseTime() {
+			return responseTime;
+		}
+
+		/**
+		 * Gets the distance of the path.
+		 *
+		 * @return The sum of the distances of the edges.
+		 */
+		public double getDistance() {
+			return distance;
+		}
+
+	}
+
+	/**
+	 * Calculates the Pareto frontier of the paths between two nodes of the graph
+	 * for the response time and the distance. Edges without distance (nodes
+	 * without geolocation data) are ignored.
+	 *
+	 * @param  source                   The identifier of the source node.
+	 * @param  destination              The identifier of the destination node.
+	 * @param  graph                    The snapshot of the Internet graph.
+	 * @param  geolocationService       The geolocation service class giving the
+	 *                                  distances.
+	 * @param  maxLabels                The maximum number of labels settled per
+	 *                                  node ({@code Integer.MAX_VALUE} for the
+	 *                                  exact frontier). With a smaller bound, the
+	 *                                  paths found are not dominated by each
+	 *                                  other, but some of the frontier may be
+	 *                                  missed.
+	 * @return                          The paths of the frontier by increasing
+	 *                                  response time (so by decreasing distance),
+	 *                                  none if the destination is unreachable.
+	 * @throws IllegalArgumentException If the maximum number of labels is not
+	 *                                  positive.
+	 */
+	public static List<ParetoPath> getParetoPaths(int source, int destination, GraphSnapshot graph,
+			Class<? extends GeolocationService> geolocationService, int maxLabels) {
+		if (maxLabels <= 0) {
+			throw new IllegalArgumentException("Error: The maximum number of labels must be positive!");
+		}
+
+		double[] responseTimes = graph.getWeights(WeightMetric.RESPONSE_TIME, geolocationService);
+		double[] distances = graph.getWeights(WeightMetric.DISTANCE, geolocationService);
+		double[] responseTimeBounds = Dijkstra.getDistances(destination, graph, WeightMetric.RESPONSE_TIME,
+				geolocationService);
+		double[] distanceBounds = Dijkstra.getDistances(destination, graph, WeightMetric.DISTANCE,
+				geolocationService);
+
+		int bound = graph.getNodeIdBound();
+		double[] minimumDistances = new double[bound];
+		int[] numberLabels = new int[bound];
+		// Ties of the estimates are broken by response time, which keeps the order of the labels at a node
+		PriorityQueue<Label> labels = new PriorityQueue<>(
+				Comparator.comparingDouble((Label label) -> label.responseTime + responseTimeBounds[label.node])
+						.thenComparingDouble(label -> label.responseTime)
+						.thenComparingDouble(label -> label.distance));
+		List<ParetoPath> paretoPaths = new ArrayList<>();
+
+		Arrays.fill(minimumDistances, Double.MAX_VALUE);
+		if (distanceBounds[source] < Double.MAX_VALUE && responseTimeBounds[source] < Double.MAX_VALUE) {
+			labels.add(new Label(source, 0, 0, null));
+		}
+
+		while (!labels.isEmpty()) {
+			Label label = labels.poll();
+			int ux = label.node;
+
+			// The labels settled at this node have smaller or equal response times, and so have the paths found
+			// compared with the completions of the label: only the distances are compared
+			if (label.distance >= minimumDistances[ux]
+					|| label.distance + distanceBounds[ux] >= minimumDistances[destination]
+					|| numberLabels[ux] >= maxLabels) {
+				continue;
+			}
+
+			minimumDistances[ux] = label.distance;
+			++numberLabels[ux];
+
+			if (ux == destination) {
+				paretoPaths.add(toParetoPath(label, graph));
+				continue;
+			}
+
+			for (int arc = graph.getFirstArc(ux); arc < graph.getLastArc(ux); arc++) {
+				int vx = graph.getArcTarget(arc);
+
+				if (responseTimes[arc] == Double.MAX_VALUE || distances[arc] == Double.MAX_VALUE
+						|| distanceBounds[vx] == Double.MAX_VALUE || responseTimeBounds[vx] == Double.MAX_VALUE) {
+					continue;
+				}
+
+				double distance = label.distance + distances[arc];
+
+				if (distance < minimumDistances[vx] && distance + distanceBounds[vx] < minimumDistances[destination]) {
+					labels.add(new Label(vx, label.responseTime + responseTimes[arc], distance, label));
+				}
+			}
+		}
+
+		return paretoPaths;
+	}
+
+	/**
+	 * Calculates the path between two nodes of the graph minimizing a weighted
+	 * sum of the response time and the distance, with a bidirectional Dijkstra's
+	 * algorithm. The path is on the Pareto frontier (if both factors are
+	 * positive), and different factors give different trade-offs.
+	 *
+	 * @param  source                   The identifier of the source node.
+	 * @param  destination              The identifier of the destination node.
+	 * @param  graph                    The snapshot of the Internet graph.
+	 * @param  geolocationService       The geolocation service class giving the
+	 *                                  distances.
+	 * @param  responseTimeFactor       The factor of the response time.
+	 * @param  distanceFactor           The factor of the distance.
+	 * @return                          The path, whose cost is the weighted sum,
+	 *                                  or a path only containing the source and
+	 *                                  the destination with a cost of
+	 *                                  {@code Double.MAX_VALUE} if the
+	 *                                  destination is unreachable.
+	 * @throws IllegalArgumentException If a factor is negative.
+	 */
+	public static IdentifierPath getWeightedMinPath(int source, int destination, GraphSnapshot graph,
+			Class<? extends GeolocationService> geolocationService, double responseTimeFactor,
+			double distanceFactor) {
+		if (!(responseTimeFactor >= 0) || !(distanceFactor >= 0)) {
+			throw new IllegalArgumentException("Error: The factors of the weighted sum must not be negative!");
+		}
+
+		double[] responseTimes = graph.getWeights(WeightMetric.RESPONSE_TIME, geolocationService);
+		double[] distances = graph.getWeights(WeightMetric.DISTANCE, geolocationService);
+		double[] weights = new double[responseTimes.length];
+
+		for (int arc = 0; arc < weights.length; arc++) {
+			weights[arc] = responseTimes[arc] == Double.MAX_VALUE || distances[arc] == Double.MAX_VALUE
+					? Double.MAX_VALUE
+					: responseTimeFactor * responseTimes[arc] + distanceFactor * distances[arc];
+		}
+
+		return Dijkstra.getMinPath(source, destination, graph, weights);
+	}
+
+	// Helper method to follow the labels of a path back to the source.
+	private static ParetoPath toParetoPath(Label label, GraphSnapshot graph) {
+		List<String> elements = new ArrayList<>();
+		for (Label crawl = label; crawl != null; crawl = crawl.predecessor) {
+			elements.add(graph.getNode(crawl.node).getStringIpAddress());
+		}
+		Collections.reverse(elements);
+
+		return new ParetoPath(elements, label.responseTime, label.distance);
+	}
+
+	/**
+	 * A partial path from the source, with its two costs.
+	 */
+	private static class Label {
+
+		private final int node;
+		private final double responseTime;
+		private final double distance;
+		private final Label predecessor;
+
+		private Label(int node, double responseTime, double distance, Label predecessor) {
+			this.node = node;
+			this.responseTime = responseTime;
+			this.distance = distance;
+			this.predecessor = predecessor;
+		}
+
+	}
+
+}
@@ -6,25 +6,37 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
-public class MapStatistic<K, V> extends Statistic<TreeMap<K, V>> {
+public class MapStatistic<K, V> extends Statistic<List<Map.Entry<K, V>>> {
 
     private final static double CONTAINER_SPACING = 3;
     private final static double ROW_SPACING = 5;
 
-    private final TreeMap<K, V> rankedValues;
+    private final List<Map.Entry<K, V>> rankedValues;
 
     public MapStatistic(String name, TreeMap<K, V> rankedValues) {
+        this(name, new ArrayList<>(rankedValues.entrySet()));
+    }
+
+    /**
+     * Constructs a statistic from entries already ranked, which may have equal
+     * keys (e.g. nodes at the same distance).
+     *
+     * @param name         The name of the statistic.
+     * @param rankedValues The entries, in the order of their ranks.
+     */
+    public MapStatistic(String name, List<Map.Entry<K, V>> rankedValues) {
         super(name);
 
         this.rankedValues = rankedValues;
     }
 
     @Override
-    public TreeMap<K, V> getValue() {
+    public List<Map.Entry<K, V>> getValue() {
         return rankedValues;
     }
 
@@ -42,7 +54,7 @@ public class MapStatistic<K, V> extends Statistic<TreeMap<K, V>> {
 
         int rank = 1;
 
-        for (Map.Entry<K, V> entry : rankedValues.entrySet()) {
+        for (Map.Entry<K, V> entry : rankedValues) {
             children.add(getRow(rank++, entry.getKey(), entry.getValue()));
         }
 
@@ -73,7 +85,7 @@ public class MapStatistic<K, V> extends Statistic<TreeMap<K, V>> {
     public String getResultInString() {
         StringBuilder result = new StringBuilder();
 
-        for (Map.Entry<K, V> entry : getValue().entrySet()) {
+        for (Map.Entry<K, V> entry : getValue()) {
             K key = entry.getKey();
             V val = entry.getValue();
 
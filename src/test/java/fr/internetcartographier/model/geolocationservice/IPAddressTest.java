@@ -57,6 +57,22 @@ class IPAddressTest {
 		assertEquals("18.45.75.69", ipAddressList.get(4).getStringIpAddress());
 	}
 
+	@Test
+	public void testParseIpToLong() {
+		assertEquals(IPAddress.ipToLong("18.45.75.65"), IPAddress.parseIpToLong("18.45.75.65"));
+		assertEquals(IPAddress.ipToLong("255.255.255.255"), IPAddress.parseIpToLong("255.255.255.255"));
+		assertEquals(-1, IPAddress.parseIpToLong("invalidIpAddress"));
+		assertEquals(-1, IPAddress.parseIpToLong("256.1.1.1"));
+		assertEquals(-1, IPAddress.parseIpToLong("18.45.75"));
+		assertEquals(-1, IPAddress.parseIpToLong("18.45.75.65.1"));
+		assertEquals(-1, IPAddress.parseIpToLong("18..75.65"));
+		assertEquals(-1, IPAddress.parseIpToLong(""));
+		assertEquals(-1, IPAddress.parseIpToLong("001.002.003.004"));
+		assertEquals(-1, IPAddress.parseIpToLong("18.45.075.65"));
+		assertEquals(IPAddress.ipToLong("0.0.0.0"), IPAddress.parseIpToLong("0.0.0.0"));
+		assertEquals(IPAddress.ipToLong("10.0.100.1"), IPAddress.parseIpToLong("10.0.100.1"));
+	}
+
 	@Test
 	public void testEqualsAndHashCode() {
 		IPAddress ipAddress1 = new IPAddress("18.45.75.65");
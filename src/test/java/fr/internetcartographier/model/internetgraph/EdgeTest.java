@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import fr.internetcartographier.model.WeightMetric;
 import fr.internetcartographier.model.geolocationservice.GeoIP2;
 import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
@@ -90,6 +91,25 @@ class EdgeTest {
 		assertEquals(edge.getNodeB().getGeolocationData(GeoIP2.class), geolocationDataGeoIP2B);
 	}
 
+	@Test
+	public void testHotPathAccessors() {
+		GeolocationData geolocationDataA = new GeolocationData(48.85, 2.35, "France", "Paris");
+		GeolocationData geolocationDataB = new GeolocationData(51.51, -0.13, "United Kingdom", "London");
+		Node nodeA = new Node(new IPAddress("18.45.75.65"),
+				new GeolocationData.TypedGeolocationData(GeoIP2.class, Optional.of(geolocationDataA)));
+		Node nodeB = new Node(new IPAddress("122.215.42.19"),
+				new GeolocationData.TypedGeolocationData(GeoIP2.class, Optional.of(geolocationDataB)));
+		Edge edge = new Edge(nodeA, nodeB, true, 10.0);
+
+		assertEquals("18.45.75.65", edge.getStringIpAddressNodeA());
+		assertEquals("122.215.42.19", edge.getStringIpAddressNodeB());
+		assertEquals(Optional.of(geolocationDataA), edge.getGeolocationDataNodeA(GeoIP2.class));
+		assertEquals(Optional.empty(), edge.getGeolocationDataNodeB(HostIP.class));
+		assertEquals(WeightMetric.getDistance(48.85, 2.35, 51.51, -0.13),
+				edge.getWeight(WeightMetric.DISTANCE, GeoIP2.class), 0.001);
+		assertEquals(Double.MAX_VALUE, edge.getWeight(WeightMetric.DISTANCE, HostIP.class), 0.001);
+	}
+
 	@Test
 	public void testIsContainNode() {
 		Node nodeA = new Node(new IPAddress("18.45.75.65"));
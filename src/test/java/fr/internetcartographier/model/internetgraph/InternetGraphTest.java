@@ -1,8 +1,10 @@
 package fr.internetcartographier.model.internetgraph;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -13,9 +15,16 @@ import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.HostIP;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import fr.internetcartographier.util.path.Path;
+import fr.internetcartographier.util.statistics.Statistic;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -104,6 +113,359 @@ class InternetGraphTest {
 		assertEquals(nodeA, retrievedNode.get());
 	}
 
+	@Test
+	void testNodeIds() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		Node nodeC = new Node(new IPAddress("129.69.1.170"));
+
+		internetGraph.addNode(nodeA);
+		internetGraph.addNode(nodeB);
+		internetGraph.addNode(nodeA);
+		internetGraph.addEdge(new Edge(nodeA, nodeB, true, 10));
+
+		int idA = internetGraph.getNodeId(nodeA.getIpAddress());
+		int idB = internetGraph.getNodeId(nodeB.getIpAddress());
+		assertEquals(2, internetGraph.getNodes().size());
+		assertEquals(nodeA, internetGraph.getNodeById(idA));
+		assertEquals(-1, internetGraph.getNodeId(nodeC.getIpAddress()));
+		assertEquals(-1, internetGraph.getNodeId("invalidIpAddress"));
+
+		assertEquals(1, internetGraph.getDegree(idA));
+		assertEquals(idB, internetGraph.getNeighborId(idA, 0));
+		assertEquals(10.0, internetGraph.getEdgeWeight(internetGraph.getIncidentEdgeId(idA, 0),
+				WeightMetric.RESPONSE_TIME, GeoIP2.class));
+		assertEquals(internetGraph.getIncidentEdgeId(idA, 0), internetGraph.getEdgeId(idB, idA));
+		assertEquals(-1, internetGraph.getEdgeId(idA, idA));
+
+		internetGraph.removeNode(nodeA.getIpAddress());
+		assertEquals(0, internetGraph.getDegree(idB));
+		assertEquals(-1, internetGraph.getEdgeId(idA, idB));
+		assertEquals(null, internetGraph.getNodeById(idA));
+
+		internetGraph.addNode(nodeC);
+		assertEquals(idA, internetGraph.getNodeId(nodeC.getIpAddress()));
+		assertEquals(2, internetGraph.getNodes().size());
+	}
+
+	@Test
+	void testCopy() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("18.45.75.66"));
+		internetGraph.addNode(nodeA);
+		internetGraph.addNode(nodeB);
+		internetGraph.addEdge(new Edge(nodeA, nodeB, true, 1));
+		internetGraph.minimumDistance(nodeA.getIpAddress(), nodeB.getIpAddress(), WeightMetric.RESPONSE_TIME,
+				GeoIP2.class);
+
+		InternetGraph copy = new InternetGraph(internetGraph);
+		copy.removeNode(nodeB.getIpAddress());
+
+		assertTrue(internetGraph.getCache().containsNode(nodeB.getStringIpAddress()));
+		assertTrue(internetGraph.getCache().getMinPath(WeightMetric.RESPONSE_TIME,
+				GeoIP2.class.getCanonicalName(), nodeA.getStringIpAddress(), nodeB.getStringIpAddress()).isPresent());
+		assertFalse(copy.getCache().containsNode(nodeB.getStringIpAddress()));
+		assertEquals(1, internetGraph.getNumberEdges());
+		assertEquals(0, copy.getNumberEdges());
+		assertNotSame(internetGraph.getNode(nodeA.getIpAddress()).get(), copy.getNode(nodeA.getIpAddress()).get());
+	}
+
+	@Test
+	void testSnapshot() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		Node nodeC = new Node(new IPAddress("129.69.1.170"));
+
+		internetGraph.addNode(nodeA);
+		internetGraph.addNode(nodeB);
+		internetGraph.addEdge(new Edge(nodeA, nodeB, true, 10));
+
+		GraphSnapshot snapshot = internetGraph.snapshot();
+		assertTrue(snapshot == internetGraph.snapshot());
+		assertEquals(2, snapshot.getNumberNodes());
+		assertEquals(1, snapshot.getNumberEdges());
+		assertEquals(2, snapshot.getNumberArcs());
+
+		int idA = snapshot.getNodeId(nodeA.getIpAddress());
+		int idB = snapshot.getNodeId(nodeB.getIpAddress());
+		assertEquals(nodeA, snapshot.getNode(idA));
+		assertEquals(1, snapshot.getDegree(idA));
+
+		int arc = snapshot.getFirstArc(idA);
+		assertEquals(idB, snapshot.getArcTarget(arc));
+		assertEquals(10.0, snapshot.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class)[arc]);
+		assertEquals(1.0, snapshot.getWeights(WeightMetric.CONSTANT, GeoIP2.class)[arc]);
+
+		internetGraph.addNode(nodeC);
+		internetGraph.addEdge(new Edge(nodeB, nodeC, false, 5));
+		internetGraph.removeEdge(nodeA.getIpAddress(), nodeB.getIpAddress());
+
+		assertFalse(snapshot == internetGraph.snapshot());
+		assertEquals(2, snapshot.getNumberNodes());
+		assertEquals(1, snapshot.getDegree(idA));
+		assertEquals(-1, snapshot.getNodeId(nodeC.getIpAddress()));
+		assertEquals(3, internetGraph.snapshot().getNumberNodes());
+		assertEquals(0, internetGraph.snapshot().getDegree(idA));
+
+		assertEquals(Arrays.asList(nodeA, nodeB), snapshot.getNodes());
+		assertEquals(Arrays.asList(new Edge(nodeA, nodeB, true, 10)), snapshot.getEdges());
+		assertEquals(Arrays.asList(nodeA.getStringIpAddress(), nodeB.getStringIpAddress()),
+				internetGraph.minimumDistance(snapshot, nodeA.getIpAddress(), nodeB.getIpAddress(),
+						WeightMetric.RESPONSE_TIME, GeoIP2.class).getElements());
+		assertEquals(10.0, internetGraph.minimumDistance(snapshot, nodeA.getIpAddress(), nodeB.getIpAddress(),
+				WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+		assertEquals(Double.MAX_VALUE, internetGraph.minimumDistance(nodeA.getIpAddress(), nodeB.getIpAddress(),
+				WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+	}
+
+	@Test
+	void testIncrementalSnapshot() {
+		Random random = new Random(3);
+		Node[] nodes = new Node[60];
+		for (int id = 0; id < nodes.length; id++) {
+			IPAddress ipAddress = new IPAddress("18.45.0." + id);
+			nodes[id] = id % 4 == 3 ? new Node(ipAddress)
+					: new Node(ipAddress, new GeolocationData.TypedGeolocationData(GeoIP2.class,
+							Optional.of(new GeolocationData(random.nextInt(90), random.nextInt(180), "", ""))));
+		}
+
+		for (int round = 0; round < 30; round++) {
+			// Weight columns computed on the previous snapshot are carried over to the next one
+			GraphSnapshot previous = internetGraph.snapshot();
+			previous.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class);
+			previous.getWeights(WeightMetric.DISTANCE, GeoIP2.class);
+
+			internetGraph.batch(batch -> {
+				for (int i = 0; i < 4; i++) {
+					Node nodeA = nodes[random.nextInt(nodes.length)];
+					Node nodeB = nodes[random.nextInt(nodes.length)];
+					switch (random.nextInt(4)) {
+						case 0:
+							batch.removeNode(nodeA.getIpAddress());
+							break;
+						case 1:
+							if (batch.getNode(nodeA.getStringIpAddress()).isPresent()
+									&& batch.getNode(nodeB.getStringIpAddress()).isPresent()) {
+								batch.removeEdge(nodeA.getIpAddress(), nodeB.getIpAddress());
+							}
+							break;
+						default:
+							batch.addNode(nodeA);
+							batch.addNode(nodeB);
+							if (!nodeA.equals(nodeB)) {
+								batch.addEdge(new Edge(nodeA, nodeB, true, 1 + random.nextInt(10)));
+							}
+							break;
+					}
+				}
+			});
+
+			GraphSnapshot snapshot = internetGraph.snapshot();
+			GraphSnapshot expected = new InternetGraph(internetGraph).snapshot();
+			double[] responseTimes = snapshot.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class);
+			double[] distances = snapshot.getWeights(WeightMetric.DISTANCE, GeoIP2.class);
+
+			assertEquals(expected.getNodeIdBound(), snapshot.getNodeIdBound());
+			assertEquals(expected.getNumberArcs(), snapshot.getNumberArcs());
+			for (int id = 0; id < snapshot.getNodeIdBound(); id++) {
+				assertEquals(expected.getFirstArc(id), snapshot.getFirstArc(id));
+				assertEquals(expected.getLastArc(id), snapshot.getLastArc(id));
+			}
+			for (int arc = 0; arc < snapshot.getNumberArcs(); arc++) {
+				assertEquals(expected.getArcTarget(arc), snapshot.getArcTarget(arc));
+				assertEquals(expected.getArcEdge(arc), snapshot.getArcEdge(arc));
+			}
+			assertArrayEquals(expected.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class), responseTimes);
+			assertArrayEquals(expected.getWeights(WeightMetric.DISTANCE, GeoIP2.class), distances);
+		}
+	}
+
+	@Test
+	void testBatch() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		Node nodeC = new Node(new IPAddress("129.69.1.170"));
+
+		internetGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 10));
+			assertTrue(batch.getNode(nodeB.getStringIpAddress()).isPresent());
+		});
+		internetGraph.minimumDistance(nodeA.getIpAddress(), nodeB.getIpAddress(), WeightMetric.RESPONSE_TIME,
+				GeoIP2.class);
+		assertTrue(internetGraph.getCache().getMinPath(WeightMetric.RESPONSE_TIME, GeoIP2.class.getCanonicalName(),
+				nodeA.getStringIpAddress(), nodeB.getStringIpAddress()).isPresent());
+
+		InternetGraph.Batch[] escapedBatch = new InternetGraph.Batch[1];
+		internetGraph.batch(batch -> {
+			batch.addNode(nodeC);
+			batch.addEdge(new Edge(nodeB, nodeC, true, 5));
+			batch.removeNode(nodeA.getIpAddress());
+			batch.addNode(nodeA);
+			escapedBatch[0] = batch;
+		});
+
+		assertEquals(3, internetGraph.getNodes().size());
+		assertEquals(1, internetGraph.getEdges().size());
+		assertTrue(internetGraph.getCache().containsNode(nodeA.getStringIpAddress()));
+		assertTrue(internetGraph.getCache().getMinPath(WeightMetric.RESPONSE_TIME, GeoIP2.class.getCanonicalName(),
+				nodeA.getStringIpAddress(), nodeB.getStringIpAddress()).isEmpty());
+		assertThrows(IllegalStateException.class, () -> escapedBatch[0].addNode(nodeB));
+	}
+
+	@Test
+	void testRemoveNodes() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		Node nodeC = new Node(new IPAddress("129.69.1.170"));
+		Node nodeD = new Node(new IPAddress("129.69.1.171"));
+
+		internetGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addNode(nodeC);
+			batch.addNode(nodeD);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 10));
+			batch.addEdge(new Edge(nodeB, nodeC, true, 5));
+			batch.addEdge(new Edge(nodeC, nodeD, true, 5));
+		});
+		internetGraph.minimumDistance(nodeA.getIpAddress(), nodeB.getIpAddress(), WeightMetric.RESPONSE_TIME,
+				GeoIP2.class);
+
+		int numberRemovedNodes = internetGraph
+				.removeNodes(node -> node.getStringIpAddress().startsWith("129.69."));
+
+		assertEquals(2, numberRemovedNodes);
+		assertEquals(2, internetGraph.getNodes().size());
+		assertEquals(1, internetGraph.getEdges().size());
+		assertTrue(internetGraph.getNode(nodeC.getStringIpAddress()).isEmpty());
+		assertTrue(internetGraph.getNeighbors(nodeB).contains(nodeA));
+		assertEquals(1, internetGraph.getNeighbors(nodeB).size());
+		assertTrue(internetGraph.getCache().getMinPath(WeightMetric.RESPONSE_TIME, GeoIP2.class.getCanonicalName(),
+				nodeA.getStringIpAddress(), nodeB.getStringIpAddress()).isPresent());
+		assertEquals(0, internetGraph.removeNodes(node -> false));
+	}
+
+	@Test
+	void testStatistics() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		Node nodeC = new Node(new IPAddress("129.69.1.170"));
+		Node nodeD = new Node(new IPAddress("129.69.1.171"));
+
+		internetGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addNode(nodeC);
+			batch.addNode(nodeD);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 10));
+			batch.addEdge(new Edge(nodeA, nodeC, true, 5));
+			batch.addEdge(new Edge(nodeA, nodeD, true, 5));
+		});
+
+		assertEquals(4, internetGraph.getNumberNodes());
+		assertEquals(3, internetGraph.getNumberEdges());
+		assertEquals(Map.of("Number of nodes", "4", "Number of edges", "3", "Minimum degree", "1", "Maximum degree",
+				"3", "Mean degree", "1.5"), getStatistics(internetGraph));
+
+		internetGraph.removeEdge(nodeA.getIpAddress(), nodeD.getIpAddress());
+		assertEquals(Map.of("Number of nodes", "4", "Number of edges", "2", "Minimum degree", "0", "Maximum degree",
+				"2", "Mean degree", "1.0"), getStatistics(internetGraph));
+
+		internetGraph.removeNode(nodeA.getIpAddress());
+		assertEquals(3, internetGraph.getNumberNodes());
+		assertEquals(0, internetGraph.getNumberEdges());
+		assertEquals(Map.of("Number of nodes", "3", "Number of edges", "0", "Minimum degree", "0", "Maximum degree",
+				"0", "Mean degree", "0.0"), getStatistics(internetGraph));
+	}
+
+	private static Map<String, String> getStatistics(InternetGraph internetGraph) {
+		Map<String, String> statistics = new HashMap<>();
+		for (Statistic<?> statistic : internetGraph.getStatistics()) {
+			statistics.put(statistic.getName(), statistic.getResultInString());
+		}
+		return statistics;
+	}
+
+	@Test
+	void testUpdateEdgesWeights() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"), new GeolocationData.TypedGeolocationData(GeoIP2.class,
+				Optional.of(new GeolocationData(48.85, 2.35, "France", "Paris"))));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"), new GeolocationData.TypedGeolocationData(
+				GeoIP2.class, Optional.of(new GeolocationData(51.51, -0.13, "United Kingdom", "London"))));
+
+		internetGraph.addNode(nodeA);
+		internetGraph.addNode(nodeB);
+		internetGraph.addEdge(new Edge(nodeA, nodeB, true, 10));
+		int edgeId = internetGraph.getEdgeId(internetGraph.getNodeId(nodeA.getStringIpAddress()),
+				internetGraph.getNodeId(nodeB.getStringIpAddress()));
+
+		assertEquals(WeightMetric.getDistance(48.85, 2.35, 51.51, -0.13),
+				internetGraph.getEdgeWeight(edgeId, WeightMetric.DISTANCE, GeoIP2.class), 0.001);
+		assertEquals(Double.MAX_VALUE, internetGraph.getEdgeWeight(edgeId, WeightMetric.DISTANCE, HostIP.class),
+				0.001);
+
+		// Geolocation data modified directly on a node are only taken into account by updateEdgesWeights
+		nodeB.updateGeolocationData(new GeolocationData.TypedGeolocationData(GeoIP2.class,
+				Optional.of(new GeolocationData(52.52, 13.40, "Germany", "Berlin"))));
+		long version = internetGraph.getVersion();
+		internetGraph.updateEdgesWeights();
+
+		double distance = WeightMetric.getDistance(48.85, 2.35, 52.52, 13.40);
+		assertNotEquals(version, internetGraph.getVersion());
+		assertEquals(distance, internetGraph.getEdgeWeight(edgeId, WeightMetric.DISTANCE, GeoIP2.class), 0.001);
+		assertEquals(distance, internetGraph.snapshot().getWeights(WeightMetric.DISTANCE, GeoIP2.class)[0], 0.001);
+
+		version = internetGraph.getVersion();
+		internetGraph.updateEdgesWeights();
+		assertEquals(version, internetGraph.getVersion());
+	}
+
+	@Test
+	void testConcurrentModifications() throws InterruptedException {
+		int numberThreads = 8;
+		int numberHops = 200;
+		Thread[] threads = new Thread[numberThreads];
+
+		for (int t = 0; t < numberThreads; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				Node previousNode = null;
+				for (int hop = 0; hop < numberHops; hop++) {
+					Node node = new Node(new IPAddress("18.45." + ((hop + offset) % numberHops) / 100 + "."
+							+ ((hop + offset) % numberHops) % 100));
+					internetGraph.addNode(node);
+					if (previousNode != null) {
+						internetGraph.addEdge(new Edge(previousNode, node, true, 1));
+					}
+					previousNode = node;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		InternetGraph sequentialGraph = new InternetGraph();
+		for (int t = 0; t < numberThreads; t++) {
+			Node previousNode = null;
+			for (int hop = 0; hop < numberHops; hop++) {
+				Node node = new Node(new IPAddress(
+						"18.45." + ((hop + t) % numberHops) / 100 + "." + ((hop + t) % numberHops) % 100));
+				sequentialGraph.addNode(node);
+				if (previousNode != null) {
+					sequentialGraph.addEdge(new Edge(previousNode, node, true, 1));
+				}
+				previousNode = node;
+			}
+		}
+
+		assertEquals(sequentialGraph.getNodes().size(), internetGraph.getNodes().size());
+		assertEquals(sequentialGraph.getEdges(), internetGraph.getEdges());
+	}
+
 	@Test
 	void testGetEdge() {
 		Node nodeA = new Node(new IPAddress("18.45.75.65"));
@@ -396,6 +758,137 @@ class InternetGraphTest {
 
 	}
 
+	@Test
+	void testGetDistancesFrom() {
+		String[] ipAddresses = { "18.45.75.65", "180.68.175.165", "129.69.1.170", "134.69.1.170", "137.69.1.170",
+				"141.69.1.170", "145.69.1.170" };
+		Node[] nodes = new Node[ipAddresses.length];
+		for (int i = 0; i < nodes.length; i++) {
+			IPAddress ipAddress = new IPAddress(ipAddresses[i]);
+			nodes[i] = new Node(ipAddress,
+					new GeolocationData.TypedGeolocationData(geoIP2.getClass(), geoIP2.getGeolocationData(ipAddress)));
+			internetGraph.addNode(nodes[i]);
+		}
+		internetGraph.addEdge(new Edge(nodes[0], nodes[1], true, 4.0));
+		internetGraph.addEdge(new Edge(nodes[1], nodes[2], true, 1.5));
+		internetGraph.addEdge(new Edge(nodes[0], nodes[3], true, 2.0));
+		internetGraph.addEdge(new Edge(nodes[3], nodes[2], true, 2.0));
+		internetGraph.addEdge(new Edge(nodes[2], nodes[4], true, 7.0));
+		internetGraph.addEdge(new Edge(nodes[4], nodes[5], true, 0.5));
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (WeightMetric weightMetric : WeightMetric.values()) {
+			double[] distances = internetGraph.getDistancesFrom(graph, nodes[0].getIpAddress(), weightMetric,
+					GeoIP2.class);
+
+			assertEquals(graph.getNodeIdBound(), distances.length);
+			for (Node node : nodes) {
+				assertEquals(internetGraph.minimumDistance(graph, nodes[0].getIpAddress(), node.getIpAddress(),
+						weightMetric, GeoIP2.class).getCost(), distances[graph.getNodeId(node.getIpAddress())]);
+			}
+		}
+		assertEquals(Double.MAX_VALUE, internetGraph.getDistancesFrom(graph, nodes[0].getIpAddress(),
+				WeightMetric.CONSTANT, GeoIP2.class)[graph.getNodeId(nodes[6].getIpAddress())]);
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.getDistancesFrom(graph,
+				new IPAddress("165.69.1.170"), WeightMetric.CONSTANT, GeoIP2.class));
+	}
+
+	@Test
+	void testDistancesFromSeveralSources() {
+		Random random = new Random(13);
+		List<IPAddress> sources = new ArrayList<>();
+		internetGraph.batch(batch -> {
+			Node[] nodes = new Node[200];
+			for (int id = 0; id < nodes.length; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 100 + "." + id % 100));
+				batch.addNode(nodes[id]);
+				sources.add(nodes[id].getIpAddress());
+			}
+			for (int i = 0; i < 300; i++) {
+				int a = random.nextInt(nodes.length);
+				int b = random.nextInt(nodes.length);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1 + random.nextInt(20)));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (WeightMetric weightMetric : List.of(WeightMetric.RESPONSE_TIME, WeightMetric.CONSTANT)) {
+			Map<IPAddress, double[]> results = new ConcurrentHashMap<>();
+			internetGraph.distancesFrom(graph, sources, weightMetric, GeoIP2.class,
+					(source, distances) -> results.put(source, distances.clone()));
+
+			assertEquals(sources.size(), results.size());
+			for (IPAddress source : sources) {
+				assertArrayEquals(internetGraph.getDistancesFrom(graph, source, weightMetric, GeoIP2.class),
+						results.get(source));
+			}
+		}
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.distancesFrom(graph,
+				List.of(new IPAddress("165.69.1.170")), WeightMetric.CONSTANT, GeoIP2.class, (source, distances) -> {
+				}));
+	}
+
+	@Test
+	void testTrackedDistances() {
+		Node root = new Node(new IPAddress("18.45.0.0"));
+		internetGraph.addNode(root);
+		internetGraph.trackDistancesFrom(root.getIpAddress(), WeightMetric.RESPONSE_TIME, GeoIP2.class);
+		internetGraph.trackDistancesFrom(root.getIpAddress(), WeightMetric.CONSTANT, GeoIP2.class);
+		assertTrue(internetGraph.getTrackedDistance(root.getIpAddress(), root.getIpAddress(),
+				WeightMetric.DISTANCE, GeoIP2.class).isEmpty());
+
+		// Hops are added outward from the root, as traceroute results are
+		Random random = new Random(12);
+		List<Node> nodes = new ArrayList<>(List.of(root));
+		for (int round = 0; round < 50; round++) {
+			internetGraph.batch(batch -> {
+				Node previous = nodes.get(random.nextInt(nodes.size()));
+				for (int hop = 0; hop < 4; hop++) {
+					Node node = random.nextInt(3) == 0 ? nodes.get(random.nextInt(nodes.size()))
+							: new Node(new IPAddress("18.45." + nodes.size() / 100 + "." + nodes.size() % 100));
+					if (!node.equals(previous)) {
+						if (!nodes.contains(node)) {
+							batch.addNode(node);
+							nodes.add(node);
+						}
+						batch.addEdge(new Edge(previous, node, true, 1 + random.nextInt(20)));
+						previous = node;
+					}
+				}
+			});
+			assertTrackedDistances(root, nodes);
+		}
+
+		internetGraph.removeNode(nodes.remove(nodes.size() / 2).getIpAddress());
+		assertTrackedDistances(root, nodes);
+
+		// A bulk batch rebuilds the tracked distances once instead
+		internetGraph.batch(batch -> {
+			for (int i = 0; i < 200; i++) {
+				Node nodeA = nodes.get(random.nextInt(nodes.size()));
+				Node nodeB = nodes.get(random.nextInt(nodes.size()));
+				if (!nodeA.equals(nodeB)) {
+					batch.addEdge(new Edge(nodeA, nodeB, true, 1 + random.nextInt(20)));
+				}
+			}
+		});
+		assertTrackedDistances(root, nodes);
+	}
+
+	private void assertTrackedDistances(Node root, List<Node> nodes) {
+		GraphSnapshot graph = internetGraph.snapshot();
+		for (WeightMetric weightMetric : List.of(WeightMetric.RESPONSE_TIME, WeightMetric.CONSTANT)) {
+			double[] distances = internetGraph.getDistancesFrom(graph, root.getIpAddress(), weightMetric, GeoIP2.class);
+			for (Node node : nodes) {
+				Optional<Double> distance = internetGraph.getTrackedDistance(root.getIpAddress(), node.getIpAddress(),
+						weightMetric, GeoIP2.class);
+				assertEquals(distances[graph.getNodeId(node.getIpAddress())], distance.get().doubleValue());
+			}
+		}
+	}
+
 	@Test
 	void testUpdateNodesGeolocationDatas() {
 		IPAddress ipAddress0 = new IPAddress("18.45.75.65");
@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import fr.internetcartographier.model.WeightMetric;
 import fr.internetcartographier.util.path.Path;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -82,7 +83,8 @@ class CacheMinDistancesTest {
 		assertTrue(cacheMinDistances.getMinPath(WeightMetric.RESPONSE_TIME, "Service", "A", "C").isEmpty());
 		assertTrue(cacheMinDistances.getMinPath(WeightMetric.RESPONSE_TIME, "Service", "B", "C").isEmpty());
 		cacheMinDistances.removeNode("C");
-		assertTrue(cacheMinDistances.getMinPath(WeightMetric.RESPONSE_TIME, "Service", "A", "B").isEmpty());
+		assertTrue(cacheMinDistances.getMinPath(WeightMetric.RESPONSE_TIME, "Service", "A", "B").get()
+				.equals(new Path<>(Arrays.asList("A", "B"), 5)));
 		assertThrows(IllegalArgumentException.class,
 				() -> cacheMinDistances.getMinPath(WeightMetric.RESPONSE_TIME, "Service", "A", "C"));
 		cacheMinDistances.removeNode("B");
@@ -92,6 +94,21 @@ class CacheMinDistancesTest {
 				.equals(new Path<>(Arrays.asList("A"), 0)));
 	}
 
+	@Test
+	void removeNodesEvictsPathsThroughRemovedNodes() {
+		cacheMinDistances.addNode("A");
+		cacheMinDistances.addNode("B");
+		cacheMinDistances.addNode("C");
+		cacheMinDistances.addNode("D");
+		cacheMinDistances.updateCache(WeightMetric.CONSTANT, "Service", new Path<>(Arrays.asList("A", "B", "C"), 2));
+		cacheMinDistances.updateCache(WeightMetric.CONSTANT, "Service", new Path<>(Arrays.asList("A", "D"), 1));
+		cacheMinDistances.removeNodes(List.of("B"));
+		assertTrue(cacheMinDistances.getMinPath(WeightMetric.CONSTANT, "Service", "A", "C").isEmpty());
+		assertTrue(cacheMinDistances.getMinPath(WeightMetric.CONSTANT, "Service", "C", "A").isEmpty());
+		assertEquals(new Path<>(Arrays.asList("A", "D"), 1),
+				cacheMinDistances.getMinPath(WeightMetric.CONSTANT, "Service", "A", "D").get());
+	}
+
 	@Test
 	void updateCacheAndGetMinPath() {
 		Path<String> pathABConstant = new Path<>(Arrays.asList("A", "B"), 1);
@@ -0,0 +1,73 @@
+package fr.internetcartographier.util.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IndexedDoubleHeapTest {
+
+	@Test
+	void testInsertOrDecreaseAndPoll() {
+		IndexedDoubleHeap heap = new IndexedDoubleHeap(4);
+
+		heap.insertOrDecrease(2, 5.0);
+		heap.insertOrDecrease(0, 3.0);
+		heap.insertOrDecrease(1, 4.0);
+		heap.insertOrDecrease(2, 1.0);
+		heap.insertOrDecrease(0, 10.0);
+
+		assertEquals(3, heap.size());
+		assertTrue(heap.contains(2));
+		assertFalse(heap.contains(3));
+		assertEquals(3.0, heap.getKey(0));
+		assertEquals(1.0, heap.peekKey());
+		assertEquals(2, heap.poll());
+		assertEquals(0, heap.poll());
+		assertEquals(1, heap.poll());
+		assertTrue(heap.isEmpty());
+		assertThrows(IllegalStateException.class, heap::poll);
+
+		heap.ensureCapacity(8);
+		heap.insertOrDecrease(7, 2.0);
+		heap.insertOrDecrease(3, 1.0);
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(7));
+	}
+
+	@Test
+	void testAgainstLinearScan() {
+		int capacity = 500;
+		IndexedDoubleHeap heap = new IndexedDoubleHeap(capacity);
+		double[] expected = new double[capacity];
+		boolean[] present = new boolean[capacity];
+		Random random = new Random(0);
+
+		for (int operation = 0; operation < 20000; operation++) {
+			if (random.nextInt(3) > 0) {
+				int element = random.nextInt(capacity);
+				double key = random.nextInt(1000);
+				heap.insertOrDecrease(element, key);
+				if (!present[element] || key < expected[element]) {
+					expected[element] = key;
+					present[element] = true;
+				}
+			} else if (!heap.isEmpty()) {
+				double minimum = Double.MAX_VALUE;
+				for (int element = 0; element < capacity; element++) {
+					if (present[element]) {
+						minimum = Math.min(minimum, expected[element]);
+					}
+				}
+				int element = heap.poll();
+				assertEquals(minimum, expected[element]);
+				present[element] = false;
+			}
+		}
+	}
+
+}
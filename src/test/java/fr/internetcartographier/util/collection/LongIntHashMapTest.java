@@ -0,0 +1,65 @@
+package fr.internetcartographier.util.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+	@Test
+	void testPutGetRemove() {
+		LongIntHashMap map = new LongIntHashMap();
+
+		assertEquals(LongIntHashMap.NO_VALUE, map.get(42));
+		assertEquals(LongIntHashMap.NO_VALUE, map.put(42, 1));
+		assertEquals(1, map.get(42));
+		assertEquals(1, map.put(42, 2));
+		assertEquals(2, map.get(42));
+		assertTrue(map.containsKey(42));
+		assertEquals(1, map.size());
+
+		assertEquals(2, map.remove(42));
+		assertFalse(map.containsKey(42));
+		assertEquals(LongIntHashMap.NO_VALUE, map.remove(42));
+		assertTrue(map.isEmpty());
+
+		assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 0));
+	}
+
+	@Test
+	void testAgainstHashMap() {
+		LongIntHashMap map = new LongIntHashMap();
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(0);
+
+		for (int i = 0; i < 100000; i++) {
+			long key = random.nextInt(5000);
+
+			if (random.nextInt(3) == 0) {
+				Integer previous = expected.remove(key);
+				assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.remove(key));
+			} else {
+				Integer previous = expected.put(key, i);
+				assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.put(key, i));
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (long key = 0; key < 5000; key++) {
+			Integer value = expected.get(key);
+			assertEquals(value == null ? LongIntHashMap.NO_VALUE : value, map.get(key));
+		}
+
+		LongIntHashMap copy = new LongIntHashMap(map);
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertEquals(expected.size(), copy.size());
+	}
+
+}
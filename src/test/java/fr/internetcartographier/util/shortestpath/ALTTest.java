@@ -0,0 +1,142 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ALTTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testALTAgainstDijkstra() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 300, 600, new Random(3),
+				random -> 1 + random.nextInt(100));
+		GraphSnapshot graph = internetGraph.snapshot();
+		Landmarks landmarks = Landmarks.build(graph, graph.getNodeId(nodes[0].getIpAddress()), 4,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class);
+		Random random = new Random(4);
+
+		assertEquals(4, landmarks.size());
+
+		for (int query = 0; query < 200; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			IdentifierPath path = ALT.getMinPath(source, destination, graph, landmarks, WeightMetric.RESPONSE_TIME,
+					GeoIP2.class);
+			double expected = Dijkstra.getMinPath(source, graph, WeightMetric.RESPONSE_TIME, GeoIP2.class)
+					.getDistance(destination);
+
+			assertEquals(expected, path.getCost());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+			if (path.isReachable()) {
+				assertTrue(landmarks.getLowerBound(source, destination) <= expected);
+			}
+		}
+	}
+
+	@Test
+	void testLandmarkIndex() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 100, 300, new Random(5),
+				random -> 1 + random.nextInt(100));
+		LandmarkIndex landmarkIndex = new LandmarkIndex(nodes[0].getStringIpAddress(), 4, 1, Runnable::run);
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		Optional<Landmarks> landmarks = landmarkIndex.getLandmarks(graph, WeightMetric.RESPONSE_TIME, GeoIP2.class);
+		assertTrue(landmarks.isPresent());
+		assertEquals(graph.getVersion(), landmarks.get().getVersion());
+
+		// Landmarks of another version of the graph are rejected
+		internetGraph.addNode(new Node(new IPAddress("18.46.0.1")));
+		GraphSnapshot modifiedGraph = internetGraph.snapshot();
+		assertThrows(IllegalArgumentException.class, () -> ALT.getMinPath(0, 1, modifiedGraph, landmarks.get(),
+				WeightMetric.RESPONSE_TIME, GeoIP2.class));
+		assertEquals(modifiedGraph.getVersion(),
+				landmarkIndex.getLandmarks(modifiedGraph, WeightMetric.RESPONSE_TIME, GeoIP2.class).get().getVersion());
+
+		internetGraph.setLandmarkIndex(landmarkIndex);
+		for (int i = 1; i < nodes.length; i++) {
+			double expected = Dijkstra.getMinPath(nodes[0].getStringIpAddress(), internetGraph,
+					WeightMetric.RESPONSE_TIME, GeoIP2.class).getDistances().get(nodes[i].getStringIpAddress());
+			assertEquals(expected, internetGraph.minimumDistance(nodes[0].getIpAddress(), nodes[i].getIpAddress(),
+					WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+		}
+	}
+
+	@Test
+	void testLandmarkIndexRebuildThreshold() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 50, 100, new Random(6),
+				random -> 1 + random.nextInt(100));
+		LandmarkIndex landmarkIndex = new LandmarkIndex(nodes[0].getStringIpAddress(), 2, 3, Runnable::run);
+		long version = landmarkIndex.getLandmarks(internetGraph.snapshot(), WeightMetric.RESPONSE_TIME, GeoIP2.class)
+				.get().getVersion();
+
+		// Below the threshold, the landmarks still valid are not rebuilt
+		internetGraph.removeNode(nodes[1].getIpAddress());
+		assertEquals(version, landmarkIndex.getLandmarks(internetGraph.snapshot(), WeightMetric.RESPONSE_TIME,
+				GeoIP2.class).get().getVersion());
+
+		internetGraph.removeNode(nodes[2].getIpAddress());
+		internetGraph.removeNode(nodes[3].getIpAddress());
+		GraphSnapshot graph = internetGraph.snapshot();
+		assertTrue(graph.getVersion() - version >= 3);
+		assertEquals(graph.getVersion(),
+				landmarkIndex.getLandmarks(graph, WeightMetric.RESPONSE_TIME, GeoIP2.class).get().getVersion());
+	}
+
+	@Test
+	void testLandmarkIndexAfterRemovals() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 100, 300, new Random(7),
+				random -> 1 + random.nextInt(100));
+		LandmarkIndex landmarkIndex = new LandmarkIndex(nodes[0].getStringIpAddress(), 4, 100, Runnable::run);
+		Landmarks landmarks = landmarkIndex.getLandmarks(internetGraph.snapshot(), WeightMetric.RESPONSE_TIME,
+				GeoIP2.class).get();
+
+		// Removals only make distances longer, so the landmarks are still used
+		internetGraph.batch(batch -> {
+			for (int i = 1; i < 10; i++) {
+				batch.removeNode(nodes[i].getIpAddress());
+				batch.removeEdge(nodes[0].getIpAddress(), nodes[10 + i].getIpAddress());
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+		assertTrue(graph.getVersion() > landmarks.getVersion());
+		assertSame(landmarks, landmarkIndex.getLandmarks(graph, WeightMetric.RESPONSE_TIME, GeoIP2.class).get());
+
+		int source = graph.getNodeId(nodes[0].getIpAddress());
+		for (int i = 10; i < nodes.length; i++) {
+			int destination = graph.getNodeId(nodes[i].getIpAddress());
+			assertEquals(Dijkstra.getMinPath(source, destination, graph, graph.getWeights(WeightMetric.RESPONSE_TIME,
+					GeoIP2.class)).getCost(), ALT.getMinPath(source, destination, graph, landmarks,
+							WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+		}
+
+		// Adding an edge may make distances shorter, so the landmarks are rebuilt right away
+		internetGraph.addEdge(new Edge(nodes[10], nodes[20], true, 1));
+		GraphSnapshot modifiedGraph = internetGraph.snapshot();
+		assertEquals(modifiedGraph.getVersion(), landmarkIndex.getLandmarks(modifiedGraph, WeightMetric.RESPONSE_TIME,
+				GeoIP2.class).get().getVersion());
+		assertThrows(IllegalArgumentException.class, () -> ALT.getMinPath(source, source, modifiedGraph, landmarks,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class));
+	}
+
+}
@@ -0,0 +1,84 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.GeolocationData;
+import fr.internetcartographier.model.geolocationservice.HostIP;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AStarTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testAStarAgainstDijkstra() {
+		int numberNodes = 300;
+		Random random = new Random(0);
+		Node[] nodes = new Node[numberNodes];
+
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < numberNodes; id++) {
+				IPAddress ipAddress = new IPAddress("18.45." + id / 100 + "." + id % 100);
+				// One node out of ten is not located
+				nodes[id] = id % 10 == 9 ? new Node(ipAddress)
+						: new Node(ipAddress, new GeolocationData.TypedGeolocationData(GeoIP2.class,
+								Optional.of(new GeolocationData(-60 + 120 * random.nextDouble(),
+										-180 + 360 * random.nextDouble(), "", ""))));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < numberNodes * 3; i++) {
+				int a = random.nextInt(numberNodes);
+				int b = random.nextInt(numberNodes);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (int query = 0; query < 200; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			IdentifierPath path = AStar.getMinPath(source, destination, graph, GeoIP2.class);
+			double expected = Dijkstra.getMinPath(source, graph, WeightMetric.DISTANCE, GeoIP2.class)
+					.getDistance(destination);
+
+			assertEquals(expected, path.getCost(), 0.005 * path.getLength());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+		}
+	}
+
+	@Test
+	void testAStarWithoutGeolocationData() {
+		Node nodeA = new Node(new IPAddress("18.45.75.65"));
+		Node nodeB = new Node(new IPAddress("180.68.175.165"));
+		internetGraph.addNode(nodeA);
+		internetGraph.addNode(nodeB);
+		internetGraph.addEdge(new Edge(nodeA, nodeB, true, 1));
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		IdentifierPath path = AStar.getMinPath(graph.getNodeId(nodeA.getIpAddress()),
+				graph.getNodeId(nodeB.getIpAddress()), graph, HostIP.class);
+
+		assertFalse(path.isReachable());
+		assertEquals(2, path.getLength());
+	}
+
+}
@@ -2,16 +2,19 @@ package fr.internetcartographier.util.shortestpath;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import fr.internetcartographier.model.WeightMetric;
 import fr.internetcartographier.model.geolocationservice.GeoIP2;
 import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
 import fr.internetcartographier.util.path.Path;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -152,4 +155,133 @@ class BFSTest {
 		assertEquals(0, path6.getCost());
 		assertEquals(1, path6.getElements().size());
 	}
+	@Test
+	void testBidirectionalBFS() {
+		int numberNodes = 300;
+		Random random = new Random(0);
+		Node[] nodes = new Node[numberNodes];
+
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < numberNodes; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 100 + "." + id % 100));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < numberNodes * 2; i++) {
+				int a = random.nextInt(numberNodes);
+				int b = random.nextInt(numberNodes);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (int query = 0; query < 200; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			IdentifierPath path = BreadthFirstSearch.getMinPath(source, destination, graph);
+
+			assertEquals(Dijkstra.getMinPath(source, graph, WeightMetric.CONSTANT, GeoIP2.class).getDistance(destination),
+					path.getCost());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+		}
+	}
+
+	@Test
+	void testBuffersReusedAcrossGraphs() {
+		// A small graph, then a larger one, then the small one again: the buffers grow and are reset
+		InternetGraph smallGraph = new InternetGraph();
+		Node nodeA = new Node(new IPAddress("18.46.0.1"));
+		Node nodeB = new Node(new IPAddress("18.46.0.2"));
+		Node nodeC = new Node(new IPAddress("18.46.0.3"));
+		smallGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addNode(nodeC);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 1));
+		});
+		GraphSnapshot small = smallGraph.snapshot();
+		int a = small.getNodeId(nodeA.getIpAddress());
+		int b = small.getNodeId(nodeB.getIpAddress());
+		int c = small.getNodeId(nodeC.getIpAddress());
+
+		assertEquals(1, BreadthFirstSearch.getMinPath(a, b, small).getCost());
+		assertEquals(Double.MAX_VALUE, BreadthFirstSearch.getMinPath(a, c, small).getCost());
+
+		int numberNodes = 500;
+		Random random = new Random(1);
+		Node[] nodes = new Node[numberNodes];
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < numberNodes; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 100 + "." + id % 100));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < numberNodes; i++) {
+				int x = random.nextInt(numberNodes);
+				int y = random.nextInt(numberNodes);
+				if (x != y) {
+					batch.addEdge(new Edge(nodes[x], nodes[y], true, 1));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (int query = 0; query < 50; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			double[] distances = BreadthFirstSearch.getDistances(source, graph);
+			Dijkstra.DijkstraResult expected = Dijkstra.getMinPath(source, graph, WeightMetric.CONSTANT,
+					GeoIP2.class);
+
+			for (int id = 0; id < graph.getNodeIdBound(); id++) {
+				assertEquals(expected.getDistance(id), distances[id]);
+			}
+			int destination = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			assertEquals(expected.getDistance(destination),
+					BreadthFirstSearch.getMinPath(source, destination, graph).getCost());
+		}
+
+		assertEquals(Double.MAX_VALUE, BreadthFirstSearch.getMinPath(c, a, small).getCost());
+		assertEquals(Arrays.toString(new double[] { 1, 0, Double.MAX_VALUE }),
+				Arrays.toString(BreadthFirstSearch.getDistances(b, small)));
+	}
+
+	@Test
+	void testDirectionOptimizingHopCounts() {
+		// Hubs linked to many nodes make the frontier explode, so that both directions are used
+		int numberNodes = 10000;
+		Random random = new Random(2);
+		Node[] nodes = new Node[numberNodes];
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < numberNodes; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 250 + "." + id % 250));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < numberNodes; i++) {
+				int hub = random.nextInt(20);
+				int x = 20 + random.nextInt(numberNodes - 20);
+				int y = random.nextInt(numberNodes);
+				batch.addEdge(new Edge(nodes[hub], nodes[x], true, 1));
+				if (x != y && y >= 1000) {
+					batch.addEdge(new Edge(nodes[x], nodes[y], true, 1));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (int query = 0; query < 5; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(numberNodes)].getIpAddress());
+			Dijkstra.DijkstraResult expected = Dijkstra.getMinPath(source, graph, WeightMetric.CONSTANT,
+					GeoIP2.class);
+			int[] sequential = BreadthFirstSearch.getHopCounts(source, graph, false);
+			int[] parallel = BreadthFirstSearch.getHopCounts(source, graph, true);
+
+			for (int id = 0; id < graph.getNodeIdBound(); id++) {
+				int hops = expected.getDistance(id) == Double.MAX_VALUE ? -1 : (int) expected.getDistance(id);
+				assertEquals(hops, sequential[id]);
+				assertEquals(hops, parallel[id]);
+			}
+		}
+	}
+
 }
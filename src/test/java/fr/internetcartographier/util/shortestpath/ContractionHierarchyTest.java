@@ -0,0 +1,140 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ContractionHierarchyTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testContractionHierarchyAgainstDijkstra() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 400, 800, new Random(7),
+				random -> 1 + random.nextInt(100));
+		GraphSnapshot graph = internetGraph.snapshot();
+		ContractionHierarchy contractionHierarchy = ContractionHierarchy.build(graph, WeightMetric.RESPONSE_TIME,
+				GeoIP2.class);
+
+		assertTrue(contractionHierarchy.isBuiltFor(graph, WeightMetric.RESPONSE_TIME, GeoIP2.class));
+		assertFalse(contractionHierarchy.isBuiltFor(graph, WeightMetric.CONSTANT, GeoIP2.class));
+		assertPathsAreMinimum(contractionHierarchy, graph, nodes, new Random(8));
+	}
+
+	@Test
+	void testWriteAndRead() throws IOException {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 200, 400, new Random(9),
+				random -> 1 + random.nextInt(100));
+		GraphSnapshot graph = internetGraph.snapshot();
+		ContractionHierarchy contractionHierarchy = ContractionHierarchy.build(graph, WeightMetric.RESPONSE_TIME,
+				GeoIP2.class);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		contractionHierarchy.write(outputStream, graph);
+		byte[] bytes = outputStream.toByteArray();
+
+		// The same graph, with other node identifiers
+		InternetGraph reloadedGraph = new InternetGraph();
+		reloadedGraph.addNode(new Node(new IPAddress("18.46.0.1")));
+		reloadedGraph.batch(batch -> {
+			for (int id = nodes.length - 1; id >= 0; id--) {
+				batch.addNode(nodes[id]);
+			}
+			internetGraph.getEdges().forEach(batch::addEdge);
+		});
+		GraphSnapshot reloaded = reloadedGraph.snapshot();
+		ContractionHierarchy readHierarchy = ContractionHierarchy.read(new ByteArrayInputStream(bytes), reloaded,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class);
+
+		assertEquals(contractionHierarchy.getNumberArcs(), readHierarchy.getNumberArcs());
+		assertPathsAreMinimum(readHierarchy, reloaded, nodes, new Random(10));
+
+		assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy
+				.read(new ByteArrayInputStream(bytes), reloaded, WeightMetric.CONSTANT, GeoIP2.class));
+
+		// A corrupted arc target is rejected, even behind a valid header
+		int firstArc = 4 + 4 + 2 + WeightMetric.RESPONSE_TIME.name().length() + 2
+				+ GeoIP2.class.getCanonicalName().length() + 8 + 4 + 4 + 12 * graph.getNodeIdBound();
+		for (int target : new int[] { graph.getNodeIdBound(), -2 }) {
+			byte[] corrupted = bytes.clone();
+			ByteBuffer.wrap(corrupted).putInt(firstArc, target);
+			assertThrows(IOException.class, () -> ContractionHierarchy.read(new ByteArrayInputStream(corrupted), graph,
+					WeightMetric.RESPONSE_TIME, GeoIP2.class));
+		}
+
+		Node node = new Node(new IPAddress("18.46.0.2"));
+		internetGraph.addNode(node);
+		internetGraph.addEdge(new Edge(node, nodes[0], true, 1));
+		assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy
+				.read(new ByteArrayInputStream(bytes), internetGraph.snapshot(), WeightMetric.RESPONSE_TIME,
+						GeoIP2.class));
+	}
+
+	@Test
+	void testMinimumDistanceWithContractionHierarchy() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 100, 200, new Random(11),
+				random -> 1 + random.nextInt(100));
+		GraphSnapshot graph = internetGraph.snapshot();
+		internetGraph.setContractionHierarchy(ContractionHierarchy.build(graph, WeightMetric.CONSTANT, GeoIP2.class));
+
+		for (int i = 1; i < nodes.length; i++) {
+			double expected = BreadthFirstSearch.getMinPath(nodes[0].getStringIpAddress(),
+					nodes[i].getStringIpAddress(), graph).getCost();
+			assertEquals(expected, internetGraph.minimumDistance(nodes[0].getIpAddress(), nodes[i].getIpAddress(),
+					WeightMetric.CONSTANT, GeoIP2.class).getCost());
+		}
+	}
+
+	// Checks the paths found by a hierarchy against Dijkstra's algorithm.
+	private void assertPathsAreMinimum(ContractionHierarchy contractionHierarchy, GraphSnapshot graph, Node[] nodes,
+			Random random) {
+		for (int query = 0; query < 200; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			IdentifierPath path = contractionHierarchy.getMinPath(source, destination, graph);
+			double expected = Dijkstra.getMinPath(source, graph, WeightMetric.RESPONSE_TIME, GeoIP2.class)
+					.getDistance(destination);
+
+			assertEquals(expected, path.getCost());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+
+			// The path is unpacked to edges of the graph
+			for (int index = 0; path.isReachable() && index < path.getLength() - 1; index++) {
+				assertTrue(containsEdge(graph, path.getNode(index), path.getNode(index + 1),
+						path.getCost(index + 1) - path.getCost(index)));
+			}
+		}
+	}
+
+	// Checks if an edge of the snapshot links two nodes with a response time.
+	private boolean containsEdge(GraphSnapshot graph, int nodeA, int nodeB, double responseTime) {
+		for (int arc = graph.getFirstArc(nodeA); arc < graph.getLastArc(nodeA); arc++) {
+			if (graph.getArcTarget(arc) == nodeB && graph.getResponseTime(graph.getArcEdge(arc)) == responseTime) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,118 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import fr.internetcartographier.util.shortestpath.Dijkstra.DijkstraResult;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeltaSteppingTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testDeltaSteppingAgainstDijkstra() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 3000, 6000, new Random(17),
+				random -> random.nextInt(20));
+		GraphSnapshot graph = internetGraph.snapshot();
+		int source = graph.getNodeId(nodes[0].getIpAddress());
+		DijkstraResult expected = Dijkstra.getMinPath(source, graph, WeightMetric.RESPONSE_TIME, GeoIP2.class);
+		double[] weights = graph.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class);
+
+		// Small, medium and large buckets
+		for (double delta : new double[] { 0.5, 7, 1000 }) {
+			DijkstraResult result = DeltaStepping.getMinPath(source, graph, WeightMetric.RESPONSE_TIME, GeoIP2.class,
+					delta);
+
+			for (int id = 0; id < graph.getNodeIdBound(); id++) {
+				assertEquals(expected.getDistance(id), result.getDistance(id));
+
+				// Each predecessor is on a minimum path, and leads back to the source
+				int length = 0;
+				for (int crawl = id; result.getPredecessor(crawl) >= 0; crawl = result.getPredecessor(crawl)) {
+					int predecessor = result.getPredecessor(crawl);
+					assertEquals(result.getDistance(crawl),
+							result.getDistance(predecessor) + getWeight(graph, weights, predecessor, crawl));
+					assertTrue(++length < graph.getNodeIdBound());
+				}
+			}
+		}
+	}
+
+	@Test
+	void testMinPathBetweenTwoNodes() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 500, 900, new Random(19),
+				random -> random.nextInt(20));
+		GraphSnapshot graph = internetGraph.snapshot();
+		Random random = new Random(20);
+
+		for (int query = 0; query < 100; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			IdentifierPath path = DeltaStepping.getMinPath(source, destination, graph, WeightMetric.RESPONSE_TIME,
+					GeoIP2.class, 3);
+
+			assertEquals(Dijkstra.getMinPath(source, graph, WeightMetric.RESPONSE_TIME, GeoIP2.class)
+					.getDistance(destination), path.getCost());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+		}
+	}
+
+	@Test
+	void testEngineSelection() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 200, 400, new Random(21),
+				random -> random.nextInt(20));
+		GraphSnapshot graph = internetGraph.snapshot();
+		DijkstraResult expected = Dijkstra.getMinPath(graph.getNodeId(nodes[0].getIpAddress()), graph,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> new DeltaStepping(1, Map.of(WeightMetric.RESPONSE_TIME, 0.0)));
+
+		internetGraph.setDeltaStepping(new DeltaStepping(100, Map.of(WeightMetric.RESPONSE_TIME, 2.0)));
+		for (int i = 1; i < nodes.length; i++) {
+			assertEquals(expected.getDistance(graph.getNodeId(nodes[i].getIpAddress())),
+					internetGraph.minimumDistance(nodes[0].getIpAddress(), nodes[i].getIpAddress(),
+							WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+		}
+
+		// The removed nodes are not counted, even though their identifiers are still bound
+		DeltaStepping deltaStepping = new DeltaStepping(150, Map.of());
+		assertTrue(deltaStepping.isSuitedFor(internetGraph.snapshot()));
+		internetGraph.batch(batch -> {
+			for (int i = 100; i < nodes.length; i++) {
+				batch.removeNode(nodes[i].getIpAddress());
+			}
+		});
+		assertTrue(internetGraph.snapshot().getNodeIdBound() >= 150);
+		assertFalse(deltaStepping.isSuitedFor(internetGraph.snapshot()));
+	}
+
+	// Gets the weight of the lightest arc between two nodes.
+	private double getWeight(GraphSnapshot graph, double[] weights, int nodeA, int nodeB) {
+		double weight = Double.MAX_VALUE;
+		for (int arc = graph.getFirstArc(nodeA); arc < graph.getLastArc(nodeA); arc++) {
+			if (graph.getArcTarget(arc) == nodeB) {
+				weight = Math.min(weight, weights[arc]);
+			}
+		}
+		return weight;
+	}
+
+}
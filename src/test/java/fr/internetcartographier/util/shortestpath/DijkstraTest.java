@@ -8,10 +8,13 @@ import fr.internetcartographier.model.geolocationservice.GeolocationData;
 import fr.internetcartographier.model.geolocationservice.GeolocationService;
 import fr.internetcartographier.model.geolocationservice.IPAddress;
 import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
 import fr.internetcartographier.model.internetgraph.InternetGraph;
 import fr.internetcartographier.model.internetgraph.Node;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -153,4 +156,78 @@ class DijkstraTest {
 		assertEquals("", predecessors.get(ipAddress9.getStringIpAddress()));
 	}
 
+	@Test
+	void testDijkstraAgainstBellmanFord() {
+		int numberNodes = 300;
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, numberNodes, numberNodes * 3, new Random(0),
+				random -> 1 + random.nextInt(100));
+
+		Map<String, Double> distances = Dijkstra
+				.getMinPath(nodes[0].getStringIpAddress(), internetGraph, WeightMetric.RESPONSE_TIME, GeoIP2.class)
+				.getDistances();
+
+		// Bellman-Ford over the edges, as a reference
+		Map<String, Double> expected = new HashMap<>();
+		for (Node node : nodes) {
+			expected.put(node.getStringIpAddress(), Double.MAX_VALUE);
+		}
+		expected.put(nodes[0].getStringIpAddress(), 0.0);
+		for (int round = 0; round < numberNodes; round++) {
+			for (Edge edge : internetGraph.getEdges()) {
+				String a = edge.getStringIpAddressNodeA();
+				String b = edge.getStringIpAddressNodeB();
+				if (expected.get(a) < Double.MAX_VALUE) {
+					expected.put(b, Math.min(expected.get(b), expected.get(a) + edge.getResponseTime()));
+				}
+				if (expected.get(b) < Double.MAX_VALUE) {
+					expected.put(a, Math.min(expected.get(a), expected.get(b) + edge.getResponseTime()));
+				}
+			}
+		}
+
+		assertEquals(expected, distances);
+	}
+
+	@Test
+	void testBidirectionalDijkstra() {
+		Node[] nodes = RandomGraphs.addRandomGraph(internetGraph, 300, 600, new Random(1),
+				random -> 1 + random.nextInt(100));
+		GraphSnapshot graph = internetGraph.snapshot();
+		Random random = new Random(2);
+
+		for (int query = 0; query < 200; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			IdentifierPath path = Dijkstra.getMinPath(source, destination, graph, WeightMetric.RESPONSE_TIME,
+					GeoIP2.class);
+			Dijkstra.DijkstraResult result = Dijkstra.getMinPath(source, graph, WeightMetric.RESPONSE_TIME,
+					GeoIP2.class);
+
+			assertEquals(result.getDistance(destination), path.getCost());
+			assertEquals(source, path.getNode(0));
+			assertEquals(destination, path.getNode(path.getLength() - 1));
+		}
+
+		// The buffers of the searches are reused on a smaller graph
+		InternetGraph smallGraph = new InternetGraph();
+		Node nodeA = new Node(new IPAddress("18.46.0.1"));
+		Node nodeB = new Node(new IPAddress("18.46.0.2"));
+		Node nodeC = new Node(new IPAddress("18.46.0.3"));
+		smallGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addNode(nodeC);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 4));
+		});
+		GraphSnapshot small = smallGraph.snapshot();
+		int a = small.getNodeId(nodeA.getIpAddress());
+		int b = small.getNodeId(nodeB.getIpAddress());
+		int c = small.getNodeId(nodeC.getIpAddress());
+
+		assertEquals(4.0, Dijkstra.getMinPath(a, b, small, WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+		assertEquals(Double.MAX_VALUE, Dijkstra.getMinPath(a, c, small, WeightMetric.RESPONSE_TIME, GeoIP2.class)
+				.getCost());
+		assertEquals(4.0, Dijkstra.getMinPath(b, a, small, WeightMetric.RESPONSE_TIME, GeoIP2.class).getCost());
+	}
+
 }
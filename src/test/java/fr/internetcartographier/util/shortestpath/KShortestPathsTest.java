@@ -0,0 +1,137 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import fr.internetcartographier.util.path.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KShortestPathsTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testAlternativeRoutes() {
+		Node nodeA = new Node(new IPAddress("18.45.0.1"));
+		Node nodeB = new Node(new IPAddress("18.45.0.2"));
+		Node nodeC = new Node(new IPAddress("18.45.0.3"));
+		Node nodeD = new Node(new IPAddress("18.45.0.4"));
+		internetGraph.batch(batch -> {
+			batch.addNode(nodeA);
+			batch.addNode(nodeB);
+			batch.addNode(nodeC);
+			batch.addNode(nodeD);
+			batch.addEdge(new Edge(nodeA, nodeB, true, 1));
+			batch.addEdge(new Edge(nodeB, nodeD, true, 1));
+			batch.addEdge(new Edge(nodeA, nodeC, true, 2));
+			batch.addEdge(new Edge(nodeC, nodeD, true, 2));
+			batch.addEdge(new Edge(nodeB, nodeC, true, 1));
+		});
+
+		List<Path<String>> paths = internetGraph.minimumDistances(nodeA.getIpAddress(), nodeD.getIpAddress(), 10,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class);
+
+		assertEquals(4, paths.size());
+		assertEquals(List.of("18.45.0.1", "18.45.0.2", "18.45.0.4"), paths.get(0).getElements());
+		assertEquals(2, paths.get(0).getCost());
+		// Paths of the same cost come by increasing length
+		assertEquals(List.of("18.45.0.1", "18.45.0.3", "18.45.0.4"), paths.get(1).getElements());
+		assertEquals(Set.of(List.of("18.45.0.1", "18.45.0.3", "18.45.0.2", "18.45.0.4"),
+				List.of("18.45.0.1", "18.45.0.2", "18.45.0.3", "18.45.0.4")),
+				Set.of(paths.get(2).getElements(), paths.get(3).getElements()));
+		for (int rank = 1; rank < paths.size(); rank++) {
+			assertEquals(4, paths.get(rank).getCost());
+		}
+
+		assertEquals(1, internetGraph.minimumDistances(nodeA.getIpAddress(), nodeD.getIpAddress(), 1,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class).size());
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.minimumDistances(nodeA.getIpAddress(),
+				new IPAddress("18.46.0.1"), 3, WeightMetric.RESPONSE_TIME, GeoIP2.class));
+	}
+
+	@Test
+	void testAgainstAllSimplePaths() {
+		Random random = new Random(29);
+		Node[] nodes = new Node[12];
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < nodes.length; id++) {
+				nodes[id] = new Node(new IPAddress("18.45.0." + (id + 1)));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < 22; i++) {
+				int a = random.nextInt(nodes.length);
+				int b = random.nextInt(nodes.length);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1 + random.nextInt(9)));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (int query = 0; query < 20; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			List<Double> expected = new ArrayList<>();
+			addSimplePathCosts(graph, source, destination, new HashSet<>(), 0, expected);
+			Collections.sort(expected);
+
+			List<IdentifierPath> paths = KShortestPaths.getMinPaths(source, destination, 10, graph,
+					WeightMetric.RESPONSE_TIME, GeoIP2.class);
+			Set<List<Integer>> distinctPaths = new HashSet<>();
+
+			assertEquals(Math.min(10, expected.size()), paths.size());
+			for (int rank = 0; rank < paths.size(); rank++) {
+				IdentifierPath path = paths.get(rank);
+				List<Integer> pathNodes = new ArrayList<>();
+				for (int index = 0; index < path.getLength(); index++) {
+					pathNodes.add(path.getNode(index));
+				}
+
+				assertEquals(expected.get(rank).doubleValue(), path.getCost());
+				assertEquals(source, path.getNode(0));
+				assertEquals(destination, path.getNode(path.getLength() - 1));
+				assertEquals(pathNodes.size(), new HashSet<>(pathNodes).size());
+				assertTrue(distinctPaths.add(pathNodes));
+			}
+		}
+	}
+
+	// Adds the costs of all the simple paths from a node to the destination, by depth-first search.
+	private void addSimplePathCosts(GraphSnapshot graph, int node, int destination, Set<Integer> visited,
+			double cost, List<Double> costs) {
+		if (node == destination) {
+			costs.add(cost);
+			return;
+		}
+		visited.add(node);
+		for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+			int neighbor = graph.getArcTarget(arc);
+			if (!visited.contains(neighbor)) {
+				addSimplePathCosts(graph, neighbor, destination, visited,
+						cost + graph.getResponseTime(graph.getArcEdge(arc)), costs);
+			}
+		}
+		visited.remove(node);
+	}
+
+}
@@ -0,0 +1,105 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NearestNodesTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testNearestAgainstDijkstra() {
+		Random random = new Random(23);
+		Node[] nodes = new Node[400];
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < nodes.length; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 100 + "." + id % 100));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < 800; i++) {
+				int a = random.nextInt(nodes.length);
+				int b = random.nextInt(nodes.length);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1 + random.nextInt(10)));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		for (WeightMetric weightMetric : List.of(WeightMetric.RESPONSE_TIME, WeightMetric.CONSTANT)) {
+			for (int query = 0; query < 20; query++) {
+				int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+				int k = 1 + random.nextInt(30);
+				List<Map.Entry<Double, Integer>> nearest = NearestNodes.getNearest(source, k, graph, weightMetric,
+						GeoIP2.class);
+				Dijkstra.DijkstraResult expected = Dijkstra.getMinPath(source, graph, weightMetric, GeoIP2.class);
+
+				double[] sortedDistances = new double[graph.getNodeIdBound() - 1];
+				for (int id = 0, index = 0; id < graph.getNodeIdBound(); id++) {
+					if (id != source) {
+						sortedDistances[index++] = expected.getDistance(id);
+					}
+				}
+				Arrays.sort(sortedDistances);
+
+				Set<Integer> distinctNodes = new HashSet<>();
+				for (int rank = 0; rank < nearest.size(); rank++) {
+					assertEquals(sortedDistances[rank], nearest.get(rank).getKey().doubleValue());
+					assertEquals(expected.getDistance(nearest.get(rank).getValue()),
+							nearest.get(rank).getKey().doubleValue());
+					distinctNodes.add(nearest.get(rank).getValue());
+				}
+				assertEquals(nearest.size(), distinctNodes.size());
+				if (nearest.size() < k) {
+					assertEquals(Double.MAX_VALUE, sortedDistances[nearest.size()]);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testTiesArePreserved() {
+		Node center = new Node(new IPAddress("18.45.0.1"));
+		internetGraph.addNode(center);
+		for (int leaf = 0; leaf < 8; leaf++) {
+			Node node = new Node(new IPAddress("18.45.1." + leaf));
+			internetGraph.addNode(node);
+			internetGraph.addEdge(new Edge(center, node, true, 5));
+		}
+		GraphSnapshot graph = internetGraph.snapshot();
+
+		List<Map.Entry<Double, String>> nearest = internetGraph.getNearestNodes(graph, center.getIpAddress(), 5,
+				WeightMetric.RESPONSE_TIME, GeoIP2.class);
+
+		assertEquals(5, nearest.size());
+		for (Map.Entry<Double, String> entry : nearest) {
+			assertEquals(5.0, entry.getKey().doubleValue());
+		}
+		assertEquals(8, internetGraph.getNearestNodes(graph, center.getIpAddress(), 20, WeightMetric.CONSTANT,
+				GeoIP2.class).size());
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.getNearestNodes(graph,
+				new IPAddress("18.46.0.1"), 5, WeightMetric.CONSTANT, GeoIP2.class));
+	}
+
+}
@@ -0,0 +1,166 @@
+package fr.internetcartographier.util.shortestpath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.internetcartographier.model.WeightMetric;
+import fr.internetcartographier.model.geolocationservice.GeoIP2;
+import fr.internetcartographier.model.geolocationservice.GeolocationData;
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.GraphSnapshot;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import fr.internetcartographier.util.shortestpath.ParetoSearch.ParetoPath;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParetoSearchTest {
+
+	private InternetGraph internetGraph;
+
+	@BeforeEach
+	void setUp() {
+		internetGraph = new InternetGraph();
+	}
+
+	@Test
+	void testTradeOffs() {
+		// A fast detour through London, or a slow direct link through Lyon
+		Node paris = newNode("18.45.0.1", 48.85, 2.35);
+		Node london = newNode("18.45.0.2", 51.51, -0.13);
+		Node lyon = newNode("18.45.0.3", 45.76, 4.84);
+		Node marseille = newNode("18.45.0.4", 43.30, 5.37);
+		internetGraph.batch(batch -> {
+			batch.addNode(paris);
+			batch.addNode(london);
+			batch.addNode(lyon);
+			batch.addNode(marseille);
+			batch.addEdge(new Edge(paris, london, true, 1));
+			batch.addEdge(new Edge(london, marseille, true, 1));
+			batch.addEdge(new Edge(paris, lyon, true, 10));
+			batch.addEdge(new Edge(lyon, marseille, true, 10));
+		});
+
+		List<ParetoPath> paths = internetGraph.paretoDistances(paris.getIpAddress(), marseille.getIpAddress(),
+				GeoIP2.class, Integer.MAX_VALUE);
+
+		assertEquals(2, paths.size());
+		assertEquals(List.of("18.45.0.1", "18.45.0.2", "18.45.0.4"), paths.get(0).getElements());
+		assertEquals(2, paths.get(0).getResponseTime());
+		assertEquals(List.of("18.45.0.1", "18.45.0.3", "18.45.0.4"), paths.get(1).getElements());
+		assertEquals(20, paths.get(1).getResponseTime());
+		assertTrue(paths.get(1).getDistance() < paths.get(0).getDistance());
+
+		assertEquals(List.of("18.45.0.1", "18.45.0.2", "18.45.0.4"), internetGraph.minimumWeightedDistance(
+				paris.getIpAddress(), marseille.getIpAddress(), GeoIP2.class, 1, 0).getElements());
+		assertEquals(List.of("18.45.0.1", "18.45.0.3", "18.45.0.4"), internetGraph.minimumWeightedDistance(
+				paris.getIpAddress(), marseille.getIpAddress(), GeoIP2.class, 1, 1).getElements());
+
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.paretoDistances(paris.getIpAddress(),
+				marseille.getIpAddress(), GeoIP2.class, 0));
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.minimumWeightedDistance(
+				paris.getIpAddress(), marseille.getIpAddress(), GeoIP2.class, -1, 1));
+		assertThrows(IllegalArgumentException.class, () -> internetGraph.paretoDistances(paris.getIpAddress(),
+				new IPAddress("18.46.0.1"), GeoIP2.class, 1));
+	}
+
+	@Test
+	void testAgainstAllSimplePaths() {
+		Random random = new Random(31);
+		Node[] nodes = new Node[12];
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < nodes.length; id++) {
+				nodes[id] = newNode("18.45.0." + (id + 1), 40 + random.nextInt(100) / 10.0,
+						random.nextInt(100) / 10.0);
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < 24; i++) {
+				int a = random.nextInt(nodes.length);
+				int b = random.nextInt(nodes.length);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, 1 + random.nextInt(20)));
+				}
+			}
+		});
+		GraphSnapshot graph = internetGraph.snapshot();
+		double[] responseTimes = graph.getWeights(WeightMetric.RESPONSE_TIME, GeoIP2.class);
+		double[] distances = graph.getWeights(WeightMetric.DISTANCE, GeoIP2.class);
+
+		for (int query = 0; query < 20; query++) {
+			int source = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			int destination = graph.getNodeId(nodes[random.nextInt(nodes.length)].getIpAddress());
+			if (source == destination) {
+				continue;
+			}
+			List<double[]> costs = new ArrayList<>();
+			addSimplePathCosts(graph, responseTimes, distances, source, destination, new HashSet<>(), 0, 0, costs);
+
+			// The exact frontier contains one path per non-dominated pair of costs
+			Set<String> expected = new HashSet<>();
+			for (double[] cost : costs) {
+				if (costs.stream().noneMatch(other -> other[0] <= cost[0] && other[1] <= cost[1]
+						&& (other[0] < cost[0] || other[1] < cost[1]))) {
+					expected.add(cost[0] + " " + cost[1]);
+				}
+			}
+			Set<String> actual = new HashSet<>();
+			List<ParetoPath> paths = ParetoSearch.getParetoPaths(source, destination, graph, GeoIP2.class,
+					Integer.MAX_VALUE);
+			for (int rank = 0; rank < paths.size(); rank++) {
+				actual.add(paths.get(rank).getResponseTime() + " " + paths.get(rank).getDistance());
+				if (rank > 0) {
+					assertTrue(paths.get(rank - 1).getResponseTime() < paths.get(rank).getResponseTime());
+					assertTrue(paths.get(rank - 1).getDistance() > paths.get(rank).getDistance());
+				}
+			}
+			assertEquals(expected, actual);
+
+			// A bounded search finds non-dominated paths of the frontier
+			List<ParetoPath> boundedPaths = ParetoSearch.getParetoPaths(source, destination, graph, GeoIP2.class, 1);
+			assertTrue(boundedPaths.size() <= paths.size());
+			if (!paths.isEmpty()) {
+				assertEquals(paths.get(0).getResponseTime(), boundedPaths.get(0).getResponseTime());
+			}
+
+			// The weighted sum is the minimum over the frontier
+			double best = Double.MAX_VALUE;
+			for (double[] cost : costs) {
+				best = Math.min(best, 2 * cost[0] + cost[1]);
+			}
+			assertEquals(best, ParetoSearch.getWeightedMinPath(source, destination, graph, GeoIP2.class, 2, 1)
+					.getCost(), 1e-6);
+		}
+	}
+
+	private static Node newNode(String ipAddress, double latitude, double longitude) {
+		return new Node(new IPAddress(ipAddress), new GeolocationData.TypedGeolocationData(GeoIP2.class,
+				Optional.of(new GeolocationData(latitude, longitude, "France", "Paris"))));
+	}
+
+	// Adds the costs of all the simple paths from a node to the destination, by depth-first search.
+	private void addSimplePathCosts(GraphSnapshot graph, double[] responseTimes, double[] distances, int node,
+			int destination, Set<Integer> visited, double responseTime, double distance, List<double[]> costs) {
+		if (node == destination) {
+			costs.add(new double[] { responseTime, distance });
+			return;
+		}
+		visited.add(node);
+		for (int arc = graph.getFirstArc(node); arc < graph.getLastArc(node); arc++) {
+			int neighbor = graph.getArcTarget(arc);
+			if (!visited.contains(neighbor)) {
+				addSimplePathCosts(graph, responseTimes, distances, neighbor, destination, visited,
+						responseTime + responseTimes[arc], distance + distances[arc], costs);
+			}
+		}
+		visited.remove(node);
+	}
+
+}
@@ -0,0 +1,52 @@
+package fr.internetcartographier.util.shortestpath;
+
+import fr.internetcartographier.model.geolocationservice.IPAddress;
+import fr.internetcartographier.model.internetgraph.Edge;
+import fr.internetcartographier.model.internetgraph.InternetGraph;
+import fr.internetcartographier.model.internetgraph.Node;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Random graphs shared by the tests of the shortest path engines.
+ */
+final class RandomGraphs {
+
+	private RandomGraphs() {
+	}
+
+	/**
+	 * Adds a random graph to an Internet graph, in a single batch. The nodes are
+	 * not located.
+	 *
+	 * @param  internetGraph The Internet graph to add the nodes and edges to.
+	 * @param  numberNodes   The number of nodes.
+	 * @param  numberEdges   The number of edges drawn (self-loops and duplicates
+	 *                       are skipped).
+	 * @param  random        The random generator of the endpoints.
+	 * @param  responseTimes The function drawing the response time of an edge
+	 *                       from the random generator.
+	 * @return               The nodes, by identifier.
+	 */
+	static Node[] addRandomGraph(InternetGraph internetGraph, int numberNodes, int numberEdges, Random random,
+			ToDoubleFunction<Random> responseTimes) {
+		Node[] nodes = new Node[numberNodes];
+
+		internetGraph.batch(batch -> {
+			for (int id = 0; id < numberNodes; id++) {
+				nodes[id] = new Node(new IPAddress("18.45." + id / 100 + "." + id % 100));
+				batch.addNode(nodes[id]);
+			}
+			for (int i = 0; i < numberEdges; i++) {
+				int a = random.nextInt(numberNodes);
+				int b = random.nextInt(numberNodes);
+				if (a != b) {
+					batch.addEdge(new Edge(nodes[a], nodes[b], true, responseTimes.applyAsDouble(random)));
+				}
+			}
+		});
+
+		return nodes;
+	}
+
+}